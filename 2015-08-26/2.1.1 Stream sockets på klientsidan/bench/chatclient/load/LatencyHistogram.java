@@ -0,0 +1,140 @@
+package chatclient.load;
+
+import java.util.Arrays;
+
+/**
+ * Klass som samlar frdrjningar i ett histogram med logaritmiskt vxande
+ * fack, dr varje tvpotens delas in i ett antal lika stora fack.
+ * Histogrammet har drmed en relativ upplsning p ett par procent oavsett
+ * frdrjningens storlek, och krver ingen allokering per mtvrde.
+ * <p>
+ * Klassen r inte trdsker - varje trd har ett eget histogram, vilka
+ * sedan sls samman med {@link #add(LatencyHistogram)}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Antalet fack per tvpotens. Vrden under {@value #SUB_BUCKETS} fr ett
+     * eget fack var, medan varje strre tvpotens delas in i lika mnga fack.
+     */
+    private final static int SUB_BUCKET_BITS = 5;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS
+	    * (Long.SIZE - SUB_BUCKET_BITS + 1)];
+    private long count = 0;
+    private long max = 0;
+
+    /**
+     * Metod fr att registrera en frdrjning.
+     *
+     * @param micros
+     *            frdrjningen i mikrosekunder
+     */
+    public final void record(long micros) {
+	if (micros < 0)
+	    micros = 0;
+	this.counts[indexOf(micros)]++;
+	this.count++;
+	if (micros > this.max)
+	    this.max = micros;
+    }
+
+    /**
+     * Metod fr att lgga till ett annat histograms mtvrden till detta.
+     *
+     * @param other
+     *            histogrammet som skall lggas till
+     */
+    public final void add(LatencyHistogram other) {
+	for (int i = 0; i < this.counts.length; i++)
+	    this.counts[i] += other.counts[i];
+	this.count += other.count;
+	this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Metod fr att nollstlla histogrammet, till exempel efter
+     * uppvrmningen.
+     */
+    public final void reset() {
+	Arrays.fill(this.counts, 0);
+	this.count = 0;
+	this.max = 0;
+    }
+
+    /**
+     * Metod som returnerar antalet registrerade frdrjningar.
+     *
+     * @return antalet mtvrden
+     */
+    public final long getCount() {
+	return this.count;
+    }
+
+    /**
+     * Metod som returnerar den strsta registrerade frdrjningen.
+     *
+     * @return den strsta frdrjningen i mikrosekunder
+     */
+    public final long getMax() {
+	return this.max;
+    }
+
+    /**
+     * Metod som returnerar den frdrjning som angiven andel utav mtvrdena
+     * understiger. Vrdet avser det vre grnsvrdet fr det fack
+     * percentilen hamnar i.
+     *
+     * @param percentile
+     *            percentilen, frn 0 till 100
+     * @return frdrjningen i mikrosekunder, eller {@code 0} om histogrammet
+     *         r tomt
+     */
+    public final long getPercentile(double percentile) {
+	if (this.count == 0)
+	    return 0;
+
+	final long rank = Math.max(1,
+		(long) Math.ceil(this.count * percentile / 100.0));
+	long seen = 0;
+	for (int i = 0; i < this.counts.length; i++) {
+	    seen += this.counts[i];
+	    if (seen >= rank)
+		return Math.min(upperBoundOf(i), this.max);
+	}
+	return this.max;
+    }
+
+    /*
+     * Hjlpmetod som rknar ut vilket fack ett vrde hr till. Strre vrden
+     * delas in efter sin hgsta bit samt de SUB_BUCKET_BITS nrmast fljande
+     * bitarna, medan resterande bitar ignoreras.
+     */
+    private static int indexOf(long value) {
+	if (value < SUB_BUCKETS)
+	    return (int) value;
+
+	final int shift = 63 - Long.numberOfLeadingZeros(value)
+		- SUB_BUCKET_BITS;
+	final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+	return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /*
+     * Hjlpmetod som rknar ut det strsta vrde som hr till ett fack.
+     */
+    private static long upperBoundOf(int index) {
+	if (index < SUB_BUCKETS)
+	    return index;
+
+	final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+	final long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS
+		+ SUB_BUCKETS;
+	final long bound = ((subBucket + 1) << shift) - 1;
+	return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+}
@@ -0,0 +1,291 @@
+package chatclient.load;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import chatclient.Client;
+import chatclient.service.Service;
+import chatclient.service.servants.MessageSendingServant;
+
+/**
+ * Tillmpningsprogram som belastar chat-servern med ett stort antal syntetiska
+ * klienter frn en och samma process, utan grafiskt anvndargrnssnitt.
+ * Klienterna talar samma radbaserade protokoll som {@link Service}, men drivs
+ * utav ett ftal trdar med icke-blockerande kanaler istllet fr tv trdar
+ * per anslutning, s att tusentals anslutningar kan hllas ppna samtidigt.
+ * <p>
+ * Varje meddelande br den tidpunkt det skickades, s att frdrjningen frn
+ * sndning till dess att servern levererat det till en mottagare kan mtas.
+ * Resultatet redovisas som genomstrmning per sekund under krningen, samt
+ * som percentiler nr krningen r klar.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class LoadGenerator {
+
+    /**
+     * Text som beskriver hur tillmpningsprogrammet skall startas.
+     */
+    public final static String USAGE = "Anvndning:\nLoadGenerator [FLAGGOR] [ADRESS] [PORT]\n"
+	    + "\t--clients=ANTAL\tantalet anslutningar, frvalt 1000\n"
+	    + "\t--rate=ANTAL\tantalet meddelanden per sekund frn samtliga\n"
+	    + "\t\t\tanslutningar, frvalt 100\n"
+	    + "\t--size=ANTAL\tantalet tecken utfyllnad per meddelande,\n"
+	    + "\t\t\tfrvalt 64\n"
+	    + "\t--rooms=ANTAL\tfrdelar anslutningarna ver flera rum,\n"
+	    + "\t\t\tfrvalt 1\n"
+	    + "\t--warmup=SEKUNDER\tuppvrmningens lngd, frvalt 5\n"
+	    + "\t--duration=SEKUNDER\tmtningens lngd, frvalt 30\n"
+	    + "\t--threads=ANTAL\tantalet trdar, frvalt antalet processorer";
+
+    /**
+     * Den tid som trdarna fortstter att lsa efter att sndningen slutat,
+     * s att meddelanden som fortfarande r p vg hinner tas emot.
+     */
+    private final static long DRAIN_SECONDS = 2;
+
+    private int clients = 1000;
+    private double rate = 100;
+    private int size = 64;
+    private int rooms = 1;
+    private int warmup = 5;
+    private int duration = 30;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Huvudmetoden som anropas nr tillmpningsprogrammet krs.
+     *
+     * @param args
+     *            flaggor enligt {@link #USAGE}, fljt utav ntverksadressen
+     *            och ntverksporten. I annat fall anvnds
+     *            {@link Client#DEFAULT_HOST} och {@link Client#DEFAULT_PORT}.
+     */
+    public static void main(String[] args) {
+	final LoadGenerator generator = new LoadGenerator();
+
+	int first = 0;
+	try {
+	    for (; first < args.length && args[first].startsWith("--"); first++)
+		if (!generator.configure(args[first])) {
+		    System.out.println(USAGE);
+		    return;
+		}
+
+	    final InetAddress host;
+	    final int port;
+	    switch (args.length - first) {
+
+	    case 0:
+		host = Client.DEFAULT_HOST;
+		port = Client.DEFAULT_PORT;
+		break;
+
+	    case 1:
+		host = InetAddress.getByName(args[first]);
+		port = Client.DEFAULT_PORT;
+		break;
+
+	    case 2:
+		host = InetAddress.getByName(args[first]);
+		port = Integer.parseInt(args[first + 1]);
+		break;
+
+	    default:
+		System.out.println(USAGE);
+		return;
+	    }
+
+	    generator.run(new InetSocketAddress(host, port));
+	} catch (IllegalArgumentException e) {
+	    /*
+	     * Ifall en flagga eller ntverksporten inte gr att verstta.
+	     */
+	    System.out.println("Ogiltigt vrde: " + e.getMessage());
+	    System.out.println(USAGE);
+	} catch (IOException e) {
+	    System.out
+		    .println("Ett allvarligt fel har intrffat vid anslutningen till servern:");
+	    e.printStackTrace();
+	} catch (InterruptedException e) {
+	    System.out.println("Lastgeneratorn avbrts!");
+	}
+    }
+
+    /**
+     * Metod som ansluter samtliga klienter, driver lasten enligt
+     * instllningarna och slutligen redovisar resultatet.
+     *
+     * @param server
+     *            serverns adress
+     * @throws IOException
+     *             om en anslutning inte kunde upprttas
+     * @throws InterruptedException
+     *             om vntan p trdarna avbrts
+     */
+    private void run(InetSocketAddress server) throws IOException,
+	    InterruptedException {
+	final int threadCount = Math.max(1, Math.min(this.threads,
+		this.clients));
+	final int[] roomSizes = new int[this.rooms];
+	for (int i = 0; i < this.clients; i++)
+	    roomSizes[i % this.rooms]++;
+
+	final long token = new Random().nextLong();
+	final LoadWorker[] workers = new LoadWorker[threadCount];
+	for (int i = 0; i < threadCount; i++)
+	    workers[i] = new LoadWorker(token, this.size, roomSizes, this.rate
+		    / threadCount);
+
+	/*
+	 * Anslutningarna upprttas en i taget och frdelas jmnt ver
+	 * trdarna. Med fler n ett rum gr varje anslutning med i sitt rum
+	 * direkt.
+	 */
+	System.out.println("Ansluter " + this.clients + " klienter till "
+		+ server + "...");
+	for (int i = 0; i < this.clients; i++) {
+	    SocketChannel channel = SocketChannel.open(server);
+	    channel.socket().setTcpNoDelay(true);
+	    final int room = i % this.rooms;
+	    if (this.rooms > 1)
+		channel.write(Service.CHARSET.encode("/join load-" + room
+			+ MessageSendingServant.MESSAGE_TERMINATOR));
+	    workers[i % threadCount].add(channel, room);
+	}
+
+	final long start = System.nanoTime();
+	final long measureStart = start + TimeUnit.SECONDS.toNanos(this.warmup);
+	final long sendEnd = measureStart
+		+ TimeUnit.SECONDS.toNanos(this.duration);
+	final long readEnd = sendEnd + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+
+	Thread[] threads = new Thread[threadCount];
+	for (int i = 0; i < threadCount; i++) {
+	    workers[i].schedule(start, measureStart, sendEnd, readEnd);
+	    threads[i] = new Thread(workers[i], "load-" + i);
+	    threads[i].start();
+	}
+
+	/*
+	 * Genomstrmningen redovisas en gng per sekund medan lasten pgr.
+	 */
+	long lastSent = 0;
+	long lastReceived = 0;
+	for (int second = 1; System.nanoTime() < readEnd; second++) {
+	    final long wakeUp = start + TimeUnit.SECONDS.toNanos(second);
+	    TimeUnit.NANOSECONDS.sleep(Math.max(0, wakeUp - System.nanoTime()));
+
+	    long sent = 0;
+	    long received = 0;
+	    for (LoadWorker worker : workers) {
+		sent += worker.getSent();
+		received += worker.getReceived();
+	    }
+	    System.out.println(String.format(Locale.ROOT,
+		    "%4d s %s skickade/s: %8d mottagna/s: %10d", second,
+		    wakeUp <= measureStart ? "(uppvrmning)" : "             ",
+		    sent - lastSent, received - lastReceived));
+	    lastSent = sent;
+	    lastReceived = received;
+	}
+
+	for (Thread thread : threads)
+	    thread.join();
+	report(workers);
+    }
+
+    /*
+     * Hjlpmetod som sammanstller och skriver ut trdarnas resultat.
+     */
+    private void report(LoadWorker[] workers) {
+	final LatencyHistogram histogram = new LatencyHistogram();
+	long expected = 0;
+	long skipped = 0;
+	long lost = 0;
+	for (LoadWorker worker : workers) {
+	    histogram.add(worker.getHistogram());
+	    expected += worker.getExpected();
+	    skipped += worker.getSkipped();
+	    lost += worker.getLost();
+	}
+
+	System.out.println("----");
+	System.out.println(String.format(Locale.ROOT,
+		"Mottagna: %d utav %d frvntade (%.2f %%), %.1f per sekund",
+		histogram.getCount(), expected, expected == 0 ? 0.0
+			: 100.0 * histogram.getCount() / expected, histogram
+			.getCount() / (double) this.duration));
+	System.out.println("verhoppade meddelanden: " + skipped
+		+ " Frlorade anslutningar: " + lost);
+	System.out.println(String.format(Locale.ROOT,
+		"Frdrjning i mikrosekunder: p50=%d p99=%d p999=%d max=%d",
+		histogram.getPercentile(50), histogram.getPercentile(99),
+		histogram.getPercentile(99.9), histogram.getMax()));
+    }
+
+    /*
+     * Hjlpmetod som tolkar en flagga p formen --NAMN=VRDE.
+     */
+    private boolean configure(String option) throws IllegalArgumentException {
+	final int separator = option.indexOf('=');
+	if (separator < 0)
+	    return false;
+	final String name = option.substring(0, separator);
+	final String value = option.substring(separator + 1);
+
+	switch (name) {
+
+	case "--clients":
+	    this.clients = positive(Integer.parseInt(value));
+	    return true;
+
+	case "--rate":
+	    this.rate = Double.parseDouble(value);
+	    if (!(this.rate > 0))
+		throw new IllegalArgumentException(value);
+	    return true;
+
+	case "--size":
+	    this.size = Integer.parseInt(value);
+	    if (this.size < 0)
+		throw new IllegalArgumentException(value);
+	    return true;
+
+	case "--rooms":
+	    this.rooms = positive(Integer.parseInt(value));
+	    return true;
+
+	case "--warmup":
+	    this.warmup = Integer.parseInt(value);
+	    if (this.warmup < 0)
+		throw new IllegalArgumentException(value);
+	    return true;
+
+	case "--duration":
+	    this.duration = positive(Integer.parseInt(value));
+	    return true;
+
+	case "--threads":
+	    this.threads = positive(Integer.parseInt(value));
+	    return true;
+
+	default:
+	    return false;
+	}
+    }
+
+    /*
+     * Hjlpmetod som kontrollerar att ett vrde r positivt.
+     */
+    private static int positive(int value) throws IllegalArgumentException {
+	if (value < 1)
+	    throw new IllegalArgumentException(String.valueOf(value));
+	return value;
+    }
+}
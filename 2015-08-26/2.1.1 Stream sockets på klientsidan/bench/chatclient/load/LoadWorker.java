@@ -0,0 +1,415 @@
+package chatclient.load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatclient.service.Service;
+import chatclient.service.servants.MessageSendingServant;
+
+/**
+ * Klass som driver en andel utav lastgeneratorns anslutningar frn en och
+ * samma trd, med hjlp utav en {@link Selector}. Trden skickar meddelanden
+ * i jmn takt, turvis frn sina anslutningar, och lser samtidigt allt som
+ * servern skickar tillbaka.
+ * <p>
+ * Varje meddelande br den tidpunkt det var schemalagt att skickas - inte
+ * den tidpunkt det faktiskt skickades - s att en server som inte hinner med
+ * syns i frdrjningen istllet fr att dlja sig i en lgre sndningstakt.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+final class LoadWorker implements Runnable {
+
+    /**
+     * Den markering som inleder lastgeneratorns meddelanden, samt det strsta
+     * antal bytes som vntar p att skickas per anslutning innan ytterligare
+     * meddelanden hoppas ver.
+     */
+    final static String MARKER = "LOAD ";
+    private final static int OUTGOING_LIMIT = 16 * 1024;
+
+    private final Selector selector;
+    private final List<Connection> connections = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+
+    private final long token;
+    private final String padding;
+    private final int[] roomSizes;
+    private final double messagesPerNano;
+
+    /**
+     * Tidpunkterna, enligt {@link System#nanoTime()}, d sndningen brjar,
+     * d mtningen brjar efter uppvrmningen, d sndningen slutar samt d
+     * trden slutar lsa.
+     */
+    private long start;
+    private long measureStart;
+    private long sendEnd;
+    private long readEnd;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong sent = new AtomicLong(0);
+    private final AtomicLong received = new AtomicLong(0);
+    private long expected = 0;
+    private long skipped = 0;
+    private long lost = 0;
+
+    /**
+     * Skapar ett objekt utav klassen {@link LoadWorker}.
+     *
+     * @param token
+     *            det vrde som skiljer denna krnings meddelanden frn
+     *            annan trafik
+     * @param size
+     *            det antal tecken utfyllnad varje meddelande br
+     * @param roomSizes
+     *            antalet anslutningar i varje rum
+     * @param messagesPerSecond
+     *            det antal meddelanden trden skall skicka per sekund
+     * @throws IOException
+     *             om trdens selector inte kunde ppnas
+     */
+    LoadWorker(long token, int size, int[] roomSizes, double messagesPerSecond)
+	    throws IOException {
+	this.selector = Selector.open();
+	this.token = token;
+	this.roomSizes = roomSizes;
+	this.messagesPerNano = messagesPerSecond / TimeUnit.SECONDS.toNanos(1);
+
+	StringBuilder padding = new StringBuilder(size);
+	for (int i = 0; i < size; i++)
+	    padding.append((char) ('a' + i % 26));
+	this.padding = padding.toString();
+    }
+
+    /**
+     * Metod fr att lgga till en ansluten kanal. Fr enbart anropas innan
+     * trden startats.
+     *
+     * @param channel
+     *            den anslutna kanalen
+     * @param room
+     *            index fr det rum anslutningen gtt med i
+     * @throws IOException
+     *             om kanalen inte kunde registreras
+     */
+    void add(SocketChannel channel, int room) throws IOException {
+	channel.configureBlocking(false);
+	Connection connection = new Connection(channel, room);
+	channel.register(this.selector, SelectionKey.OP_READ, connection);
+	this.connections.add(connection);
+    }
+
+    /**
+     * Metod fr att bestmma trdens tidsplan. Fr enbart anropas innan
+     * trden startats.
+     *
+     * @param start
+     *            tidpunkten d sndningen brjar
+     * @param measureStart
+     *            tidpunkten d mtningen brjar
+     * @param sendEnd
+     *            tidpunkten d sndningen slutar
+     * @param readEnd
+     *            tidpunkten d trden slutar lsa
+     */
+    void schedule(long start, long measureStart, long sendEnd, long readEnd) {
+	this.start = start;
+	this.measureStart = measureStart;
+	this.sendEnd = sendEnd;
+	this.readEnd = readEnd;
+    }
+
+    @Override
+    public void run() {
+	long scheduled = 0;
+	int next = 0;
+
+	try {
+	    long now;
+	    while ((now = System.nanoTime()) < this.readEnd) {
+		/*
+		 * Samtliga meddelanden som enligt tidsplanen borde ha skickats
+		 * skickas, turvis frn trdens anslutningar.
+		 */
+		long timeoutMillis = Math.max(1,
+			TimeUnit.NANOSECONDS.toMillis(this.readEnd - now));
+		if (now < this.sendEnd && !this.connections.isEmpty()) {
+		    final long due = (long) ((now - this.start) * this.messagesPerNano);
+		    for (; scheduled < due; scheduled++) {
+			Connection connection = this.connections.get(next);
+			next = (next + 1) % this.connections.size();
+			send(connection, this.start
+				+ (long) (scheduled / this.messagesPerNano));
+		    }
+
+		    final long nextDue = this.start
+			    + (long) ((scheduled + 1) / this.messagesPerNano);
+		    timeoutMillis = Math.max(1,
+			    TimeUnit.NANOSECONDS.toMillis(nextDue - now));
+		}
+
+		this.selector.select(timeoutMillis);
+		Iterator<SelectionKey> keys = this.selector.selectedKeys()
+			.iterator();
+		while (keys.hasNext()) {
+		    SelectionKey key = keys.next();
+		    keys.remove();
+		    Connection connection = (Connection) key.attachment();
+		    try {
+			if (key.isValid() && key.isReadable())
+			    read(connection);
+			if (key.isValid() && key.isWritable())
+			    flush(connection);
+		    } catch (IOException e) {
+			close(connection);
+		    }
+		}
+	    }
+	} catch (IOException e) {
+	    System.err.println("Lastgeneratorns trd avbrts: "
+		    + e.getMessage());
+	} finally {
+	    for (Connection connection : this.connections)
+		close(connection);
+	    try {
+		this.selector.close();
+	    } catch (IOException e) {
+		/*
+		 * Finns inte mycket att gra t detta.
+		 */
+	    }
+	}
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som skickats.
+     *
+     * @return antalet skickade meddelanden
+     */
+    long getSent() {
+	return this.sent.get();
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som tagits emot.
+     *
+     * @return antalet mottagna meddelanden
+     */
+    long getReceived() {
+	return this.received.get();
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som borde ha tagits emot,
+     * givet de skickade meddelandena och rummens storlek. Fr enbart anropas
+     * efter att trden avslutats.
+     *
+     * @return antalet frvntade meddelanden
+     */
+    long getExpected() {
+	return this.expected;
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som hoppats ver d
+     * servern inte hann ta emot dem. Fr enbart anropas efter att trden
+     * avslutats.
+     *
+     * @return antalet verhoppade meddelanden
+     */
+    long getSkipped() {
+	return this.skipped;
+    }
+
+    /**
+     * Metod som returnerar det antal anslutningar som servern stngt. Fr
+     * enbart anropas efter att trden avslutats.
+     *
+     * @return antalet frlorade anslutningar
+     */
+    long getLost() {
+	return this.lost;
+    }
+
+    /**
+     * Metod som returnerar trdens histogram ver frdrjningar. Fr enbart
+     * anropas efter att trden avslutats.
+     *
+     * @return histogrammet
+     */
+    LatencyHistogram getHistogram() {
+	return this.histogram;
+    }
+
+    /*
+     * Hjlpmetod som kodar och skickar ett meddelande med angiven
+     * schemalagd tidpunkt. Ryms meddelandet inte bland anslutningens
+     * vntande bytes s hoppas det ver.
+     */
+    private void send(Connection connection, long scheduledAt) {
+	if (!connection.channel.isOpen())
+	    return;
+
+	final String message = MARKER + this.token + " " + scheduledAt + " "
+		+ this.padding + MessageSendingServant.MESSAGE_TERMINATOR;
+	final byte[] bytes = message.getBytes(Service.CHARSET);
+	if (bytes.length > connection.outgoing.remaining()) {
+	    this.skipped++;
+	    return;
+	}
+
+	connection.outgoing.put(bytes);
+	this.sent.lazySet(this.sent.get() + 1);
+	if (scheduledAt >= this.measureStart)
+	    this.expected += this.roomSizes[connection.room];
+
+	try {
+	    flush(connection);
+	} catch (IOException e) {
+	    close(connection);
+	}
+    }
+
+    /*
+     * Hjlpmetod som skriver anslutningens vntande bytes, och som enbart
+     * bevakar kanalens skrivbarhet nr allt inte kunde skrivas.
+     */
+    private void flush(Connection connection) throws IOException {
+	connection.outgoing.flip();
+	try {
+	    connection.channel.write(connection.outgoing);
+	} finally {
+	    connection.outgoing.compact();
+	}
+
+	final SelectionKey key = connection.channel.keyFor(this.selector);
+	final int interest = connection.outgoing.position() > 0 ? SelectionKey.OP_READ
+		| SelectionKey.OP_WRITE
+		: SelectionKey.OP_READ;
+	if (key.interestOps() != interest)
+	    key.interestOps(interest);
+    }
+
+    /*
+     * Hjlpmetod som lser det servern skickat och delar upp det i rader.
+     * En rad avslutas med '\n', '\r' eller "\r\n".
+     */
+    private void read(Connection connection) throws IOException {
+	this.readBuffer.clear();
+	if (connection.channel.read(this.readBuffer) < 0) {
+	    close(connection);
+	    return;
+	}
+
+	final byte[] bytes = this.readBuffer.array();
+	final int length = this.readBuffer.position();
+	for (int i = 0; i < length; i++) {
+	    final byte b = bytes[i];
+	    if (b == '\n' || b == '\r') {
+		if (connection.lineLength > 0)
+		    parse(connection.line, connection.lineLength);
+		connection.lineLength = 0;
+	    } else if (connection.lineLength < connection.line.length)
+		connection.line[connection.lineLength++] = b;
+	}
+    }
+
+    /*
+     * Hjlpmetod som tolkar en mottagen rad. Rader som inte br denna
+     * krnings markering ignoreras. Frdrjningen registreras enbart fr
+     * meddelanden som schemalagts efter uppvrmningen.
+     */
+    private void parse(byte[] line, int length) {
+	final int marker = indexOf(line, length);
+	if (marker < 0)
+	    return;
+
+	int position = marker + MARKER.length();
+	long token = 0;
+	boolean negative = false;
+	if (position < length && line[position] == '-') {
+	    negative = true;
+	    position++;
+	}
+	for (; position < length && line[position] != ' '; position++)
+	    token = token * 10 + (line[position] - '0');
+	if ((negative ? -token : token) != this.token)
+	    return;
+
+	long scheduledAt = 0;
+	for (position++; position < length && line[position] != ' '; position++)
+	    scheduledAt = scheduledAt * 10 + (line[position] - '0');
+
+	this.received.lazySet(this.received.get() + 1);
+	if (scheduledAt >= this.measureStart)
+	    this.histogram.record(TimeUnit.NANOSECONDS.toMicros(System
+		    .nanoTime() - scheduledAt));
+    }
+
+    /*
+     * Hjlpmetod som letar upp markeringen i en rad.
+     */
+    private static int indexOf(byte[] line, int length) {
+	search: for (int i = 0; i + MARKER.length() <= length; i++) {
+	    for (int j = 0; j < MARKER.length(); j++)
+		if (line[i + j] != MARKER.charAt(j))
+		    continue search;
+	    return i;
+	}
+	return -1;
+    }
+
+    /*
+     * Hjlpmetod som stnger en anslutning, och rknar den som frlorad om
+     * den stngdes innan trden var klar.
+     */
+    private void close(Connection connection) {
+	if (!connection.channel.isOpen())
+	    return;
+	if (System.nanoTime() < this.readEnd)
+	    this.lost++;
+	try {
+	    connection.channel.close();
+	} catch (IOException e) {
+	    /*
+	     * Finns inte mycket att gra t detta.
+	     */
+	}
+    }
+
+    /**
+     * Klass som representerar en utav trdens anslutningar.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private final static class Connection {
+	private final SocketChannel channel;
+	private final int room;
+	private final ByteBuffer outgoing = ByteBuffer
+		.allocate(OUTGOING_LIMIT);
+
+	/**
+	 * Den rad som fr tillfllet lses. Rader lngre n buffern kortas
+	 * av, vilket inte pverkar tolkningen d markeringen och tidpunkten
+	 * ligger i radens brjan.
+	 */
+	private final byte[] line = new byte[256];
+	private int lineLength = 0;
+
+	Connection(SocketChannel channel, int room) {
+	    this.channel = channel;
+	    this.room = room;
+	}
+    }
+}
@@ -8,6 +8,7 @@ import java.util.concurrent.ExecutionException;
 
 import chatclient.gui.GUI;
 import chatclient.mediator.Mediator;
+import chatclient.service.Configuration;
 import chatclient.service.Service;
 
 /**
@@ -15,7 +16,9 @@ import chatclient.service.Service;
  * Inga parametrar - frsker ansluta till localhost p port 2000, B) En
  * parametrar - ntverksadress skickas som parametrar, frsker ansluta till
  * denna p port 2000, samt C) Tv parametrar - ntverksadress och port skickas
- * som parametrar som programmet frsker ansluta till.
+ * som parametrar som programmet frsker ansluta till. Fre parametrarna kan
+ * ven flaggor anges som bestmmer hur tjnsten skall drivas, se
+ * {@link #USAGE}.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
@@ -35,7 +38,30 @@ public class Client {
     public final static int DEFAULT_PORT = 2000;
 
     /**
-     * Instansierar ett nytt objekt utav klassen {@link Client}.
+     * Text som beskriver hur tillmpningsprogrammet skall startas.
+     */
+    public final static String USAGE = "Anvndning:\nClient [FLAGGOR] [ADRESS] [PORT]\n"
+	    + "\t--nio\t\tdriver anslutningen med en icke-blockerande kanal\n"
+	    + "\t\t\toch en enda trd istllet fr tv\n"
+	    + "\t--batch\t\tskriver samtliga vntande meddelanden i ett svep\n"
+	    + "\t--tcp-nodelay\tstnger av Nagles algoritm\n"
+	    + "\t--send-buffer=BYTES\tstorleken p anslutningens utgende\n"
+	    + "\t\t\tbuffer\n"
+	    + "\t--receive-buffer=BYTES\tstorleken p anslutningens inkommande\n"
+	    + "\t\t\tbuffer\n"
+	    + "\t--queue=KAPACITET\tbegrnsar antalet vntande meddelanden,\n"
+	    + "\t\t\t0 fr obegrnsat\n"
+	    + "\t--overflow=HANTERING\tbestmmer vad som sker nr kn r full:\n"
+	    + "\t\t\tdrop-oldest eller drop-newest\n"
+	    + "\t--no-reconnect\tteransluter inte nr anslutningen bryts\n"
+	    + "\t--reconnect-delay=MS\tfrdrjningen fre det frsta frsket\n"
+	    + "\t\t\tatt teransluta, frdubblas per frsk\n"
+	    + "\t--max-reconnect-delay=MS\tden lngsta frdrjningen mellan\n"
+	    + "\t\t\ttv frsk att teransluta";
+
+    /**
+     * Instansierar ett nytt objekt utav klassen {@link Client}, med frvalda
+     * instllningar.
      *
      * @param host
      *            ntverksadressen som klienten kommer frska anslutna mot
@@ -53,11 +79,35 @@ public class Client {
      */
     public Client(InetAddress host, int port) throws IOException,
 	    InterruptedException, ExecutionException {
+	this(host, port, new Configuration());
+    }
+
+    /**
+     * Instansierar ett nytt objekt utav klassen {@link Client}.
+     *
+     * @param host
+     *            ntverksadressen som klienten kommer frska anslutna mot
+     * @param port
+     *            ntverksporten {@value #DEFAULT_PORT} som klienten kommer
+     *            frska anslutna mot
+     * @param configuration
+     *            de instllningar som bestmmer hur tjnsten skall drivas
+     * @throws IOException
+     *             vid problem orsakat nr en socket instanserats fr att lyssna
+     *             p bestmd server
+     * @throws InterruptedException
+     *             om bygget utav det grafiska anvndargrnssnittet avbrts
+     * @throws ExecutionException
+     *             om bygget utav det grafiska anvndargrnssnittet inte kunde
+     *             slutfras
+     */
+    public Client(InetAddress host, int port, Configuration configuration)
+	    throws IOException, InterruptedException, ExecutionException {
 
 	/*
 	 * Instansierar ett nytt objekt utav tjnst-klassen.
 	 */
-	final Service service = new Service(host, port);
+	final Service service = new Service(host, port, configuration);
 
 	/*
 	 * Instansierar ett nytt objekt utav den grafiska
@@ -81,32 +131,53 @@ public class Client {
      *            ntverksadressen och ntverksporten gr att specifiera genom
      *            att skicka med denna som argument. I annat fall anvnds
      *            ntverksadressen {@link #DEFAULT_HOST} och ntverksporten
-     *            {@link #DEFAULT_PORT}.
+     *            {@link #DEFAULT_PORT}. Argument som inleds med {@code --}
+     *            tolkas som flaggor.
      */
     public static void main(String[] args) {
+	final Configuration configuration = new Configuration();
 	final InetAddress host;
 	final int port;
 
+	/*
+	 * Flaggorna tolkas frst. Gr ngon inte att tolka s skrivs
+	 * anvndningen ut och applikationen avslutas.
+	 */
+	int position = 0;
+	while (position < args.length && args[position].startsWith("--")) {
+	    try {
+		if (!configure(configuration, args[position])) {
+		    System.out.println(USAGE);
+		    return;
+		}
+	    } catch (IllegalArgumentException e) {
+		System.out.println("Ogiltig flagga " + args[position] + ": "
+			+ e.getMessage());
+		return;
+	    }
+	    position++;
+	}
+
 	try {
-	    switch (args.length) {
+	    switch (args.length - position) {
 
 	    case 0:
-		new Client(DEFAULT_HOST, DEFAULT_PORT);
+		new Client(DEFAULT_HOST, DEFAULT_PORT, configuration);
 		break;
 
 	    case 1:
-		host = InetAddress.getByName(args[0]);
-		new Client(host, DEFAULT_PORT);
+		host = InetAddress.getByName(args[position]);
+		new Client(host, DEFAULT_PORT, configuration);
 		break;
 
 	    case 2:
-		host = InetAddress.getByName(args[0]);
-		port = Integer.parseInt(args[1]);
-		new Client(host, port);
+		host = InetAddress.getByName(args[position]);
+		port = Integer.parseInt(args[position + 1]);
+		new Client(host, port, configuration);
 		break;
 
 	    default:
-		System.out.println("Anvndning:\nClient [ADRESS] [PORT]");
+		System.out.println(USAGE);
 		break;
 	    }
 	} catch (UnknownHostException e) {
@@ -152,4 +223,122 @@ public class Client {
 	    e.printStackTrace();
 	}
     }
+
+    /**
+     * Hjlpmetod som tolkar en flagga och uppdaterar instllningarna drefter.
+     * En flagga har formen {@code --NAMN} eller {@code --NAMN=VRDE}.
+     * 
+     * @param configuration
+     *            de instllningar som skall uppdateras
+     * @param option
+     *            flaggan som skall tolkas
+     * @return {@code true} om flaggan kunde tolkas, i annat fall {@code false}
+     * @throws IllegalArgumentException
+     *             om flaggans vrde inte r ett giltigt sdant
+     */
+    private static boolean configure(Configuration configuration, String option)
+	    throws IllegalArgumentException {
+
+	final int separator = option.indexOf('=');
+	final String name = separator < 0 ? option : option.substring(0,
+		separator);
+	final String value = separator < 0 ? null : option
+		.substring(separator + 1);
+
+	switch (name) {
+
+	case "--nio":
+	    if (value != null)
+		return false;
+	    configuration.setTransport(Configuration.Transport.CHANNEL);
+	    return true;
+
+	case "--batch":
+	    if (value != null)
+		return false;
+	    configuration.setBatchSending(true);
+	    return true;
+
+	case "--tcp-nodelay":
+	    if (value != null)
+		return false;
+	    configuration.setTcpNoDelay(true);
+	    return true;
+
+	case "--send-buffer":
+	    if (value == null)
+		return false;
+	    configuration.setSendBufferSize(Integer.parseInt(value));
+	    return true;
+
+	case "--receive-buffer":
+	    if (value == null)
+		return false;
+	    configuration.setReceiveBufferSize(Integer.parseInt(value));
+	    return true;
+
+	case "--queue":
+	    if (value == null)
+		return false;
+	    configuration.setSendQueueCapacity(Integer.parseInt(value));
+	    return true;
+
+	case "--overflow":
+	    if (value == null)
+		return false;
+	    final Configuration.OverflowPolicy overflowPolicy = parse(
+		    Configuration.OverflowPolicy.class, value);
+
+	    /*
+	     * Meddelanden skickas frn hndelsetrden, vilken skulle frysas -
+	     * och drmed hela fnstret - s lnge kn r full.
+	     */
+	    if (overflowPolicy == Configuration.OverflowPolicy.BLOCK)
+		throw new IllegalArgumentException(
+			"Kan inte anvndas i det grafiska anvndargrnssnittet!");
+	    configuration.setOverflowPolicy(overflowPolicy);
+	    return true;
+
+	case "--no-reconnect":
+	    if (value != null)
+		return false;
+	    configuration.setReconnecting(false);
+	    return true;
+
+	case "--reconnect-delay":
+	    if (value == null)
+		return false;
+	    configuration.setReconnectDelay(Long.parseLong(value));
+	    return true;
+
+	case "--max-reconnect-delay":
+	    if (value == null)
+		return false;
+	    configuration.setMaxReconnectDelay(Long.parseLong(value));
+	    return true;
+
+	default:
+	    return false;
+	}
+    }
+
+    /**
+     * Hjlpmetod som verstter ett vrde angivet p kommandoraden, till
+     * exempel {@code drop-oldest}, till motsvarande upprkningsvrde.
+     * 
+     * @param type
+     *            den upprkning vrdet tillhr
+     * @param value
+     *            vrdet som skall versttas
+     * @return motsvarande upprkningsvrde
+     * @throws IllegalArgumentException
+     *             om vrdet inte finns i upprkningen
+     */
+    private static <T extends Enum<T>> T parse(Class<T> type, String value)
+	    throws IllegalArgumentException {
+	for (T constant : type.getEnumConstants())
+	    if (constant.name().replace('_', '-').equalsIgnoreCase(value))
+		return constant;
+	throw new IllegalArgumentException("Oknt vrde!");
+    }
 }
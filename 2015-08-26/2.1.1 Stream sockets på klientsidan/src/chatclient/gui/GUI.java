@@ -7,6 +7,7 @@ import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 
@@ -15,7 +16,6 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.WindowConstants;
 
@@ -29,8 +29,13 @@ import javax.swing.WindowConstants;
 public final class GUI {
     private Delegate delegate;
     private final JFrame frame;
+
+    /**
+     * Den framtid som fullbordas s fort fnstret r frdigbyggt.
+     */
+    private final CompletableFuture<Void> readiness = new CompletableFuture<>();
     private JTextField inputField;
-    private JTextArea outputArea;
+    private Transcript outputArea;
 
     /**
      * Skapar ett objekt utav det grafiska anvndargrnssnittet. Anvnder sig
@@ -65,6 +70,12 @@ public final class GUI {
 	 * frdigbyggt fnster.
 	 */
 	this.frame = initializeFrame(this);
+
+	/*
+	 * Fnstret r frdigbyggt - de som vntar p att det grafiska
+	 * anvndargrnssnittet skall bli redo meddelas.
+	 */
+	this.readiness.complete(null);
     }
 
     /**
@@ -79,18 +90,15 @@ public final class GUI {
     }
 
     /**
-     * Metod fr att grafisk visa ett meddelande i text-arean.
+     * Metod fr att grafisk visa ett meddelande i loggen. Metoden kan anropas
+     * frn vilken trd som helst, d loggen sjlv samlar ihop meddelandena
+     * till hndelsetrden.
      * 
      * @param message
      *            meddelandet som skall visas
      */
     public final void printMessage(String message) {
-	EventQueue.invokeLater(new Runnable() {
-	    @Override
-	    public void run() {
-		GUI.this.outputArea.append(message + '\n');
-	    }
-	});
+	this.outputArea.append(message);
     }
 
     /**
@@ -144,6 +152,18 @@ public final class GUI {
 	return (this.frame != null);
     }
 
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort det grafiska
+     * anvndargrnssnittet r redo, det vill sga instansierat och fullt
+     * uppbyggt. Till skillnad frn {@link #isReady()} s behver den som
+     * vntar inte frga om och om igen.
+     * 
+     * @return framtiden
+     */
+    public final CompletableFuture<Void> getReadiness() {
+	return this.readiness;
+    }
+
     /**
      * Metod som r till fr att instansiera fnstret i det grafiska
      * anvndargrnssnittet. Initialiseringen sker i en annan trd fr att inte
@@ -230,17 +250,18 @@ public final class GUI {
 			tmpFrame.add(northPanel, BorderLayout.NORTH);
 
 			/*
-			 * Instansierar den textarea som skall anvndas.
+			 * Instansierar den logg som skall anvndas. Loggen
+			 * sparar enbart de senaste raderna och ritar enbart de
+			 * rader som syns.
 			 */
-			gui.outputArea = new JTextArea(5, 30);
+			gui.outputArea = new Transcript(5, 30);
 
 			/*
-			 * Anpassar egenskaperna fr en text-area och placerar
-			 * sedan denna i en scrollbar panel som i sin tur
-			 * placeras i fnstret. I denna area ska mottagna
-			 * meddelanden visas.
+			 * Anpassar egenskaperna fr loggen och placerar sedan
+			 * denna i en scrollbar panel som i sin tur placeras i
+			 * fnstret. I denna logg ska mottagna meddelanden
+			 * visas.
 			 */
-			gui.outputArea.setEditable(false);
 			gui.outputArea.setBackground(Color.BLACK);
 			gui.outputArea.setForeground(Color.GREEN);
 			JScrollPane outputPane = new JScrollPane(gui.outputArea);
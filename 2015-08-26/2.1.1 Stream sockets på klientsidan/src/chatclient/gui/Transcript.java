@@ -0,0 +1,302 @@
+package chatclient.gui;
+
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+
+/**
+ * Grafisk komponent som visar en logg ver meddelanden, avsedd att erstta en
+ * {@link javax.swing.JTextArea} som enbart lggs till i. Komponenten sparar
+ * enbart de senaste raderna i en ringbuffer med fast kapacitet, och ritar
+ * enbart de rader som fr tillfllet syns - s att varken minnet eller tiden
+ * per uppdatering vxer med loggens lder.
+ * <p>
+ * Rader kan lggas till frn vilken trd som helst. De samlas i en k och
+ * frs in i loggen hgst en gng per bildruta, s att en skur utav meddelanden
+ * ger en enda uppdatering p hndelsetrden istllet fr en per meddelande.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Transcript extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Det antal rader loggen sparar om inget annat bestms.
+     */
+    public final static int DEFAULT_CAPACITY = 5000;
+
+    /**
+     * Tiden mellan tv uppdateringar, vilket motsvarar 60 bilder per sekund.
+     */
+    private final static int FRAME_MILLIS = 16;
+
+    /**
+     * Ringbuffern ver loggens rader, samt varje rads bredd, vilka enbart
+     * anvnds utav hndelsetrden.
+     */
+    private final String[] lines;
+    private final int[] widths;
+    private int first = 0;
+    private int count = 0;
+    private int widestLine = 0;
+
+    private final int rows;
+    private final int columns;
+
+    /**
+     * Rader som vntar p att fras in i loggen, samt flaggan som anger
+     * huruvida en uppdatering redan r schemalagd.
+     */
+    private final Queue<String> pendingLines = new ConcurrentLinkedQueue<>();
+
+    /**
+     * De rader som frs in i loggen vid en och samma uppdatering. Hgst lika
+     * mnga rader som loggen rymmer behlls, d vriga nd skulle skrivas
+     * ver innan de visats.
+     */
+    private final ArrayDeque<String> incomingLines = new ArrayDeque<>();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    private final Timer frameTimer;
+
+    /**
+     * Skapar ett objekt utav klassen {@link Transcript} med frvald kapacitet.
+     *
+     * @param rows
+     *            det antal rader komponenten nskar visa
+     * @param columns
+     *            det antal tecken per rad komponenten nskar visa
+     */
+    public Transcript(int rows, int columns) {
+	this(rows, columns, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Skapar ett objekt utav klassen {@link Transcript}.
+     *
+     * @param rows
+     *            det antal rader komponenten nskar visa
+     * @param columns
+     *            det antal tecken per rad komponenten nskar visa
+     * @param capacity
+     *            det antal rader loggen sparar, dr de ldsta raderna
+     *            frsvinner frst
+     * @throws IllegalArgumentException
+     *             om kapaciteten inte r ett positivt heltal
+     */
+    public Transcript(int rows, int columns, int capacity)
+	    throws IllegalArgumentException {
+	if (capacity < 1)
+	    throw new IllegalArgumentException(
+		    "Kapaciteten mste vara ett positivt heltal!");
+
+	this.lines = new String[capacity];
+	this.widths = new int[capacity];
+	this.rows = rows;
+	this.columns = columns;
+
+	setOpaque(true);
+	setFont(UIManager.getFont("TextArea.font"));
+
+	this.frameTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+
+	    @Override
+	    public void actionPerformed(ActionEvent e) {
+		update();
+	    }
+	});
+	this.frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Metod fr att lgga till en rad i loggen. Metoden kan anropas frn
+     * vilken trd som helst - raden syns senast vid nsta bildruta.
+     *
+     * @param line
+     *            raden som skall lggas till
+     */
+    public void append(String line) {
+	this.pendingLines.add(line);
+	if (this.updateScheduled.compareAndSet(false, true))
+	    EventQueue.invokeLater(new Runnable() {
+
+		@Override
+		public void run() {
+		    Transcript.this.frameTimer.restart();
+		}
+	    });
+    }
+
+    /**
+     * Metod som returnerar det antal rader loggen fr tillfllet innehller.
+     * Fr enbart anropas frn hndelsetrden.
+     *
+     * @return antalet rader
+     */
+    public int getLineCount() {
+	return this.count;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+	if (isPreferredSizeSet())
+	    return super.getPreferredSize();
+
+	final FontMetrics metrics = getFontMetrics(getFont());
+	return new Dimension(Math.max(this.widestLine, this.columns
+		* metrics.charWidth('m')), Math.max(1, this.count)
+		* metrics.getHeight());
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+	final FontMetrics metrics = getFontMetrics(getFont());
+	return new Dimension(this.columns * metrics.charWidth('m'), this.rows
+		* metrics.getHeight());
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect,
+	    int orientation, int direction) {
+	final FontMetrics metrics = getFontMetrics(getFont());
+	return orientation == SwingConstants.VERTICAL ? metrics.getHeight()
+		: metrics.charWidth('m');
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect,
+	    int orientation, int direction) {
+	return orientation == SwingConstants.VERTICAL ? visibleRect.height
+		: visibleRect.width;
+    }
+
+    /**
+     * Loggen fljer visningsytans bredd s lnge samtliga rader ryms.
+     *
+     * @return {@code true} om visningsytan r bredare n loggens bredaste rad
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+	return getParent() instanceof JViewport
+		&& getParent().getWidth() > getPreferredSize().width;
+    }
+
+    /**
+     * Loggen fljer visningsytans hjd s lnge samtliga rader ryms.
+     *
+     * @return {@code true} om visningsytan r hgre n loggen
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+	return getParent() instanceof JViewport
+		&& getParent().getHeight() > getPreferredSize().height;
+    }
+
+    /**
+     * Ritar enbart de rader som skr det omrde som skall ritas om.
+     *
+     * @param graphics
+     *            det grafiska objekt som skall ritas med
+     */
+    @Override
+    protected void paintComponent(Graphics graphics) {
+	final Rectangle clip = graphics.getClipBounds();
+	graphics.setColor(getBackground());
+	graphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+	final FontMetrics metrics = graphics.getFontMetrics(getFont());
+	final int rowHeight = metrics.getHeight();
+	final int firstRow = Math.max(0, clip.y / rowHeight);
+	final int lastRow = Math.min(this.count - 1, (clip.y + clip.height)
+		/ rowHeight);
+
+	graphics.setFont(getFont());
+	graphics.setColor(getForeground());
+	for (int row = firstRow; row <= lastRow; row++)
+	    graphics.drawString(this.lines[(this.first + row)
+		    % this.lines.length], 0, row * rowHeight
+		    + metrics.getAscent());
+    }
+
+    /*
+     * Hjlpmetod som p hndelsetrden fr in samtliga vntande rader i
+     * loggen och uppdaterar komponenten en gng. Visade loggen sin sista rad
+     * innan uppdateringen s rullas den till den nya sista raden.
+     */
+    private void update() {
+	this.updateScheduled.set(false);
+
+	final boolean atBottom = isScrolledToBottom();
+	final FontMetrics metrics = getFontMetrics(getFont());
+
+	String line;
+	while ((line = this.pendingLines.poll()) != null) {
+	    if (this.incomingLines.size() == this.lines.length)
+		this.incomingLines.pollFirst();
+	    this.incomingLines.addLast(line);
+	}
+
+	/*
+	 * Enbart de rader som faktiskt frs in mts. Frsvinner loggens
+	 * bredaste rad s rknas bredden om, en gng, nr samtliga rader frts
+	 * in.
+	 */
+	boolean widestLineEvicted = false;
+	while ((line = this.incomingLines.pollFirst()) != null) {
+	    final int slot;
+	    if (this.count < this.lines.length) {
+		slot = (this.first + this.count) % this.lines.length;
+		this.count++;
+	    } else {
+		slot = this.first;
+		this.first = (this.first + 1) % this.lines.length;
+		if (this.widths[slot] >= this.widestLine)
+		    widestLineEvicted = true;
+	    }
+	    this.lines[slot] = line;
+	    this.widths[slot] = metrics.stringWidth(line);
+	    this.widestLine = Math.max(this.widestLine, this.widths[slot]);
+	}
+
+	if (widestLineEvicted) {
+	    this.widestLine = 0;
+	    for (int i = 0; i < this.count; i++)
+		this.widestLine = Math.max(this.widestLine, this.widths[i]);
+	}
+
+	/*
+	 * Storleken uppdateras direkt, s att visningsytan kan rullas till
+	 * botten utan att invnta en ny layout.
+	 */
+	setSize(getPreferredSize());
+	revalidate();
+	repaint();
+	if (atBottom)
+	    scrollRectToVisible(new Rectangle(0, getHeight() - 1, 1, 1));
+    }
+
+    /*
+     * Hjlpmetod som avgr huruvida loggens sista rad syns.
+     */
+    private boolean isScrolledToBottom() {
+	final Rectangle visible = getVisibleRect();
+	return visible.y + visible.height >= getHeight()
+		- getFontMetrics(getFont()).getHeight();
+    }
+}
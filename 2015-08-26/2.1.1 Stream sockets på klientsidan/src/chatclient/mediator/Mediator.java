@@ -1,7 +1,6 @@
 package chatclient.mediator;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 
 import chatclient.gui.GUI;
 import chatclient.service.Service;
@@ -14,16 +13,17 @@ import chatclient.service.Service;
  * @version 1.0
  */
 public final class Mediator {
+    private boolean bundlingInitiated = false;
+    private volatile boolean connectionLost = false;
     private GUI gui;
     private Service service;
 
     /**
-     * Skapar ett objekt utav klassen {@link Mediator} och instansierar
-     * ihopbundnings-frskandet som har i syfte att synkronisera det grafiska
-     * grnssnittet med den underliggande tjnsten som driver klienten.
+     * Skapar ett objekt utav klassen {@link Mediator}. Ihopbundningen utav det
+     * grafiska grnssnittet med den underliggande tjnsten som driver klienten
+     * pbrjas s fort bgge registrerats.
      */
     public Mediator() {
-	initializeBundling();
     }
 
     /**
@@ -35,7 +35,7 @@ public final class Mediator {
      *            bakomliggande tjnst
      */
     public void registerService(Service service) {
-	
+        
 	this.service = service;
 	this.service.setDelegate(new Service.Delegate() {
 
@@ -52,11 +52,49 @@ public final class Mediator {
 	     */
 	    @Override
 	    public void onConnectionError() {
+		Mediator.this.connectionLost = true;
 		Mediator.this.service.stopServing();
 		Mediator.this.gui.enableInput(false);
 		Mediator.this.gui.printMessage("--- Anslutningen brts! ---");
 	    }
+
+	    /*
+	     * Om servern inte hinner ta emot meddelanden i den takt de skickas s avaktiveras interaktion med det grafiska anvndargrnssnittet tills kn ter har tmts, och fnstrets titel visar antalet vntande meddelanden.
+	     */
+	    @Override
+	    public void onBackpressureChanged(boolean backpressured,
+		    int queueDepth) {
+		if (Mediator.this.connectionLost)
+		    return;
+		Mediator.this.gui.enableInput(!backpressured);
+		Mediator.this.gui.setTitle(backpressured ? Mediator.this.service
+			+ " - " + queueDepth + " meddelanden vntar"
+			: Mediator.this.service.toString());
+	    }
+
+	    /*
+	     * Om anslutningen rkar ut fr ett avbrott s meddelas anvndaren om nr tjnsten frsker teransluta. Interaktion tillts fortfarande, d meddelanden kas tills anslutningen terupprttats.
+	     */
+	    @Override
+	    public void onReconnecting(int attempt, long delayMillis) {
+		updateGuiWindowTitle();
+		Mediator.this.gui.printMessage("--- Anslutningen brts! Frsk "
+			+ attempt + " att teransluta om " + delayMillis
+			+ " ms ---");
+	    }
+
+	    /*
+	     * Nr anslutningen terupprttats s meddelas anvndaren och fnstrets titel uppdateras.
+	     */
+	    @Override
+	    public void onReconnected() {
+		updateGuiWindowTitle();
+		Mediator.this.gui.printMessage("--- teransluten! ---");
+	    }
 	});
+
+	if (this.gui != null)
+	    initializeBundling();
     }
 
     /**
@@ -69,12 +107,12 @@ public final class Mediator {
      */
     public void registerGUI(GUI gui) {
 	this.gui = gui;
-	
+        
 	/*
 	 * Mjligheten till interaktion med det grafiska anvndargrnssnittet avaktiveras tills vidare.
 	 */
 	this.gui.enableInput(false);
-	
+        
 	/*
 	 * Ett delegat-objekt som definierar den eller dem metoder som skall delegeras, registreras.
 	 */
@@ -88,6 +126,9 @@ public final class Mediator {
 		Mediator.this.service.sendMessage(message);
 	    }
 	});
+
+	if (this.service != null)
+	    initializeBundling();
     }
 
     /**
@@ -106,58 +147,30 @@ public final class Mediator {
      * d detta annars kommer leda till avbrott av typen
      * {@link NullPointerException}.
      * 
-     * Metoden startar en timer som med en intervall p 500 millisekunder
-     * kontrollerar ifall den underliggante klient-tjnsten r redo. Om den r
-     * det s tillts interaktion med det grafiska anvndargrnssnittet och
-     * klienten r fullt redo.
+     * Metoden startar klient-tjnsten och registrerar en handling som utfrs
+     * s fort bde det grafiska anvndargrnssnittet och klient-tjnsten
+     * meddelat att de r redo. D uppdateras fnstrets titel och interaktion
+     * tillts. Ingen trd behver vnta eller frga om.
      */
     private final void initializeBundling() {
 
+	if (this.bundlingInitiated)
+	    return;
+	this.bundlingInitiated = true;
+
 	/*
-	 * En timer startas. Den trd som exekverar timer:n namnges.
+	 * Klient-tjnsten startas.
 	 */
-	new Timer("Mediator").scheduleAtFixedRate(new TimerTask() {
+	this.service.startServing();
+
+	CompletableFuture.allOf(this.gui.getReadiness(),
+		this.service.getReadiness()).thenRun(new Runnable() {
 
 	    @Override
 	    public void run() {
-
-		/*
-		 * En frsta kontroll utfrs fr att utvrdera ifall bgge sidor
-		 * utav klienten - det vill sga bde det grafiska grnssnittet
-		 * och den underliggande klient-tjnsten - har instansierats.
-		 */
-		if (Mediator.this.gui != null && Mediator.this.service != null) {
-
-		    /*
-		     * Om klient-tjnsten inte redan r startad s startas
-		     * denna.
-		     */
-		    if (!Mediator.this.service.isServing())
-			Mediator.this.service.startServing();
-
-		    /*
-		     * Om ovanstende villkor uppfylls s utfrs en andra
-		     * kontroll fr att se om det grafiska anvndargrnssnittet
-		     * samt den underliggande klient-tjnsten r redo.
-		     */
-		    if (Mediator.this.gui.isReady()
-			    && Mediator.this.service.isServing()) {
-
-			/*
-			 * Uppfylls ven ovanstende villkor s uppdateras
-			 * fnstrets titel i det grafiska anvndargrnssnittet
-			 * och interaktion tillts.
-			 */
-			updateGuiWindowTitle();
-			Mediator.this.gui.enableInput(true);
-
-			/*
-			 * Timer:n stoppas d den inte lngre behvs.
-			 */
-			cancel();
-		    }
-		}
+		updateGuiWindowTitle();
+		Mediator.this.gui.enableInput(true);
 	    }
-	}, 0, 500);
+	});
     }
 }
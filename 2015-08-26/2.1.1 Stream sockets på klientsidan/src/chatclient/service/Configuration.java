@@ -0,0 +1,360 @@
+package chatclient.service;
+
+/**
+ * Klass som samlar de instllningar som bestmmer hur tjnsten skall drivas.
+ * Samtliga instllningar har frvalda vrden, vilket innebr att ett nyligen
+ * instansierat objekt motsvarar klientens ursprungliga beteende.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Configuration {
+    /**
+     * Det antal meddelanden {@value #DEFAULT_SEND_QUEUE_CAPACITY} som hgst
+     * fr vnta p att skickas till servern om inget annat bestms.
+     */
+    public final static int DEFAULT_SEND_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Den frdrjning {@value #DEFAULT_RECONNECT_DELAY} i millisekunder som
+     * det frsta frsket att teransluta till servern utgr ifrn om inget
+     * annat bestms.
+     */
+    public final static long DEFAULT_RECONNECT_DELAY = 500;
+
+    /**
+     * Den lngsta frdrjning {@value #DEFAULT_MAX_RECONNECT_DELAY} i
+     * millisekunder mellan tv frsk att teransluta till servern om inget
+     * annat bestms.
+     */
+    public final static long DEFAULT_MAX_RECONNECT_DELAY = 30000;
+
+    private Transport transport = Transport.STREAM;
+    private boolean batchSending = false;
+    private boolean tcpNoDelay = false;
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+    private int sendQueueCapacity = DEFAULT_SEND_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private boolean reconnecting = true;
+    private long reconnectDelay = DEFAULT_RECONNECT_DELAY;
+    private long maxReconnectDelay = DEFAULT_MAX_RECONNECT_DELAY;
+
+    /**
+     * Metod som returnerar den transport som skall driva anslutningen mot
+     * servern.
+     *
+     * @return den valda transporten
+     */
+    public final Transport getTransport() {
+	return this.transport;
+    }
+
+    /**
+     * Metod fr att vlja den transport som skall driva anslutningen mot
+     * servern.
+     *
+     * @param transport
+     *            den transport som skall anvndas
+     * @throws IllegalArgumentException
+     *             om ingen transport angivits
+     */
+    public final void setTransport(Transport transport)
+	    throws IllegalArgumentException {
+	if (transport == null)
+	    throw new IllegalArgumentException("En transport mste anges!");
+	this.transport = transport;
+    }
+
+    /**
+     * Metod som indikerar huruvida samtliga vntande meddelanden skall
+     * skrivas och "spolas" tillsammans, istllet fr ett i taget.
+     *
+     * @return {@code true} om vntande meddelanden skickas i satser, i annat
+     *         fall {@code false}
+     */
+    public final boolean isBatchSending() {
+	return this.batchSending;
+    }
+
+    /**
+     * Metod fr att bestmma huruvida samtliga vntande meddelanden skall
+     * skrivas och "spolas" tillsammans, istllet fr ett i taget. Transporten
+     * {@link Transport#CHANNEL} skickar alltid i satser.
+     *
+     * @param batchSending
+     *            {@code true} om vntande meddelanden skall skickas i satser
+     */
+    public final void setBatchSending(boolean batchSending) {
+	this.batchSending = batchSending;
+    }
+
+    /**
+     * Metod som indikerar huruvida Nagles algoritm skall stngas av fr
+     * anslutningen mot servern, det vill sga om {@code TCP_NODELAY} skall
+     * sttas.
+     *
+     * @return {@code true} om sm segment skall skickas direkt, i annat fall
+     *         {@code false}
+     */
+    public final boolean isTcpNoDelay() {
+	return this.tcpNoDelay;
+    }
+
+    /**
+     * Metod fr att bestmma huruvida Nagles algoritm skall stngas av fr
+     * anslutningen mot servern. Avstngd skickas varje skrivning direkt
+     * istllet fr att hllas kvar i vntan p bekrftelse utav tidigare
+     * skickad data - till priset av fler och mindre segment.
+     *
+     * @param tcpNoDelay
+     *            {@code true} om {@code TCP_NODELAY} skall sttas
+     */
+    public final void setTcpNoDelay(boolean tcpNoDelay) {
+	this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * Metod som returnerar storleken p operativsystemets buffer fr utgende
+     * data.
+     *
+     * @return buffertens storlek i bytes, eller {@code 0} om plattformens
+     *         frval anvnds
+     */
+    public final int getSendBufferSize() {
+	return this.sendBufferSize;
+    }
+
+    /**
+     * Metod fr att bestmma storleken p operativsystemets buffer fr
+     * utgende data. Storleken r en vink till operativsystemet, som kan vlja
+     * en annan.
+     *
+     * @param sendBufferSize
+     *            buffertens storlek i bytes, eller {@code 0} fr
+     *            plattformens frval
+     * @throws IllegalArgumentException
+     *             om storleken r negativ
+     */
+    public final void setSendBufferSize(int sendBufferSize)
+	    throws IllegalArgumentException {
+	if (sendBufferSize < 0)
+	    throw new IllegalArgumentException(
+		    "Buffertens storlek fr inte vara negativ!");
+	this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Metod som returnerar storleken p operativsystemets buffer fr
+     * inkommande data.
+     *
+     * @return buffertens storlek i bytes, eller {@code 0} om plattformens
+     *         frval anvnds
+     */
+    public final int getReceiveBufferSize() {
+	return this.receiveBufferSize;
+    }
+
+    /**
+     * Metod fr att bestmma storleken p operativsystemets buffer fr
+     * inkommande data. Storleken stts innan anslutningen upprttas, s att
+     * ven buffertar strre n 64 KiB kan frhandlas fram.
+     *
+     * @param receiveBufferSize
+     *            buffertens storlek i bytes, eller {@code 0} fr
+     *            plattformens frval
+     * @throws IllegalArgumentException
+     *             om storleken r negativ
+     */
+    public final void setReceiveBufferSize(int receiveBufferSize)
+	    throws IllegalArgumentException {
+	if (receiveBufferSize < 0)
+	    throw new IllegalArgumentException(
+		    "Buffertens storlek fr inte vara negativ!");
+	this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som hgst fr vnta p att
+     * skickas till servern.
+     *
+     * @return kns kapacitet, eller {@code 0} om kn r obegrnsad
+     */
+    public final int getSendQueueCapacity() {
+	return this.sendQueueCapacity;
+    }
+
+    /**
+     * Metod fr att bestmma det antal meddelanden som hgst fr vnta p att
+     * skickas till servern. Vad som sker nr kn r full bestms utav
+     * {@link #setOverflowPolicy(OverflowPolicy)}.
+     *
+     * @param sendQueueCapacity
+     *            kns kapacitet, eller {@code 0} fr en obegrnsad k
+     * @throws IllegalArgumentException
+     *             om kapaciteten r negativ
+     */
+    public final void setSendQueueCapacity(int sendQueueCapacity)
+	    throws IllegalArgumentException {
+	if (sendQueueCapacity < 0)
+	    throw new IllegalArgumentException(
+		    "Kns kapacitet fr inte vara negativ!");
+	this.sendQueueCapacity = sendQueueCapacity;
+    }
+
+    /**
+     * Metod som returnerar hur ett meddelande som skickas nr kn ver
+     * vntande meddelanden r full skall hanteras.
+     *
+     * @return den valda hanteringen
+     */
+    public final OverflowPolicy getOverflowPolicy() {
+	return this.overflowPolicy;
+    }
+
+    /**
+     * Metod fr att bestmma hur ett meddelande som skickas nr kn ver
+     * vntande meddelanden r full skall hanteras.
+     *
+     * @param overflowPolicy
+     *            den hantering som skall anvndas
+     * @throws IllegalArgumentException
+     *             om ingen hantering angivits
+     */
+    public final void setOverflowPolicy(OverflowPolicy overflowPolicy)
+	    throws IllegalArgumentException {
+	if (overflowPolicy == null)
+	    throw new IllegalArgumentException("En hantering mste anges!");
+	this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Metod som indikerar huruvida tjnsten skall teransluta till servern nr
+     * anslutningen frlorats.
+     *
+     * @return {@code true} om tjnsten teransluter, i annat fall
+     *         {@code false}
+     */
+    public final boolean isReconnecting() {
+	return this.reconnecting;
+    }
+
+    /**
+     * Metod fr att bestmma huruvida tjnsten skall teransluta till servern
+     * nr anslutningen frlorats. Meddelanden som inte hunnit skickas
+     * behlls och skickas ver den nya anslutningen.
+     *
+     * @param reconnecting
+     *            {@code true} om tjnsten skall teransluta
+     */
+    public final void setReconnecting(boolean reconnecting) {
+	this.reconnecting = reconnecting;
+    }
+
+    /**
+     * Metod som returnerar den frdrjning som det frsta frsket att
+     * teransluta till servern utgr ifrn.
+     *
+     * @return frdrjningen i millisekunder
+     */
+    public final long getReconnectDelay() {
+	return this.reconnectDelay;
+    }
+
+    /**
+     * Metod fr att bestmma den frdrjning som det frsta frsket att
+     * teransluta till servern utgr ifrn. Frdrjningen frdubblas fr
+     * varje misslyckat frsk, upp till
+     * {@link #setMaxReconnectDelay(long)}, och varje frsk grs slumpvis
+     * efter mellan hlften av och hela frdrjningen.
+     *
+     * @param reconnectDelay
+     *            frdrjningen i millisekunder
+     * @throws IllegalArgumentException
+     *             om frdrjningen inte r positiv
+     */
+    public final void setReconnectDelay(long reconnectDelay)
+	    throws IllegalArgumentException {
+	if (reconnectDelay < 1)
+	    throw new IllegalArgumentException(
+		    "Frdrjningen mste vara minst 1 millisekund!");
+	this.reconnectDelay = reconnectDelay;
+    }
+
+    /**
+     * Metod som returnerar den lngsta frdrjningen mellan tv frsk att
+     * teransluta till servern.
+     *
+     * @return frdrjningen i millisekunder
+     */
+    public final long getMaxReconnectDelay() {
+	return this.maxReconnectDelay;
+    }
+
+    /**
+     * Metod fr att bestmma den lngsta frdrjningen mellan tv frsk att
+     * teransluta till servern.
+     *
+     * @param maxReconnectDelay
+     *            frdrjningen i millisekunder
+     * @throws IllegalArgumentException
+     *             om frdrjningen inte r positiv
+     */
+    public final void setMaxReconnectDelay(long maxReconnectDelay)
+	    throws IllegalArgumentException {
+	if (maxReconnectDelay < 1)
+	    throw new IllegalArgumentException(
+		    "Frdrjningen mste vara minst 1 millisekund!");
+	this.maxReconnectDelay = maxReconnectDelay;
+    }
+
+    /**
+     * Upprkning ver de transporter som kan driva anslutningen mot servern.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum Transport {
+	/**
+	 * Blockerande strmmar dr inkommande respektive utgende meddelanden
+	 * hanteras utav varsin trd.
+	 */
+	STREAM,
+
+	/**
+	 * En icke-blockerande kanal dr bde inkommande och utgende
+	 * meddelanden hanteras utav en och samma trd, byggd p
+	 * {@link java.nio.channels.Selector}.
+	 */
+	CHANNEL
+    }
+
+    /**
+     * Upprkning ver hur ett meddelande som skickas nr kn ver vntande
+     * meddelanden r full skall hanteras.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum OverflowPolicy {
+	/**
+	 * De ldsta vntande meddelandena frkastas till frmn fr det nya.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Det nya meddelandet frkastas, medan de redan vntande meddelandena
+	 * skickas som vanligt.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Den som skickar meddelandet vntar tills det finns plats i kn.
+	 * Lmpar sig fr klienter som drivs utav skript, men inte fr det
+	 * grafiska anvndargrnssnittet vars trd d skulle frysas - under ett
+	 * avbrott i anslutningen s lnge som det tar att teransluta. Kan
+	 * drfr inte vljas i {@link chatclient.Client}.
+	 */
+	BLOCK
+    }
+}
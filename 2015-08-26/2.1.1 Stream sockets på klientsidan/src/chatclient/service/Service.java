@@ -1,51 +1,114 @@
 package chatclient.service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import chatclient.service.servants.MessageReceivingServant;
 import chatclient.service.servants.MessageSendingServant;
+import chatclient.service.servants.SendQueue;
 
 /**
  * Klass utgr den tjnst som omfattar den data och kommunikation som r
  * relevant till anslutningarna mellan klienten och servern.
- * 
+ * <p>
+ * Varje anslutning representeras utav en {@link Session}. Frloras
+ * anslutningen s upprttar tjnsten - om inget annat bestmts - en ny, med en
+ * frdrjning som frdubblas fr varje misslyckat frsk och som slumpas s
+ * att klienter som tappat anslutningen samtidigt inte teransluter samtidigt.
+ * Kn ver vntande meddelanden gs utav tjnsten, s att meddelanden som inte
+ * hunnit skickas - ven sdana som kas medan anslutningen saknas - skickas
+ * ver den nya anslutningen.
+ *
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
  */
 public class Service {
 
+    /**
+     * Den teckenuppsttning som samtliga meddelanden till och frn servern
+     * kodas med - hrdkodad fr kompatibilitet.
+     */
+    public final static Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    /*
+     * Serverns adress samt de instllningar som varje anslutning upprttas
+     * med.
+     */
+    private final InetSocketAddress address;
+    private final Configuration configuration;
+
+    /*
+     * Kn ver meddelanden som vntar p att skickas, vilken delas utav
+     * samtliga anslutningar.
+     */
+    private final SendQueue outgoingMessages;
+
     /*
-     * Referens till den anslutning som skall upprttas till servern.
+     * Referens till den aktuella anslutningen, eller null medan tjnsten
+     * teransluter.
      */
-    private final Socket socket;
+    private volatile Session session;
 
     /*
-     * Referens till dem objekt som skall hantera mottagning samt utsndning
-     * utav meddelanden.
+     * Flagga som indikerar huruvida tjnsten har startats och nnu inte
+     * stoppats.
      */
-    private final MessageSendingServant messageSendingServant;
-    private final MessageReceivingServant messageRecievingServant;
+    private volatile boolean serving = false;
 
     /*
-     * Anvnder en trdpool med plats fr upp till tv stycken trdar, d det
-     * inte krvs mer.
+     * Det delegat-objekt som meddelas om tjnstens hndelser.
      */
-    private final ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    private volatile Delegate delegate;
+
+    /*
+     * Anvnder en trdpool som teranvnder trdarna frn frlorade
+     * anslutningar, samt en egen trd som schemalgger frsken att
+     * teransluta.
+     */
+    private final ExecutorService threadPool = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService reconnector = Executors
+	    .newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+		    Thread thread = new Thread(runnable, "Reconnector");
+		    thread.setDaemon(true);
+		    return thread;
+		}
+	    });
+    private ScheduledFuture<?> pendingReconnect;
+
+    /*
+     * Det delegat-objekt som varje anslutning meddelar om sina hndelser.
+     */
+    private final Session.Delegate sessionDelegate = new Session.Delegate() {
+
+	@Override
+	public void onMessageReceived(String message) {
+	    Service.this.delegate.onMessageReceived(message);
+	}
+
+	@Override
+	public void onSessionLost(Session session) {
+	    Service.this.onSessionLost(session);
+	}
+    };
 
     /**
      * Skapar ett objekt av klassen {@link Service} som lyssnar p en
-     * specifierad port.
-     * 
+     * specifierad port, med frvalda instllningar.
+     *
      * @param host
      *            den ntverksadress som klienten skall ansluta till
      * @param port
@@ -55,219 +118,376 @@ public class Service {
      *             p bestmd server.
      */
     public Service(InetAddress host, int port) throws IOException {
+	this(host, port, new Configuration());
+    }
 
-	/*
-	 * Anslutningen till servern upprttas.
-	 */
-	this.socket = new Socket(host, port);
+    /**
+     * Skapar ett objekt av klassen {@link Service} som lyssnar p en
+     * specifierad port. Den frsta anslutningen upprttas direkt, och
+     * misslyckas den s kastas ett undantag istllet fr att tjnsten
+     * teransluter.
+     *
+     * @param host
+     *            den ntverksadress som klienten skall ansluta till
+     * @param port
+     *            ntverksporten som klienten skall ansluta till
+     * @param configuration
+     *            de instllningar som bestmmer hur tjnsten skall drivas
+     * @throws IOException
+     *             vid problem orsakat nr en socket instanserats fr att lyssna
+     *             p bestmd server.
+     */
+    public Service(InetAddress host, int port, Configuration configuration)
+	    throws IOException {
+	this.address = new InetSocketAddress(host, port);
+	this.configuration = configuration;
 
 	/*
-	 * En ingende byte-strms-objekt kopplas till anslutningen. En ingende
-	 * byte-strms lsare - med hrdkodad teckenuppsttning fr
-	 * kompatibilitet - som verstter byte-strmmen till en strm bestende
-	 * utav tecken kopplas till byte-strmmen. Slutligen s kopplas en
-	 * buffrad lsare till den ingende tecken-strmmen.
+	 * Delegat-objektet instanseras till att inte gra ngot vid ngon
+	 * hndelse ver huvud taget. Detta fr att undvika att instansvariabeln
+	 * istllet pekar mot null.
 	 */
-	final InputStream inputStream;
-	inputStream = this.socket.getInputStream();
-	final InputStreamReader inputStreamReader;
-	inputStreamReader = new InputStreamReader(inputStream,
-		StandardCharsets.ISO_8859_1);
-	final BufferedReader serverReader;
-	serverReader = new BufferedReader(inputStreamReader);
+	this.delegate = new Delegate() {
 
-	/*
-	 * En utgende byte-strm kopplas mot anslutningen. En tecken-skrivare
-	 * kopplad till byte-strmmen - med hrdkodad teckenuppsttning fr
-	 * kompatibilitet - instansieras och kopplas i sin tur till
-	 * byte-strmmen.
-	 */
-	final OutputStream serverOutputStream;
-	serverOutputStream = this.socket.getOutputStream();
-	final OutputStreamWriter serverWriter;
-	serverWriter = new OutputStreamWriter(serverOutputStream,
-		StandardCharsets.ISO_8859_1);
+	    @Override
+	    public void onMessageReceived(String message) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void onConnectionError() {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void onBackpressureChanged(boolean backpressured,
+		    int queueDepth) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void onReconnecting(int attempt, long delayMillis) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void onReconnected() {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+	};
 
 	/*
-	 * Instansierar instansvariabeln som r utav klassen
-	 * MessageRecievingServant och som har i syfte att lyssna p nya
-	 * inkommande meddelanden frn servern. Instansieringen krver att man
-	 * skickar med en buffrad tecken-lsare kopplad till servern.
+	 * Vid en frndring i kns mottryck s meddelas frmedlaren, som kan
+	 * hlla inne med nya meddelanden.
 	 */
-	this.messageRecievingServant = new MessageReceivingServant(serverReader);
+	this.outgoingMessages = new SendQueue(
+		configuration.getSendQueueCapacity(),
+		configuration.getOverflowPolicy(), new SendQueue.Listener() {
+
+		    @Override
+		    public void onBackpressureChanged(boolean backpressured,
+			    int queueDepth) {
+			Service.this.delegate.onBackpressureChanged(
+				backpressured, queueDepth);
+		    }
+		});
 
 	/*
-	 * Instansierar instansvariabeln som r utav klassen
-	 * MessageSendingServant och som har i syfte att skicka meddelanden till
-	 * servern. Instansieringen krver att man skickar med en buffrad
-	 * tecken-skrivare kopplad till servern.
+	 * Anslutningen till servern upprttas.
 	 */
-	this.messageSendingServant = new MessageSendingServant(serverWriter);
+	this.session = new Session(this.address, configuration,
+		this.outgoingMessages, this.sessionDelegate, 0);
     }
 
     /**
-     * Metod fr att registrera den delegat av metoder som skall delegeras till
-     * de tv tjnar-objekt - varav den ena lyssnar p nya inkommande
-     * meddelanden frn servern medan den andra skickar utgende meddelanden
-     * till servern.
+     * Metod fr att registrera den delegat av metoder som skall meddelas om
+     * tjnstens hndelser - nya inkommande meddelanden frn servern,
+     * frndringar i kns mottryck samt frlorade och terupprttade
+     * anslutningar.
      *
      * @param delegate
-     *            det delegat-objekt som skall delegeras vidare till
-     *            tjnar-objekten
+     *            det delegat-objekt som skall meddelas
      */
     public void setDelegate(Delegate delegate) {
+	this.delegate = delegate;
+    }
 
-	/*
-	 * Registrerar de delegerade "call-back"-metoder som bestmmer vad det
-	 * tjnar-objekt mnat t att lyssna p nya inkommande meddelanden skall
-	 * gras i olika scenarion - i detta fall r det tv; nr ett nytt
-	 * meddelande mottagits och nr ett avbrott i kommunikationen har gt
-	 * rum.
-	 */
-	this.messageRecievingServant
-		.setDelegate(new MessageReceivingServant.Delegate() {
-
-		    /*
-		     * Vid ett mottaget meddelande s meddelas frmedlaren och
-		     * meddelandet skickas vidare till denna.
-		     */
-		    @Override
-		    public void onMessageReceived(String message) {
-			delegate.onMessageReceived(message);
-		    }
-
-		    /*
-		     * Vid ett fel i anslutningen till servern som upptckts vid
-		     * frsk att lyssna p servern fr nya inkommande
-		     * meddelanden s meddelas frmedlaren om detta och fr ta
-		     * lmpliga tgrder.
-		     */
-		    @Override
-		    public void onConnectionError() {
-			delegate.onConnectionError();
-		    }
-		});
+    /**
+     * Metod fr att skicka ett meddelande till servern. Meddelandet kas och
+     * skickas s fort tidigare kade meddelanden skickats - saknas
+     * anslutningen fr tillfllet s skickas det nr den terupprttats. r
+     * kn full s hanteras meddelandet enligt instllningarnas
+     * {@link Configuration.OverflowPolicy}.
+     *
+     * @param message
+     *            meddelandet som ska skickas
+     * @return {@code true} om meddelandet kades, eller {@code false} om det
+     *         frkastades
+     */
+    public boolean sendMessage(String message) {
+	final boolean queued = this.outgoingMessages.offer(message);
 
 	/*
-	 * Registrerar de delegerade "call-back"-metoder som bestmmer vad det
-	 * tjnar-objekt mnat t att skicka meddelanden till servern skall
-	 * gras i olika scenarion - i detta fall r det en; nr ett avbrott i
-	 * kommunikationen har gt rum.
+	 * Anslutningen hmtas frst efter att meddelandet kats. En anslutning
+	 * som upprttas drefter tmmer kn s fort den startar.
 	 */
-	this.messageSendingServant
-		.setDelegate(new MessageSendingServant.Delegate() {
-
-		    /*
-		     * Vid ett fel i anslutningen till servern som upptckts vid
-		     * frsk att skicka ett meddelande till servern s meddelas
-		     * frmedlaren om detta och fr ta lmpliga tgrder.
-		     */
-		    @Override
-		    public void onConnectionError() {
-			delegate.onConnectionError();
-		    }
-		});
+	final Session session = this.session;
+	if (queued && session != null)
+	    session.wakeup();
+	return queued;
     }
 
     /**
-     * Metod fr att skicka ett meddelande till servern.
+     * Metod som returnerar antalet meddelanden som vntar p att skickas till
+     * servern.
      *
-     * @param message
-     *            meddelandet som ska skickas
+     * @return antalet vntande meddelanden
      */
-    public void sendMessage(String message) {
-	this.messageSendingServant.addMessageToQueue(message);
+    public int getQueueDepth() {
+	return this.outgoingMessages.size();
     }
 
     /**
      * Metod som returnerar ett booleansk vrde baserat p om tjnsten r redo
      * eller ej. Om tjnsten r redo eller inte baseras p om dess underliggande
-     * komponenter r redo - det krvs att dessa r instansierade, att dessa
-     * krs i varsinn trd och att dessa p s stt r redo att bearbeta data.
+     * komponenter r redo - det krvs att anslutningen r upprttad, att dess
+     * tjnare krs i varsinn trd och att dessa p s stt r redo att
+     * bearbeta data. Medan tjnsten teransluter r den inte redo.
      *
      * @return {@code true} om tjnsten r redo, i annat fall {@code false}
      */
     public boolean isServing() {
-	if (this.socket != null)
-	    if (this.socket.isBound() && this.socket.isConnected())
-		if (this.messageRecievingServant != null
-			&& this.messageSendingServant != null)
-		    if (this.messageRecievingServant.isServing()
-			    && this.messageSendingServant.isServing())
-			return true;
-	return false;
+	final Session session = this.session;
+	return this.serving && session != null && session.isServing();
+    }
+
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort den aktuella
+     * anslutningen r redo, det vill sga nr samtliga dess tjnar-objekt
+     * pbrjat sin betjning. Saknas anslutningen fr tillfllet s
+     * fullbordas framtiden aldrig - se istllet
+     * {@link Delegate#onReconnected()}.
+     *
+     * @return framtiden
+     */
+    public CompletableFuture<Void> getReadiness() {
+	final Session session = this.session;
+	if (session == null)
+	    return new CompletableFuture<>();
+	return session.getReadiness();
     }
 
     /**
      * Metod fr att starta tjnsten. Om tjnsten redan krs s hnder inget.
+     * Saknas anslutningen s pbrjas frsken att teransluta.
      *
      */
     public void startServing() {
+	final Session session;
+	synchronized (this) {
 
-	/*
-	 * Kontrollerar ifall tjnsten redan krs. Om s fallet s gr man ur
-	 * metoden.
-	 */
-	if (isServing())
-	    return;
+	    /*
+	     * Kontrollerar ifall tjnsten redan krs. Om s fallet s gr man
+	     * ur metoden.
+	     */
+	    if (this.serving)
+		return;
+	    this.serving = true;
+	    session = this.session;
+	}
 
-	/*
-	 * Lgger till uppdragen tillhrandes tjnar-objekten till trdpoolen
-	 * fr samtidig exekvering.
-	 */
-	this.threadPool.submit(this.messageRecievingServant.getTask());
-	this.threadPool.submit(this.messageSendingServant.getTask());
+	if (session != null)
+	    session.start(this.threadPool);
+	else
+	    scheduleReconnect(1);
     }
 
     /**
-     * Metod fr att stoppa tjnsten.
+     * Metod fr att stoppa tjnsten. Pgende frsk att teransluta avbryts
+     * och den aktuella anslutningen stngs. Meddelanden som inte hunnit
+     * skickas ligger kvar i kn.
      */
     public void stopServing() {
-	/*
-	 * Stoppar tjnarna - bde den som hanterar utgende och den som
-	 * hanterar inkommande meddelanden - frn att kras.
-	 */
-	this.messageRecievingServant.stopServing();
-	this.messageSendingServant.stopServing();
-
-	try {
-	    /*
-	     * Frsker stnga anslutningen till servern.
-	     */
-	    this.socket.close();
-	} catch (IOException e) {
-	    /*
-	     * Problem vid stngning av anslutningen - finns inte mycket att
-	     * gra t detta.
-	     */
+	final Session session;
+	synchronized (this) {
+	    this.serving = false;
+	    if (this.pendingReconnect != null)
+		this.pendingReconnect.cancel(false);
+	    session = this.session;
+	    this.session = null;
 	}
+
+	if (session != null)
+	    session.close();
     }
 
     /**
      * Metod som bygger upp och returnerar en strng som representerar klientens
      * aktuella uppkopplingsstatus.
-     * 
+     *
      * @return strng som representerar klientens uppkopplingsstatus
      */
     @Override
     public String toString() {
-	return this.socket.getRemoteSocketAddress().toString();
+	final Session session = this.session;
+	if (session == null)
+	    return "teransluter till " + this.address;
+	return session.toString();
+    }
+
+    /**
+     * Hjlpmetod som hanterar en frlorad anslutning. Anslutningen stngs och,
+     * om tjnsten fortfarande krs, s schemalggs det frsta frsket att
+     * teransluta - eller, om tjnsten inte skall teransluta, s meddelas
+     * frmedlaren om att anslutningen frlorats fr gott. En anslutning som
+     * redan ersatts eller stngts ignoreras.
+     *
+     * @param lost
+     *            den anslutning som frlorats
+     */
+    private void onSessionLost(Session lost) {
+	synchronized (this) {
+	    if (lost != this.session)
+		return;
+	    this.session = null;
+	}
+	lost.close();
+
+	if (!this.serving)
+	    return;
+	if (!this.configuration.isReconnecting()) {
+	    this.serving = false;
+	    this.delegate.onConnectionError();
+	    return;
+	}
+	scheduleReconnect(1);
+    }
+
+    /**
+     * Hjlpmetod som schemalgger ett frsk att teransluta till servern.
+     * Frdrjningen frdubblas fr varje frsk tills den nr sitt tak, och
+     * frsket grs slumpvis efter mellan hlften av och hela frdrjningen.
+     *
+     * @param attempt
+     *            frskets ordningsnummer, med brjan p 1
+     */
+    private void scheduleReconnect(int attempt) {
+	long delay = this.configuration.getReconnectDelay();
+	final long maxDelay = this.configuration.getMaxReconnectDelay();
+	for (int i = 1; i < attempt && delay < maxDelay; i++)
+	    delay *= 2;
+	delay = Math.min(delay, maxDelay);
+	delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+	synchronized (this) {
+	    if (!this.serving)
+		return;
+	    this.delegate.onReconnecting(attempt, delay);
+	    this.pendingReconnect = this.reconnector.schedule(new Runnable() {
+
+		@Override
+		public void run() {
+		    reconnect(attempt);
+		}
+	    }, delay, TimeUnit.MILLISECONDS);
+	}
+    }
+
+    /**
+     * Hjlpmetod som gr ett frsk att teransluta till servern. Lyckas
+     * frsket s startas den nya anslutningen, som d frst skickar de
+     * meddelanden som vntar i kn. Misslyckas det s schemalggs nsta
+     * frsk. Ett frsk fr inte ta lngre tid n den lngsta frdrjningen
+     * mellan tv frsk, s att en server som inte svarar alls inte hller
+     * kvar trden - och drmed frdrjer bde nsta frsk och ett stopp utav
+     * tjnsten - i flera minuter.
+     *
+     * @param attempt
+     *            frskets ordningsnummer, med brjan p 1
+     */
+    private void reconnect(int attempt) {
+	if (!this.serving)
+	    return;
+
+	final Session session;
+	try {
+	    session = new Session(this.address, this.configuration,
+		    this.outgoingMessages, this.sessionDelegate,
+		    (int) Math.min(this.configuration.getMaxReconnectDelay(),
+			    Integer.MAX_VALUE));
+	} catch (IOException e) {
+	    scheduleReconnect(attempt + 1);
+	    return;
+	}
+
+	synchronized (this) {
+	    if (!this.serving) {
+		session.close();
+		return;
+	    }
+	    this.session = session;
+	}
+	session.start(this.threadPool);
+	session.getReadiness().thenRun(new Runnable() {
+
+	    @Override
+	    public void run() {
+		Service.this.delegate.onReconnected();
+	    }
+	});
     }
 
     /**
      * Det till denna klass tillhrande grnssnitt som beskriver den eller dem
-     * delegerade "call-back" metod(er) skall delegeras vidare till
-     * tjnar-objekten.
+     * delegerade "call-back" metod(er) som anropas vid tjnstens hndelser.
+     * Metoderna {@link #onMessageReceived(String)} och
+     * {@link #onConnectionError()} hrstammar frn tjnar-objekten, men den
+     * senare anropas enbart nr anslutningen frlorats och tjnsten inte
+     * skall teransluta.
      *
      * @author Atilla zkan | 930304-4474 | atoz0393
      * @version 1.0
      */
     public interface Delegate extends MessageReceivingServant.Delegate,
 	    MessageSendingServant.Delegate {
-	/*
-	 * D de delegerade metoderna hrstammar frn tjnar-objekten s utkar
-	 * enbart denna grnssnitt de tv redan befintliga grnssnittet hos
-	 * bgge tjnar-klasser.
+
+	/**
+	 * Den metod som anropas nr kn ver vntande meddelanden blir full,
+	 * respektive nr den ter tmts till hlften. Medan kn r mottryckt
+	 * br inga nya meddelanden skickas.
+	 *
+	 * @param backpressured
+	 *            {@code true} om kn blivit mottryckt, {@code false} om den
+	 *            upphrt att vara det
+	 * @param queueDepth
+	 *            antalet vntande meddelanden vid vergngen
+	 */
+	void onBackpressureChanged(boolean backpressured, int queueDepth);
+
+	/**
+	 * Den metod som anropas nr anslutningen frlorats, eller ett frsk
+	 * att teransluta misslyckats, och nsta frsk har schemalagts.
+	 *
+	 * @param attempt
+	 *            frskets ordningsnummer, med brjan p 1
+	 * @param delayMillis
+	 *            frdrjningen i millisekunder innan frsket grs
+	 */
+	void onReconnecting(int attempt, long delayMillis);
+
+	/**
+	 * Den metod som anropas nr anslutningen terupprttats och r redo.
 	 */
+	void onReconnected();
     }
 }
@@ -0,0 +1,386 @@
+package chatclient.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chatclient.service.servants.ChannelServant;
+import chatclient.service.servants.MessageReceivingServant;
+import chatclient.service.servants.MessageSendingServant;
+import chatclient.service.servants.SendQueue;
+
+/**
+ * Klass som representerar en och samma anslutning till servern, tillsammans
+ * med de tjnar-objekt som tar emot och skickar meddelanden ver den. En
+ * frlorad anslutning terupptas aldrig - istllet upprttar tjnsten en ny
+ * {@link Session}. Kn ver vntande meddelanden gs utav tjnsten och delas
+ * drfr utav samtliga anslutningar.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+final class Session {
+
+    /*
+     * Referens till anslutningen till servern.
+     */
+    private final Socket socket;
+
+    /*
+     * Referens till dem objekt som skall hantera mottagning samt utsndning
+     * utav meddelanden - antingen tv tjnare med varsin trd, eller en enda
+     * tjnare som hanterar bgge ver en icke-blockerande kanal. De som inte
+     * anvnds utav den valda transporten pekar mot null.
+     */
+    private final MessageSendingServant messageSendingServant;
+    private final MessageReceivingServant messageRecievingServant;
+    private final ChannelServant channelServant;
+
+    /*
+     * Flaggor som indikerar huruvida anslutningens tjnare startats
+     * respektive huruvida anslutningen stngts.
+     */
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Skapar ett objekt utav klassen {@link Session} genom att upprtta en ny
+     * anslutning till servern.
+     *
+     * @param address
+     *            serverns adress
+     * @param configuration
+     *            de instllningar som bestmmer hur anslutningen skall drivas
+     * @param outgoingMessages
+     *            den k ver meddelanden som anslutningen skall tmma
+     * @param delegate
+     *            det delegat-objekt som meddelas om anslutningens hndelser
+     * @param connectTimeout
+     *            den lngsta tid, i millisekunder, som det fr ta att upprtta
+     *            anslutningen, eller {@code 0} fr att vnta s lnge som
+     *            plattformen tillter
+     * @throws IOException
+     *             om anslutningen inte kunde upprttas inom given tid
+     */
+    Session(InetSocketAddress address, Configuration configuration,
+	    SendQueue outgoingMessages, Delegate delegate, int connectTimeout)
+	    throws IOException {
+
+	/*
+	 * Med en kanal skts bde mottagning och utsndning utav en och samma
+	 * tjnare, i en och samma trd.
+	 */
+	if (configuration.getTransport() == Configuration.Transport.CHANNEL) {
+	    final SocketChannel channel = SocketChannel.open();
+	    this.socket = channel.socket();
+	    try {
+		connect(this.socket, address, configuration, connectTimeout);
+		this.channelServant = new ChannelServant(channel,
+			Service.CHARSET, outgoingMessages);
+	    } catch (IOException e) {
+		channel.close();
+		throw e;
+	    }
+	    this.messageRecievingServant = null;
+	    this.messageSendingServant = null;
+	    registerDelegate(delegate);
+	    return;
+	}
+
+	/*
+	 * Anslutningen till servern upprttas.
+	 */
+	this.socket = new Socket();
+	try {
+	    connect(this.socket, address, configuration, connectTimeout);
+	} catch (IOException e) {
+	    this.socket.close();
+	    throw e;
+	}
+	this.channelServant = null;
+
+	/*
+	 * En ingende byte-strms-objekt kopplas till anslutningen. En ingende
+	 * byte-strms lsare - med hrdkodad teckenuppsttning fr
+	 * kompatibilitet - som verstter byte-strmmen till en strm bestende
+	 * utav tecken kopplas till byte-strmmen. Slutligen s kopplas en
+	 * buffrad lsare till den ingende tecken-strmmen.
+	 */
+	final InputStream inputStream;
+	inputStream = this.socket.getInputStream();
+	final InputStreamReader inputStreamReader;
+	inputStreamReader = new InputStreamReader(inputStream, Service.CHARSET);
+	final BufferedReader serverReader;
+	serverReader = new BufferedReader(inputStreamReader);
+
+	/*
+	 * En utgende byte-strm kopplas mot anslutningen. En tecken-skrivare
+	 * kopplad till byte-strmmen - med hrdkodad teckenuppsttning fr
+	 * kompatibilitet - instansieras och kopplas i sin tur till
+	 * byte-strmmen.
+	 */
+	final OutputStream serverOutputStream;
+	serverOutputStream = this.socket.getOutputStream();
+	final OutputStreamWriter serverWriter;
+	serverWriter = new OutputStreamWriter(serverOutputStream,
+		Service.CHARSET);
+
+	/*
+	 * Instansierar instansvariabeln som r utav klassen
+	 * MessageRecievingServant och som har i syfte att lyssna p nya
+	 * inkommande meddelanden frn servern. Instansieringen krver att man
+	 * skickar med en buffrad tecken-lsare kopplad till servern.
+	 */
+	this.messageRecievingServant = new MessageReceivingServant(serverReader);
+
+	/*
+	 * Instansierar instansvariabeln som r utav klassen
+	 * MessageSendingServant och som har i syfte att skicka meddelanden till
+	 * servern. Instansieringen krver att man skickar med en buffrad
+	 * tecken-skrivare kopplad till servern, samt den k som skall tmmas.
+	 */
+	this.messageSendingServant = new MessageSendingServant(serverWriter,
+		outgoingMessages, configuration.isBatchSending());
+
+	registerDelegate(delegate);
+    }
+
+    /**
+     * Hjlpmetod som stter de alternativ fr anslutningen som bestms utav
+     * instllningarna och sedan upprttar den. Alternativen stts innan
+     * anslutningen upprttas, d storleken p den inkommande buffern annars
+     * inte pverkar vad som frhandlas fram med servern. Alternativ som inte
+     * angivits lmnas orrda, s att plattformens frval gller.
+     *
+     * @param socket
+     *            den nnu inte anslutna socket'en
+     * @param address
+     *            serverns adress
+     * @param configuration
+     *            de instllningar som bestmmer anslutningens alternativ
+     * @param timeout
+     *            den lngsta tid, i millisekunder, som det fr ta att upprtta
+     *            anslutningen, eller {@code 0} fr ingen grns
+     * @throws IOException
+     *             om ngot utav alternativen inte kunde sttas eller
+     *             anslutningen inte kunde upprttas inom given tid
+     */
+    private static void connect(Socket socket, InetSocketAddress address,
+	    Configuration configuration, int timeout) throws IOException {
+	if (configuration.isTcpNoDelay())
+	    socket.setTcpNoDelay(true);
+	if (configuration.getSendBufferSize() > 0)
+	    socket.setSendBufferSize(configuration.getSendBufferSize());
+	if (configuration.getReceiveBufferSize() > 0)
+	    socket.setReceiveBufferSize(configuration.getReceiveBufferSize());
+	socket.connect(address, timeout);
+    }
+
+    /**
+     * Hjlpmetod fr att registrera de delegerade "call-back"-metoder som
+     * bestmmer vad tjnar-objekten skall gra i olika scenarion - i detta
+     * fall r det tv; nr ett nytt meddelande mottagits och nr ett avbrott
+     * i kommunikationen har gt rum, oavsett vilken tjnare som upptckt det.
+     *
+     * @param delegate
+     *            det delegat-objekt som skall meddelas
+     */
+    private void registerDelegate(Delegate delegate) {
+	if (this.channelServant != null) {
+	    this.channelServant.setDelegate(new ChannelServant.Delegate() {
+
+		@Override
+		public void onMessageReceived(String message) {
+		    delegate.onMessageReceived(message);
+		}
+
+		@Override
+		public void onConnectionError() {
+		    delegate.onSessionLost(Session.this);
+		}
+	    });
+	    return;
+	}
+
+	this.messageRecievingServant
+		.setDelegate(new MessageReceivingServant.Delegate() {
+
+		    /*
+		     * Vid ett mottaget meddelande s meddelas tjnsten och
+		     * meddelandet skickas vidare till denna.
+		     */
+		    @Override
+		    public void onMessageReceived(String message) {
+			delegate.onMessageReceived(message);
+		    }
+
+		    /*
+		     * Vid ett fel i anslutningen till servern som upptckts vid
+		     * frsk att lyssna p servern fr nya inkommande
+		     * meddelanden s meddelas tjnsten om att anslutningen
+		     * frlorats.
+		     */
+		    @Override
+		    public void onConnectionError() {
+			delegate.onSessionLost(Session.this);
+		    }
+		});
+
+	this.messageSendingServant
+		.setDelegate(new MessageSendingServant.Delegate() {
+
+		    /*
+		     * Vid ett fel i anslutningen till servern som upptckts vid
+		     * frsk att skicka ett meddelande till servern s meddelas
+		     * tjnsten om att anslutningen frlorats.
+		     */
+		    @Override
+		    public void onConnectionError() {
+			delegate.onSessionLost(Session.this);
+		    }
+		});
+    }
+
+    /**
+     * Metod fr att starta anslutningens tjnare. Har de redan startats s
+     * hnder inget.
+     *
+     * @param threadPool
+     *            den trdpool som tjnarnas uppdrag skall exekveras utav
+     */
+    void start(ExecutorService threadPool) {
+	if (!this.started.compareAndSet(false, true))
+	    return;
+
+	/*
+	 * Lgger till uppdragen tillhrandes tjnar-objekten till trdpoolen
+	 * fr samtidig exekvering.
+	 */
+	if (this.channelServant != null) {
+	    threadPool.submit(this.channelServant.getTask());
+	    return;
+	}
+	threadPool.submit(this.messageRecievingServant.getTask());
+	threadPool.submit(this.messageSendingServant.getTask());
+    }
+
+    /**
+     * Metod som meddelar anslutningens tjnare om att ett nytt meddelande har
+     * kats.
+     */
+    void wakeup() {
+	if (this.channelServant != null)
+	    this.channelServant.wakeup();
+    }
+
+    /**
+     * Metod som indikerar huruvida anslutningen r upprttad och samtliga
+     * dess tjnare betjnar.
+     *
+     * @return {@code true} om anslutningen r redo, i annat fall {@code false}
+     */
+    boolean isServing() {
+	if (this.closed.get() || !this.socket.isConnected())
+	    return false;
+	if (this.channelServant != null)
+	    return this.channelServant.isServing();
+	return this.messageRecievingServant.isServing()
+		&& this.messageSendingServant.isServing();
+    }
+
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort samtliga
+     * tjnar-objekt pbrjat sin betjning.
+     *
+     * @return framtiden
+     */
+    CompletableFuture<Void> getReadiness() {
+	if (this.channelServant != null)
+	    return this.channelServant.getReadiness();
+	return CompletableFuture.allOf(
+		this.messageRecievingServant.getReadiness(),
+		this.messageSendingServant.getReadiness());
+    }
+
+    /**
+     * Metod fr att stnga anslutningen och stoppa dess tjnare. Har
+     * anslutningen redan stngts s hnder inget.
+     */
+    void close() {
+	if (!this.closed.compareAndSet(false, true))
+	    return;
+
+	try {
+	    /*
+	     * Anslutningen stngs frst, s att en tjnare som vntar p
+	     * inkommande data slutar vnta och slpper sin lsare innan den
+	     * stngs.
+	     */
+	    this.socket.close();
+	} catch (IOException e) {
+	    /*
+	     * Problem vid stngning av anslutningen - finns inte mycket att
+	     * gra t detta.
+	     */
+	}
+
+	/*
+	 * Stoppar tjnarna - bde den som hanterar utgende och den som
+	 * hanterar inkommande meddelanden - frn att kras.
+	 */
+	if (this.channelServant != null) {
+	    this.channelServant.stopServing();
+	} else {
+	    this.messageRecievingServant.stopServing();
+	    this.messageSendingServant.stopServing();
+	}
+    }
+
+    /**
+     * Metod som returnerar en strng som representerar anslutningen; denna
+     * represantation bestr utav serverns adress.
+     *
+     * @return en representerande strng
+     */
+    @Override
+    public String toString() {
+	return String.valueOf(this.socket.getRemoteSocketAddress());
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den eller dem
+     * delegerade "call-back" metod(er) som internt skall anropas av det gande
+     * objeket vid olika scenarion.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    interface Delegate {
+	/**
+	 * Den metod som internt anropas nr ett meddelande mottagits frn
+	 * servern.
+	 *
+	 * @param message
+	 *            det meddelande som mottogs
+	 */
+	void onMessageReceived(String message);
+
+	/**
+	 * Den metod som internt anropas nr anslutningen frlorats. Metoden
+	 * kan komma att anropas flera gnger fr en och samma anslutning.
+	 *
+	 * @param session
+	 *            den anslutning som frlorats
+	 */
+	void onSessionLost(Session session);
+    }
+}
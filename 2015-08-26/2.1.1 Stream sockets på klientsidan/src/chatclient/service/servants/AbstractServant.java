@@ -2,6 +2,7 @@ package chatclient.service.servants;
 
 import java.util.EventListener;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -39,6 +40,12 @@ abstract class AbstractServant<I extends EventListener> {
      */
     private volatile AtomicBoolean isServing = new AtomicBoolean(false);
 
+    /**
+     * Den framtid som fullbordas s fort tjnaren initialiserats och
+     * pbrjat sin betjning.
+     */
+    private final CompletableFuture<Void> readiness = new CompletableFuture<>();
+
     /**
      * Konstruktor som per automatik krs innan sub-klassers konstruktorer krs.
      * Denna konstruktor configuerar uppdraget och dess olika stadier samt
@@ -73,6 +80,7 @@ abstract class AbstractServant<I extends EventListener> {
 		 * uppdateras fre det att betjningen pbrjas.
 		 */
 		AbstractServant.this.isServing.set(true);
+		AbstractServant.this.readiness.complete(null);
 		while (!Thread.currentThread().isInterrupted()
 			&& AbstractServant.this.isServing())
 		    serve();
@@ -117,6 +125,16 @@ abstract class AbstractServant<I extends EventListener> {
 	return this.isServing.get();
     }
 
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort tjnaren
+     * initialiserats och pbrjat sin betjning.
+     *
+     * @return framtiden
+     */
+    public final CompletableFuture<Void> getReadiness() {
+	return this.readiness;
+    }
+
     /**
      * Synkroniserad metod fr att stoppa tjnaren och f denne att sluta
      * betjna.
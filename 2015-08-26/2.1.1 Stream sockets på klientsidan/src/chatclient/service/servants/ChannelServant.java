@@ -0,0 +1,381 @@
+package chatclient.service.servants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chatclient.service.Configuration;
+
+/**
+ * Tjnar-klass som i en och samma trd bde tar emot meddelanden frn servern
+ * och skickar meddelanden till servern, ver en icke-blockerande kanal. Den
+ * erstter paret {@link MessageReceivingServant} och
+ * {@link MessageSendingServant}, och talar samma radbaserade protokoll.
+ * <p>
+ * Trden vntar i en {@link Selector} p att kanalen blir lsbar - eller
+ * skrivbar medan utgende data terstr - och vcks nr ett nytt meddelande
+ * kas. Samtliga meddelanden som vntar nr trden vaknar kodas tillsammans
+ * och skrivs med ett och samma anrop.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public class ChannelServant extends AbstractServant<ChannelServant.Delegate> {
+
+    /**
+     * Storleken p bufferten som inkommande data lses till.
+     */
+    private final static int READ_BUFFER_SIZE = 8192;
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final Charset charset;
+
+    /**
+     * Kn ver meddelanden som vntar p att skickas, samt flaggan som anger
+     * huruvida trden redan vckts fr att skicka dem.
+     */
+    private final SendQueue outgoingMessages;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+
+    /**
+     * Utgende data som nnu inte skrivits, i lslge. Bufferten vxer enbart
+     * med det som vntar p att skrivas, och en buffert som vuxit sig strre
+     * n {@link #READ_BUFFER_SIZE} slpps s fort den skrivits i sin helhet.
+     */
+    private ByteBuffer outgoing = ByteBuffer.allocate(0);
+
+    /**
+     * De meddelanden som kodats till den utgende bufferten men nnu inte
+     * skrivits i sin helhet, tillsammans med var i den utgende strmmen
+     * varje meddelande slutar, samt antalet bytes som hittills skrivits.
+     * Misslyckas skrivningen s lggs meddelandena tillbaka i kn.
+     */
+    private final ArrayDeque<String> inFlightMessages = new ArrayDeque<>();
+    private final ArrayDeque<Long> inFlightEnds = new ArrayDeque<>();
+    private long collectedBytes = 0;
+    private long writtenBytes = 0;
+
+    /**
+     * Inkommande data, samt den pbrjade rad som nnu inte avslutats.
+     */
+    private final ByteBuffer incoming = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private byte[] line = new byte[256];
+    private int lineLength = 0;
+    private boolean lastWasCarriageReturn = false;
+
+    /**
+     * Skapar ett objekt utav klassen {@link ChannelServant}. Kanalen stlls om
+     * till att vara icke-blockerande.
+     *
+     * @param channel
+     *            den anslutna kanalen till servern
+     * @param charset
+     *            den teckenuppsttning som meddelandena kodas med
+     * @param outgoingMessages
+     *            den k ver meddelanden som tjnaren skall tmma
+     * @throws IOException
+     *             om kanalen inte kunde registreras
+     */
+    public ChannelServant(SocketChannel channel, Charset charset,
+	    SendQueue outgoingMessages) throws IOException {
+	this.channel = channel;
+	this.charset = charset;
+	this.outgoingMessages = outgoingMessages;
+	this.channel.configureBlocking(false);
+	this.selector = Selector.open();
+	this.key = this.channel.register(this.selector, SelectionKey.OP_READ);
+
+	/*
+	 * Delegat-objektet instanseras till att inte gra ngot vid ngon
+	 * hndelse ver huvud taget. Detta fr att undvika att instansvariabeln
+	 * istllet pekar mot null.
+	 */
+	this.delegate = new Delegate() {
+
+	    @Override
+	    public void onMessageReceived(String message) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void onConnectionError() {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+	};
+    }
+
+    @Override
+    void init() {
+	/*
+	 * Meddelanden som redan vntar i kn - till exempel sdana som kats
+	 * medan en tidigare anslutning terupprttades - skickas direkt, utan
+	 * att frst vnta p kanalen.
+	 */
+	this.selector.wakeup();
+    }
+
+    @Override
+    void serve() {
+	try {
+	    this.selector.select();
+	    this.wakeupPending.set(false);
+
+	    if (this.key.isValid() && this.key.isReadable())
+		read();
+
+	    /*
+	     * Har servern stngt sin sida utav anslutningen s har tjnaren
+	     * redan slutat betjna - kn lmnas d orrd t nsta anslutning.
+	     */
+	    if (!isServing())
+		return;
+
+	    /*
+	     * Samtliga vntande meddelanden kodas till den utgende bufferten
+	     * och skrivs i ett svep. Det som inte hinner skrivas ligger kvar
+	     * tills kanalen ter blir skrivbar.
+	     */
+	    collectOutgoingMessages();
+	    if (this.outgoing.hasRemaining())
+		this.writtenBytes += this.channel.write(this.outgoing);
+	    while (!this.inFlightEnds.isEmpty()
+		    && this.inFlightEnds.peekFirst() <= this.writtenBytes) {
+		this.inFlightEnds.pollFirst();
+		this.inFlightMessages.pollFirst();
+	    }
+
+	    /*
+	     * Har allt skrivits s teranvnds bufferten frn brjan - eller
+	     * slpps, om den vuxit sig stor under en tillfllig anhopning.
+	     */
+	    if (!this.outgoing.hasRemaining()) {
+		if (this.outgoing.capacity() > READ_BUFFER_SIZE)
+		    this.outgoing = ByteBuffer.allocate(0);
+		this.outgoing.clear();
+		this.outgoing.limit(0);
+	    }
+
+	    this.key.interestOps(this.outgoing.hasRemaining()
+		    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+		    : SelectionKey.OP_READ);
+	} catch (IOException | CancelledKeyException | ClosedSelectorException e) {
+	    /*
+	     * Stter tjnaren p ett undantag s gr det inte lngre att
+	     * kommunicera med servern. Beror det p att tjnaren stoppats - och
+	     * kanalen samt vljaren stngts utav en annan trd - s lggs
+	     * enbart de meddelanden som inte hunnit skrivas tillbaka i kn.
+	     */
+	    if (isServing())
+		fail();
+	    else
+		requeueInFlightMessages();
+	}
+    }
+
+    @Override
+    void exit() {
+	try {
+	    /*
+	     * Terminerar resurser som r kopplade till servern.
+	     */
+	    this.selector.close();
+	    this.channel.close();
+	} catch (IOException e) {
+	    /*
+	     * Problem vid stngning av kanalen - finns inte mycket att gra t
+	     * detta.
+	     */
+	}
+    }
+
+    /**
+     * Metod fr att placera ett nytt meddelande i kn ver meddelanden som
+     * vntar p att skickas. Tjnarens trd vcks om den inte redan vckts.
+     * r kn full s hanteras meddelandet enligt instllningarnas
+     * {@link Configuration.OverflowPolicy}.
+     *
+     * @param message
+     *            det meddelande som skall skickas ut
+     * @return {@code true} om meddelandet kades, eller {@code false} om det
+     *         frkastades
+     */
+    public boolean addMessageToQueue(String message) {
+	final boolean queued = this.outgoingMessages.offer(message);
+	if (queued)
+	    wakeup();
+	return queued;
+    }
+
+    /**
+     * Metod som vcker tjnarens trd, om den inte redan vckts, s att
+     * meddelanden som kats direkt i kn skickas.
+     */
+    public void wakeup() {
+	if (this.wakeupPending.compareAndSet(false, true))
+	    this.selector.wakeup();
+    }
+
+    /**
+     * Metod som returnerar antalet meddelanden som vntar p att skickas.
+     * Meddelanden som redan kodats men nnu inte hunnit skrivas rknas inte.
+     *
+     * @return antalet vntande meddelanden
+     */
+    public int getQueueDepth() {
+	return this.outgoingMessages.size();
+    }
+
+    /**
+     * Metod som returnerar en strng som representerar tjnar-objektet vid det
+     * tillflle som metoden anropats; denna represantation bestr i detta fall
+     * utav antalet meddelanden som vntar p att skickas.
+     *
+     * @return en representerande strng
+     */
+    @Override
+    public final String toString() {
+	return String.valueOf(this.outgoingMessages.size());
+    }
+
+    /*
+     * Hjlpmetod som lser det som finns att lsa frn kanalen och lmnar
+     * varje avslutad rad till delegatet. En rad avslutas, likt
+     * BufferedReader.readLine(), med '\n', '\r' eller "\r\n".
+     */
+    private void read() throws IOException {
+	int read;
+	while ((read = this.channel.read(this.incoming)) > 0) {
+	    this.incoming.flip();
+	    while (this.incoming.hasRemaining()) {
+		final byte b = this.incoming.get();
+		if (b == '\n' && this.lastWasCarriageReturn) {
+		    this.lastWasCarriageReturn = false;
+		} else if (b == '\n' || b == '\r') {
+		    this.lastWasCarriageReturn = b == '\r';
+		    this.delegate.onMessageReceived(new String(this.line, 0,
+			    this.lineLength, this.charset));
+		    this.lineLength = 0;
+		} else {
+		    this.lastWasCarriageReturn = false;
+		    if (this.lineLength == this.line.length)
+			this.line = Arrays.copyOf(this.line,
+				this.line.length * 2);
+		    this.line[this.lineLength++] = b;
+		}
+	    }
+	    this.incoming.clear();
+	}
+
+	/*
+	 * Servern har stngt sin sida utav anslutningen.
+	 */
+	if (read < 0) {
+	    this.key.cancel();
+	    fail();
+	}
+    }
+
+    /*
+     * Hjlpmetod som lgger tillbaka de meddelanden som inte hunnit skrivas i
+     * sin helhet frst i kn, i samma ordning som de kades, s att de kan
+     * skickas ver en ny anslutning. Tjnaren slutar sedan betjna och
+     * delegatet meddelas.
+     */
+    private void fail() {
+	requeueInFlightMessages();
+	stopServing();
+	this.delegate.onConnectionError();
+    }
+
+    /*
+     * Hjlpmetod som lgger tillbaka de meddelanden som inte hunnit skrivas i
+     * sin helhet frst i kn, i samma ordning som de kades.
+     */
+    private void requeueInFlightMessages() {
+	while (!this.inFlightMessages.isEmpty())
+	    this.outgoingMessages.requeue(this.inFlightMessages.pollLast());
+	this.inFlightEnds.clear();
+    }
+
+    /*
+     * Hjlpmetod som kodar samtliga vntande meddelanden och lgger dem till
+     * den utgende bufferten, bakom det som nnu inte hunnit skrivas.
+     */
+    private void collectOutgoingMessages() {
+	String message;
+	while ((message = this.outgoingMessages.poll()) != null) {
+	    final ByteBuffer encoded = this.charset.encode(message
+		    + MessageSendingServant.MESSAGE_TERMINATOR);
+	    if (this.outgoing.capacity() - this.outgoing.limit() < encoded
+		    .remaining()) {
+		final int pending = this.outgoing.remaining()
+			+ encoded.remaining();
+		if (pending <= this.outgoing.capacity()) {
+		    /*
+		     * Det som redan skrivits ger plats t meddelandet.
+		     */
+		    this.outgoing.compact();
+		    this.outgoing.flip();
+		} else {
+		    /*
+		     * Bufferten vxer till nrmsta tvpotens som rymmer det
+		     * som vntar p att skrivas.
+		     */
+		    int size = Integer.highestOneBit(pending);
+		    if (size < pending)
+			size = size < (1 << 30) ? size << 1 : pending;
+		    final ByteBuffer larger = ByteBuffer.allocate(size);
+		    larger.put(this.outgoing);
+		    larger.flip();
+		    this.outgoing = larger;
+		}
+	    }
+
+	    /*
+	     * Bufferten r i lslge - det nya meddelandet lggs till efter
+	     * dess grns.
+	     */
+	    final int position = this.outgoing.position();
+	    this.outgoing.position(this.outgoing.limit());
+	    this.outgoing.limit(this.outgoing.capacity());
+	    this.collectedBytes += encoded.remaining();
+	    this.outgoing.put(encoded);
+	    this.outgoing.limit(this.outgoing.position());
+	    this.outgoing.position(position);
+	    this.inFlightMessages.addLast(message);
+	    this.inFlightEnds.addLast(this.collectedBytes);
+	}
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den eller dem
+     * delegerade "call-back" metod(er) som internt skall anropas av det gande
+     * objeket vid olika scenarion. Metoderna r desamma som hos
+     * {@link MessageReceivingServant.Delegate} och
+     * {@link MessageSendingServant.Delegate}, d tjnaren bde tar emot och
+     * skickar meddelanden.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Delegate extends MessageReceivingServant.Delegate,
+	    MessageSendingServant.Delegate {
+	/*
+	 * Samtliga metoder rvs.
+	 */
+    }
+}
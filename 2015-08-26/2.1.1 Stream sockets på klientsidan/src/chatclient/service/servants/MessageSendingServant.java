@@ -2,8 +2,10 @@ package chatclient.service.servants;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.EventListener;
-import java.util.concurrent.LinkedBlockingQueue;
+
+import chatclient.service.Configuration;
 
 /**
  * Tjnar-klass som hanterar dem meddelanden som vntar p att skickas ut till
@@ -15,15 +17,21 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class MessageSendingServant extends
 	AbstractServant<MessageSendingServant.Delegate> {
 
+    /**
+     * Det tecken som avslutar varje meddelande som skickas till servern.
+     */
+    public final static String MESSAGE_TERMINATOR = "\r";
+
     /**
      * En "blockerande" k-struktur fr att lagra meddelanden i den ordning
      * (First-In-First-Out) som dem ska skickas till servern. Dess "blockerande"
      * egenskap r lmplig i det hr fallet d det r en - frn
      * tillmpningsprogrammet separat - trd som skall hantera meddelandena
      * vilket tillter att trden p lmpligt stt vntar p att k-strukturen
-     * populeras med meddelanden allt eftersom att trden skickar dem.
+     * populeras med meddelanden allt eftersom att trden skickar dem. Kn r
+     * begrnsad enligt instllningarna, se {@link SendQueue}.
      */
-    private final LinkedBlockingQueue<String> outgoingMessages;
+    private final SendQueue outgoingMessages;
 
     /**
      * Referns till en buffrad tecken-skrivare kopplad till servern. Denna
@@ -31,6 +39,30 @@ public class MessageSendingServant extends
      */
     private final OutputStreamWriter serverWriter;
 
+    /**
+     * Flagga som indikerar huruvida samtliga vntande meddelanden skrivs och
+     * "spolas" tillsammans vid varje uppvaknande.
+     */
+    private final boolean batching;
+
+    /**
+     * De meddelanden som tagits ur kn och hller p att skrivas. Misslyckas
+     * skrivningen s lggs de tillbaka i kn.
+     */
+    private final ArrayList<String> batch = new ArrayList<>();
+
+    /**
+     * Skapar ett objekt utav klassen {@link MessageSendingServant} med en egen
+     * obegrnsad k, som skickar ett meddelande i taget.
+     * 
+     * @param serverWriter
+     *            den buffrade tecken-skrivaren tillhrande den server som
+     *            meddelandena skall skickas till
+     */
+    public MessageSendingServant(OutputStreamWriter serverWriter) {
+	this(serverWriter, new SendQueue(), false);
+    }
+
     /**
      * Skapar ett objekt utav klassen {@link MessageSendingServant}.
      * Konstruktorn krver att f en referens till den buffrade tecken-skrivaren
@@ -39,8 +71,15 @@ public class MessageSendingServant extends
      * @param serverWriter
      *            den buffrade tecken-skrivaren tillhrande den server som
      *            meddelandena skall skickas till
+     * @param outgoingMessages
+     *            den k ver meddelanden som tjnaren skall tmma
+     * @param batching
+     *            {@code true} om samtliga meddelanden som vntar nr tjnaren
+     *            vaknar skall skrivas och "spolas" tillsammans
      */
-    public MessageSendingServant(OutputStreamWriter serverWriter) {
+    public MessageSendingServant(OutputStreamWriter serverWriter,
+	    SendQueue outgoingMessages, boolean batching) {
+	this.batching = batching;
 
 	/*
 	 * Referensen till den buffrade tecken-skrivare kopplad till servern
@@ -49,11 +88,11 @@ public class MessageSendingServant extends
 	this.serverWriter = serverWriter;
 
 	/*
-	 * Instansierar k-strukturen som har i syfte att populeras med
+	 * Referensen till k-strukturen som har i syfte att populeras med
 	 * utskicksjobb samtidigt som jobben utfrs en efter en - i rtt
-	 * ordning.
+	 * ordning - uppdateras.
 	 */
-	this.outgoingMessages = new LinkedBlockingQueue<>();
+	this.outgoingMessages = outgoingMessages;
 
 	/*
 	 * Delegat-objektet instanseras till att inte gra ngot vid ngon
@@ -84,26 +123,46 @@ public class MessageSendingServant extends
 	 * Frsker plocka nsta utskicksjobb som str p tur att utfras. Finns
 	 * inga s vntas det - hr.
 	 */
-	String outgoingMessage = MessageSendingServant.this.outgoingMessages
-		.take();
+	this.batch.add(MessageSendingServant.this.outgoingMessages.take());
+
+	/*
+	 * Skickas meddelanden i satser s tas ven de meddelanden som hunnit
+	 * kas under tiden ur kn, s att strmmen enbart "spolas" en gng -
+	 * och meddelandena hamnar i s f segment som mjligt - istllet fr en
+	 * gng per meddelande.
+	 */
+	if (this.batching) {
+	    String outgoingMessage;
+	    while ((outgoingMessage = this.outgoingMessages.poll()) != null)
+		this.batch.add(outgoingMessage);
+	}
 
 	/*
 	 * P ett sanerat och ordningssamt stt - genom att "spola" strmmens
 	 * buffer fr att frhindra att ett meddelande ligger och vntar -
-	 * frsks meddelandet skrivas via den mottagande serverns
+	 * frsks meddelandena skrivas via den mottagande serverns
 	 * skrivar-objekt. Tecknet fr radbryte indikerar slutet p meddelandet.
 	 */
 	try {
-	    this.serverWriter.write(outgoingMessage + "\r");
+	    for (String outgoingMessage : this.batch)
+		this.serverWriter.write(outgoingMessage + MESSAGE_TERMINATOR);
 	    this.serverWriter.flush();
 	} catch (IOException e) {
 	    /*
 	     * Stter programmet p ett undantag s betyder det att det inte
 	     * gick att kommunicera med mottagaren - denne r d hgst troligen
-	     * inte lnge uppkopplad och drfr anropas den i frvg definierade
-	     * metod som r till fr att anropas i situationer som denna.
+	     * inte lnge uppkopplad. Meddelandena lggs tillbaka frst i kn,
+	     * s att de kan skickas ver en ny anslutning, och tjnaren slutar
+	     * betjna d skrivaren inte lngre gr att anvnda. Sedan anropas
+	     * den i frvg definierade metod som r till fr att anropas i
+	     * situationer som denna.
 	     */
+	    for (int i = this.batch.size() - 1; i >= 0; i--)
+		this.outgoingMessages.requeue(this.batch.get(i));
+	    stopServing();
 	    MessageSendingServant.this.delegate.onConnectionError();
+	} finally {
+	    this.batch.clear();
 	}
 
     }
@@ -125,13 +184,25 @@ public class MessageSendingServant extends
 
     /**
      * Metod fr att placera ett nytt meddelande i kn ver utskicksjobb som
-     * vntar p att utfras.
+     * vntar p att utfras. r kn full s hanteras meddelandet enligt
+     * kns {@link Configuration.OverflowPolicy}.
      *
      * @param message
      *            det meddelande som skall skickas ut
+     * @return {@code true} om meddelandet kades, eller {@code false} om det
+     *         frkastades
+     */
+    public boolean addMessageToQueue(String message) {
+	return this.outgoingMessages.offer(message);
+    }
+
+    /**
+     * Metod som returnerar antalet meddelanden som vntar p att skickas.
+     *
+     * @return antalet vntande meddelanden
      */
-    public void addMessageToQueue(String message) {
-	this.outgoingMessages.offer(message);
+    public int getQueueDepth() {
+	return this.outgoingMessages.size();
     }
 
     /**
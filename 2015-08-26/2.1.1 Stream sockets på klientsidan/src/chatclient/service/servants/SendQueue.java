@@ -0,0 +1,250 @@
+package chatclient.service.servants;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chatclient.service.Configuration;
+
+/**
+ * Klass som utgr en k ver meddelanden som vntar p att skickas till
+ * servern. Kn kan begrnsas, och vad som sker nr den r full bestms utav
+ * {@link Configuration.OverflowPolicy}.
+ * <p>
+ * En begrnsad k anses vara "mottryckt" frn det att den blivit full tills
+ * dess att den tmts till hlften. Varje vergng meddelas till lyssnaren, s
+ * att den som kar meddelanden kan hlla inne med nya medan servern inte
+ * hinner ta emot dem.
+ * <p>
+ * Kn gs utav tjnsten och verlever de tjnare som tmmer den, s att
+ * meddelanden som nnu inte skickats finns kvar nr en ny anslutning till
+ * servern upprttats. Meddelanden som en tjnare tagit ur kn men inte lyckats
+ * skriva lggs tillbaka frst i kn, se {@link #requeue(String)}. Kapaciteten
+ * gller drfr enbart nya meddelanden - ett meddelande som en gng kats
+ * frkastas aldrig fr att kn hunnit fyllas p under tiden.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class SendQueue {
+
+    private final ArrayDeque<String> messages = new ArrayDeque<>();
+    private final int capacity;
+    private final Configuration.OverflowPolicy overflowPolicy;
+    private final Listener listener;
+
+    /*
+     * Ls som skyddar kn, samt de villkor som den som hmtar respektive kar
+     * ett meddelande vntar p.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+
+    /**
+     * De kstorlekar vid vilka kn blir respektive upphr att vara mottryckt.
+     */
+    private final int highWatermark;
+    private final int lowWatermark;
+
+    /**
+     * Flagga som indikerar huruvida kn fr tillfllet r mottryckt. Flaggan
+     * ndras enbart under objektets ls, s att vergngarna meddelas i rtt
+     * ordning.
+     */
+    private boolean backpressured = false;
+
+    /**
+     * Skapar ett objekt utav klassen {@link SendQueue} som r obegrnsad, och
+     * drmed aldrig blir mottryckt.
+     */
+    public SendQueue() {
+	this(0, Configuration.OverflowPolicy.DROP_NEWEST, null);
+    }
+
+    /**
+     * Skapar ett objekt utav klassen {@link SendQueue}.
+     *
+     * @param capacity
+     *            kns kapacitet, eller {@code 0} fr en obegrnsad k
+     * @param overflowPolicy
+     *            hur ett meddelande som kas nr kn r full skall hanteras
+     * @param listener
+     *            den lyssnare som meddelas nr kn blir eller upphr att vara
+     *            mottryckt
+     */
+    public SendQueue(int capacity,
+	    Configuration.OverflowPolicy overflowPolicy, Listener listener) {
+	this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+	this.overflowPolicy = overflowPolicy;
+	this.listener = listener;
+	this.highWatermark = capacity > 0 ? capacity : Integer.MAX_VALUE;
+	this.lowWatermark = capacity > 0 ? capacity / 2 : -1;
+    }
+
+    /**
+     * Metod fr att ka ett meddelande. r kn full s hanteras meddelandet
+     * enligt kns {@link Configuration.OverflowPolicy}.
+     *
+     * @param message
+     *            meddelandet som skall kas
+     * @return {@code true} om meddelandet kades, eller {@code false} om det
+     *         frkastades
+     */
+    public boolean offer(String message) {
+	boolean queued = true;
+	this.lock.lock();
+	try {
+	    switch (this.overflowPolicy) {
+
+	    case DROP_OLDEST:
+		while (this.messages.size() >= this.capacity)
+		    this.messages.pollFirst();
+		break;
+
+	    case BLOCK:
+		try {
+		    while (this.messages.size() >= this.capacity)
+			this.notFull.await();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    queued = false;
+		}
+		break;
+
+	    default:
+		queued = this.messages.size() < this.capacity;
+		break;
+	    }
+
+	    if (queued) {
+		this.messages.addLast(message);
+		this.notEmpty.signal();
+	    }
+	} finally {
+	    this.lock.unlock();
+	}
+
+	update();
+	return queued;
+    }
+
+    /**
+     * Metod som hmtar nsta meddelande ur kn, och vntar tills det finns
+     * ett om kn r tom.
+     *
+     * @return nsta meddelande
+     * @throws InterruptedException
+     *             ifall trden som vntar strs av ett avbrott
+     */
+    public String take() throws InterruptedException {
+	final String message;
+	this.lock.lockInterruptibly();
+	try {
+	    while (this.messages.isEmpty())
+		this.notEmpty.await();
+	    message = this.messages.pollFirst();
+	    this.notFull.signal();
+	} finally {
+	    this.lock.unlock();
+	}
+	update();
+	return message;
+    }
+
+    /**
+     * Metod som hmtar nsta meddelande ur kn, om det finns ngot.
+     *
+     * @return nsta meddelande, eller {@code null} om kn r tom
+     */
+    public String poll() {
+	final String message;
+	this.lock.lock();
+	try {
+	    message = this.messages.pollFirst();
+	    if (message != null)
+		this.notFull.signal();
+	} finally {
+	    this.lock.unlock();
+	}
+	if (message != null)
+	    update();
+	return message;
+    }
+
+    /**
+     * Metod som returnerar antalet meddelanden i kn.
+     *
+     * @return antalet meddelanden
+     */
+    public int size() {
+	this.lock.lock();
+	try {
+	    return this.messages.size();
+	} finally {
+	    this.lock.unlock();
+	}
+    }
+
+    /**
+     * Metod fr att lgga tillbaka ett meddelande som tagits ur kn men inte
+     * kunnat skrivas, frst i kn. Flera meddelanden lggs tillbaka i omvnd
+     * ordning, s att de skickas i samma ordning som de kades. Meddelandet
+     * lggs tillbaka ven om kn r full, som d tillflligt verskrider sin
+     * kapacitet tills dess att den tmts.
+     *
+     * @param message
+     *            meddelandet som skall lggas tillbaka
+     */
+    public void requeue(String message) {
+	this.lock.lock();
+	try {
+	    this.messages.addFirst(message);
+	    this.notEmpty.signal();
+	} finally {
+	    this.lock.unlock();
+	}
+	update();
+    }
+
+    /*
+     * Hjlpmetod som jmfr kns storlek med dess grnser och meddelar
+     * lyssnaren om kn blivit eller upphrt att vara mottryckt.
+     */
+    private void update() {
+	final int size = size();
+	if (size < this.highWatermark && size > this.lowWatermark)
+	    return;
+
+	synchronized (this) {
+	    final int depth = size();
+	    if (!this.backpressured && depth >= this.highWatermark) {
+		this.backpressured = true;
+		this.listener.onBackpressureChanged(true, depth);
+	    } else if (this.backpressured && depth <= this.lowWatermark) {
+		this.backpressured = false;
+		this.listener.onBackpressureChanged(false, depth);
+	    }
+	}
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den metod som
+     * anropas nr kn blir eller upphr att vara mottryckt.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Listener {
+	/**
+	 * Den metod som anropas nr kn blir eller upphr att vara mottryckt.
+	 *
+	 * @param backpressured
+	 *            {@code true} om kn blivit mottryckt, {@code false} om den
+	 *            upphrt att vara det
+	 * @param queueDepth
+	 *            antalet meddelanden i kn vid vergngen
+	 */
+	void onBackpressureChanged(boolean backpressured, int queueDepth);
+    }
+}
@@ -0,0 +1,79 @@
+package chatserver.bench;
+
+/**
+ * Klass som kr serverns prestandamtningar, antingen samtliga eller enbart
+ * de som anges vid namn. Mtningarna saknar externa beroenden och byggs samt
+ * krs med JDK:ns egna verktyg, frn projektets katalog:
+ *
+ * <pre>
+ * javac -encoding ISO-8859-1 -d bin $(find src -name "*.java")
+ * javac -encoding ISO-8859-1 -cp bin -d bin-bench $(find bench -name "*.java")
+ * java -cp bin:bin-bench chatserver.bench.Benchmarks [fanout] [task] [dispatch] [setup] [queue]
+ * </pre>
+ *
+ * Parametrarna styrs med systemegenskaper:
+ * <ul>
+ * <li>{@code bench.warmups} och {@code bench.iterations} - antalet
+ * uppvrmnings- och mtomgngar</li>
+ * <li>{@code bench.clients} - antalet klienter, till exempel
+ * {@code 1,16,64}</li>
+ * <li>{@code bench.sizes} - meddelandenas storlek i tecken, till exempel
+ * {@code 16,256,4096}</li>
+ * <li>{@code bench.batches} - filernas satsstorlekar, till exempel
+ * {@code 1,0}</li>
+ * </ul>
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Benchmarks {
+
+    /**
+     * Huvudmetoden som anropas nr mtningarna krs.
+     *
+     * @param args
+     *            namnen p de mtningar som skall kras, frvalt samtliga
+     * @throws Exception
+     *             ifall en mtning misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	final Harness harness = new Harness();
+	final String[] suites = args.length == 0 ? new String[] { "setup",
+		"task", "dispatch", "queue", "fanout" } : args;
+
+	for (String suite : suites) {
+	    switch (suite) {
+
+	    case "setup":
+		ClientSetupBenchmark.run(harness);
+		break;
+
+	    case "task":
+		BroadcastTaskBenchmark.run(harness);
+		break;
+
+	    case "dispatch":
+		DispatchBenchmark.run(harness);
+		break;
+
+	    case "queue":
+		EventQueueBenchmark.main(new String[0]);
+		break;
+
+	    case "fanout":
+		FanOutBenchmark.run(harness);
+		break;
+
+	    default:
+		System.err.println("Oknd mtning: " + suite);
+		System.exit(1);
+	    }
+	}
+
+	/*
+	 * Tjnsterna som startats utav mtningarna saknar mjlighet att
+	 * stngas, s den virtuella maskinen avslutas explicit.
+	 */
+	System.exit(0);
+    }
+}
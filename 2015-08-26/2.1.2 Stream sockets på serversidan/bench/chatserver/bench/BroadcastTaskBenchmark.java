@@ -0,0 +1,109 @@
+package chatserver.bench;
+
+import java.nio.ByteBuffer;
+
+import chatserver.service.Configuration;
+import chatserver.service.misc.AbstractClient;
+import chatserver.service.misc.BroadcastTask;
+import chatserver.service.misc.Client;
+
+/**
+ * Prestandamtning utav {@link BroadcastTask}, det uppdrag som skriver en
+ * blockerande klients vntande meddelanden. Klienterna anvnder en
+ * {@link MemorySocket}, s att mtningen fngar kostnaden fr att tmma kn
+ * och kopiera meddelandena till skrivbuffern - inte ntverket.
+ * <p>
+ * Varje omgng placerar ett antal meddelanden i kn hos samtliga klienter och
+ * exekverar sedan varje klients uppdrag, precis som den blockerande motorn
+ * gr efter ett utskick. Genomstrmningen redovisas i levererade meddelanden.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class BroadcastTaskBenchmark {
+
+    /**
+     * Det antal meddelanden som placeras i varje klients k per omgng, vilket
+     * motsvarar kns frvalda grns.
+     */
+    private final static int MESSAGES = Configuration.DEFAULT_OUTGOING_MESSAGE_LIMIT;
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            anvnds ej
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	run(new Harness());
+    }
+
+    /**
+     * Metod som kr mtningen fr samtliga kombinationer utav antal klienter
+     * och meddelandestorlekar, se {@link Benchmarks}.
+     *
+     * @param harness
+     *            den mtrigg som skall anvndas
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    static void run(Harness harness) throws Exception {
+	for (int clients : Harness.parameters("bench.clients", 1, 16, 64))
+	    for (int size : Harness.parameters("bench.sizes", 16, 256, 4096))
+		harness.measure("BroadcastTask clients=" + clients + " size="
+			+ size, trial(clients, size));
+    }
+
+    /**
+     * Hjlpmetod som skapar en omgng fr angivet antal klienter och angiven
+     * meddelandestorlek.
+     *
+     * @param clientCount
+     *            antalet klienter
+     * @param size
+     *            meddelandenas storlek i tecken
+     * @return omgngen
+     * @throws Exception
+     *             ifall klienterna inte kunde skapas
+     */
+    private static Harness.Trial trial(int clientCount, int size)
+	    throws Exception {
+	final Configuration configuration = new Configuration();
+	configuration.setOutgoingByteLimit(Integer.MAX_VALUE);
+
+	final ByteBuffer message = AbstractClient.encode(
+		Harness.message(size), false);
+	final Client[] clients = new Client[clientCount];
+	final BroadcastTask[] tasks = new BroadcastTask[clientCount];
+	final BroadcastTask.Events events = new BroadcastTask.Events() {
+
+	    @Override
+	    public void onConnectionLost() {
+		throw new IllegalStateException("Anslutningen frlorades!");
+	    }
+	};
+
+	for (int i = 0; i < clientCount; i++) {
+	    clients[i] = new Client(new MemorySocket(), configuration);
+	    tasks[i] = new BroadcastTask(events, clients[i]);
+	}
+
+	return new Harness.Trial() {
+
+	    @Override
+	    public long run() {
+		for (int i = 0; i < MESSAGES; i++)
+		    for (Client client : clients)
+			client.enqueue(message);
+
+		for (int i = 0; i < tasks.length; i++) {
+		    clients[i].scheduleWrite();
+		    tasks[i].run();
+		}
+		return (long) MESSAGES * clients.length;
+	    }
+	};
+    }
+}
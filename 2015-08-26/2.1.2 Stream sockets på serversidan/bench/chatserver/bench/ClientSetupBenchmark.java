@@ -0,0 +1,76 @@
+package chatserver.bench;
+
+import java.net.Socket;
+
+import chatserver.service.Configuration;
+import chatserver.service.misc.Client;
+
+/**
+ * Prestandamtning utav den kostnad det innebr att skapa en
+ * {@link Client}, det vill sga att koppla upp klientens lsare och skrivare
+ * mot dess socket. Klienterna anvnder en {@link MemorySocket}, s att
+ * mtningen inte fngar kostnaden fr att upprtta sjlva anslutningen.
+ * <p>
+ * Varje omgng skapar angivet antal klienter upprepade gnger, s att ven
+ * skrpsamlarens kostnad fr klienternas buffrar fngas. Meddelandestorleken
+ * pverkar inte uppkopplingen och ingr drfr inte bland parametrarna.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class ClientSetupBenchmark {
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            anvnds ej
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	run(new Harness());
+    }
+
+    /**
+     * Metod som kr mtningen fr samtliga antal klienter, se
+     * {@link Benchmarks}.
+     *
+     * @param harness
+     *            den mtrigg som skall anvndas
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    static void run(Harness harness) throws Exception {
+	for (final int clients : Harness.parameters("bench.clients", 1, 16, 64)) {
+	    final Configuration configuration = new Configuration();
+	    final Socket[] sockets = new Socket[clients];
+	    for (int i = 0; i < clients; i++)
+		sockets[i] = new MemorySocket();
+
+	    harness.measure("Client.<init> clients=" + clients,
+		    new Harness.Trial() {
+
+			/*
+			 * Klienterna sparas s att skapandet inte kan
+			 * optimeras bort.
+			 */
+			private final Client[] created = new Client[clients];
+
+			@Override
+			public long run() throws Exception {
+			    /*
+			     * Samma omgng upprepas tills den tagit
+			     * tillrckligt lng tid fr att kunna mtas.
+			     */
+			    final int rounds = Math.max(1, 65536 / clients);
+			    for (int round = 0; round < rounds; round++)
+				for (int i = 0; i < clients; i++)
+				    this.created[i] = new Client(sockets[i],
+					    configuration);
+			    return (long) rounds * clients;
+			}
+		    });
+	}
+    }
+}
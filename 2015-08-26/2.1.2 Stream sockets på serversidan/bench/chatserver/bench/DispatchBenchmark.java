@@ -0,0 +1,135 @@
+package chatserver.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import chatserver.service.misc.Event;
+import chatserver.service.servants.EventServant;
+
+/**
+ * Prestandamtning utav {@link EventServant#dispatchEvent(Event)}, dr ett
+ * antal avsndare - en per klient - samtidigt avfyrar hndelser som en och
+ * samma fil hanterar. Mtningen grs bde med en hndelse per uppvaknande och
+ * med satser, se {@link chatserver.service.Configuration#setEventBatchSize(int)}.
+ * <p>
+ * Hndelserna br inget meddelande, s meddelandestorleken pverkar inte
+ * denna mtning och ingr drfr inte bland dess parametrar.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class DispatchBenchmark {
+
+    /**
+     * Det antal hndelser som avfyras per omgng.
+     */
+    private final static int EVENTS = 1 << 18;
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            anvnds ej
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	run(new Harness());
+    }
+
+    /**
+     * Metod som kr mtningen fr samtliga kombinationer utav antal klienter
+     * och satsstorlekar, se {@link Benchmarks}.
+     *
+     * @param harness
+     *            den mtrigg som skall anvndas
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    static void run(Harness harness) throws Exception {
+	for (int clients : Harness.parameters("bench.clients", 1, 16, 64))
+	    for (int batch : Harness.parameters("bench.batches", 1, 0)) {
+		final AtomicLong handled = new AtomicLong(0);
+		final EventServant servant = new EventServant(
+			new LinkedBlockingQueue<Event>(), batch);
+		new Thread(new FutureTask<>(servant.getTask())).start();
+
+		/*
+		 * Avsndarnas trdar skapas innan mtningen, s att deras
+		 * kostnad inte ingr i omgngarna.
+		 */
+		final ExecutorService senders = Executors
+			.newFixedThreadPool(clients);
+		try {
+		    harness.measure("EventServant.dispatchEvent clients="
+			    + clients + " batch=" + batch,
+			    trial(servant, handled, senders, clients));
+		} finally {
+		    senders.shutdownNow();
+		    servant.stopServing();
+		}
+	    }
+    }
+
+    /**
+     * Hjlpmetod som skapar en omgng dr angivet antal avsndare avfyrar
+     * hndelser till angiven fil.
+     *
+     * @param servant
+     *            den fil som hanterar hndelserna
+     * @param handled
+     *            rknare ver hanterade hndelser
+     * @param senders
+     *            de trdar som avfyrar hndelserna
+     * @param senderCount
+     *            antalet avsndare
+     * @return omgngen
+     */
+    private static Harness.Trial trial(final EventServant servant,
+	    final AtomicLong handled, final ExecutorService senders,
+	    final int senderCount) {
+	final Event event = new Event() {
+
+	    @Override
+	    public void execute() {
+		handled.lazySet(handled.get() + 1);
+	    }
+	};
+
+	return new Harness.Trial() {
+
+	    @Override
+	    public long run() throws Exception {
+		final int perSender = Math.max(1, EVENTS / senderCount);
+		final long total = (long) perSender * senderCount;
+		final long target = handled.get() + total;
+
+		List<Future<Void>> sent = new ArrayList<>(senderCount);
+		for (int i = 0; i < senderCount; i++)
+		    sent.add(senders.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() {
+			    for (int j = 0; j < perSender; j++)
+				servant.dispatchEvent(event);
+			    return null;
+			}
+		    }));
+
+		for (Future<Void> future : sent)
+		    future.get();
+		while (handled.get() < target)
+		    LockSupport.parkNanos(1000);
+		return total;
+	    }
+	};
+    }
+}
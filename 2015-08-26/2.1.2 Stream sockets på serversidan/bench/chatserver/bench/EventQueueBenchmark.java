@@ -0,0 +1,156 @@
+package chatserver.bench;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import chatserver.service.misc.Event;
+import chatserver.service.misc.MpscRingBuffer;
+
+/**
+ * Prestandamtning som jmfr den k som
+ * {@link chatserver.service.servants.EventServant} ursprungligen anvnder,
+ * {@link LinkedBlockingQueue}, med {@link MpscRingBuffer} och dess olika
+ * strategier fr att vnta. Ett antal producenter avfyrar hndelser samtidigt
+ * medan en konsument hanterar dem, precis som nr flera klienter samtidigt
+ * skickar meddelanden till servern.
+ * <p>
+ * Krs med {@code java chatserver.bench.EventQueueBenchmark [PRODUCENTER...]}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ * @see chatserver.service.servants.EventServant
+ */
+public final class EventQueueBenchmark {
+
+    /**
+     * Det antal hndelser som avfyras per omgng om inget annat bestms via
+     * systemegenskapen {@code bench.events}.
+     */
+    private final static int EVENTS = Integer.getInteger("bench.events",
+	    1 << 20);
+
+    /**
+     * Ringbuffrarnas kapacitet, vilken motsvarar ett rimligt vrde fr
+     * {@code --ring}.
+     */
+    private final static int CAPACITY = 1 << 14;
+
+    /**
+     * En och samma hndelse avfyras genomgende, s att mtningen inte
+     * domineras utav att skapa hndelser.
+     */
+    private final static Event EVENT = new Event() {
+
+	@Override
+	public void execute() {
+	    /*
+	     * Utebliven handling.
+	     */
+	}
+    };
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            de antal producenter som skall mtas, frvalt 1 och 4
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	final Harness harness = new Harness();
+	final int[] producerCounts = args.length == 0 ? new int[] { 1, 4 }
+		: new int[args.length];
+	for (int i = 0; i < args.length; i++)
+	    producerCounts[i] = Integer.parseInt(args[i]);
+
+	for (int producers : producerCounts) {
+	    harness.measure("LinkedBlockingQueue producers=" + producers,
+		    trial(producers, new QueueFactory() {
+
+			@Override
+			public BlockingQueue<Event> create() {
+			    return new LinkedBlockingQueue<>();
+			}
+		    }));
+
+	    for (final MpscRingBuffer.WaitStrategy strategy : MpscRingBuffer.WaitStrategy
+		    .values())
+		harness.measure("MpscRingBuffer(" + strategy + ") producers="
+			+ producers, trial(producers, new QueueFactory() {
+
+		    @Override
+		    public BlockingQueue<Event> create() {
+			return new MpscRingBuffer<>(CAPACITY, strategy);
+		    }
+		}));
+	}
+    }
+
+    /**
+     * Hjlpmetod som skapar en omgng dr angivet antal producenter avfyrar
+     * hndelser till en ny k, medan den mtande trden agerar konsument.
+     *
+     * @param producers
+     *            antalet producenter
+     * @param factory
+     *            det objekt som skapar kn
+     * @return omgngen
+     */
+    private static Harness.Trial trial(final int producers,
+	    final QueueFactory factory) {
+	return new Harness.Trial() {
+
+	    @Override
+	    public long run() throws Exception {
+		final BlockingQueue<Event> queue = factory.create();
+		final CountDownLatch start = new CountDownLatch(1);
+		final int perProducer = EVENTS / producers;
+
+		Thread[] threads = new Thread[producers];
+		for (int i = 0; i < producers; i++) {
+		    threads[i] = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+			    try {
+				start.await();
+				for (int j = 0; j < perProducer; j++)
+				    queue.put(EVENT);
+			    } catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			    }
+			}
+		    });
+		    threads[i].start();
+		}
+
+		start.countDown();
+		final long total = (long) perProducer * producers;
+		for (long i = 0; i < total; i++)
+		    queue.take().execute();
+
+		for (Thread thread : threads)
+		    thread.join();
+		return total;
+	    }
+	};
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver hur kerna
+     * som mts skapas.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private interface QueueFactory {
+	/**
+	 * Den metod som skapar en ny, tom k.
+	 *
+	 * @return den nya kn
+	 */
+	BlockingQueue<Event> create();
+    }
+}
@@ -0,0 +1,295 @@
+package chatserver.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import chatserver.service.Configuration;
+import chatserver.service.Service;
+
+/**
+ * Prestandamtning utav hela utskicksvgen i
+ * {@link Service#broadcastMessage(String)}, frn det att meddelandet kodas
+ * till dess att samtliga klienter lst det ur sina sockets. Klienterna r
+ * riktiga anslutningar ver loopback-grnssnittet, vars lsare rknar de
+ * rader som tagits emot.
+ * <p>
+ * Mtningen grs fr bda motorerna, s att frndringar i den ena kan
+ * jmfras med den andra. Klienternas ker grs obegrnsade, s att inga
+ * meddelanden kastas och varje omgng levererar samtliga meddelanden.
+ * Genomstrmningen redovisas i utskick, inte i levererade meddelanden.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class FanOutBenchmark {
+
+    /**
+     * Det antal meddelanden som levereras per omgng, frdelat ver
+     * samtliga klienter.
+     */
+    private final static int DELIVERIES = 1 << 15;
+
+    /**
+     * Den lngsta tid en omgng fr ta innan mtningen avbryts.
+     */
+    private final static long TIMEOUT_NANOS = 60L * 1000 * 1000 * 1000;
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            anvnds ej
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public static void main(String[] args) throws Exception {
+	run(new Harness());
+	System.exit(0);
+    }
+
+    /**
+     * Metod som kr mtningen fr samtliga kombinationer utav motorer, antal
+     * klienter och meddelandestorlekar, se {@link Benchmarks}. Tjnsterna
+     * som startas saknar mjlighet att stngas, s anroparen br avsluta den
+     * virtuella maskinen eftert.
+     *
+     * @param harness
+     *            den mtrigg som skall anvndas
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    static void run(Harness harness) throws Exception {
+	for (Configuration.Engine engine : Configuration.Engine.values()) {
+	    final Configuration configuration = new Configuration();
+	    configuration.setEngine(engine);
+	    configuration.setOutgoingMessageLimit(Integer.MAX_VALUE);
+	    configuration.setOutgoingByteLimit(Integer.MAX_VALUE);
+
+	    final int port = freePort();
+	    final Service service = new Service(port, configuration);
+	    final AtomicInteger connected = new AtomicInteger(0);
+	    service.addServiceListener(new Service.ServiceListener() {
+
+		@Override
+		public void onClientRemovalError(String author) {
+		    /*
+		     * Utebliven handling.
+		     */
+		}
+
+		@Override
+		public void onConnectionInitializationError(String errorMessage) {
+		    System.err.println(errorMessage);
+		}
+
+		@Override
+		public void onConnectionLost() {
+		    connected.decrementAndGet();
+		}
+
+		@Override
+		public void onMessageRecieved(String room, String author,
+			String message) {
+		    /*
+		     * Utebliven handling.
+		     */
+		}
+
+		@Override
+		public void onNewConnection() {
+		    connected.incrementAndGet();
+		}
+	    });
+	    service.startServing();
+
+	    for (int clients : Harness.parameters("bench.clients", 1, 16, 64))
+		for (int size : Harness.parameters("bench.sizes", 16, 256, 4096)) {
+		    Reader[] readers = connect(port, clients, connected);
+		    try {
+			harness.measure("Service.broadcastMessage engine="
+				+ engine + " clients=" + clients + " size="
+				+ size, trial(service, readers, size));
+		    } finally {
+			disconnect(readers, connected);
+		    }
+		}
+	}
+    }
+
+    /**
+     * Hjlpmetod som skapar en omgng dr tjnsten skickar ut meddelanden
+     * utav angiven storlek till angivna klienter.
+     *
+     * @param service
+     *            tjnsten som skickar ut meddelandena
+     * @param readers
+     *            klienternas lsare
+     * @param size
+     *            meddelandenas storlek i tecken
+     * @return omgngen
+     */
+    private static Harness.Trial trial(final Service service,
+	    final Reader[] readers, int size) {
+	final String message = Harness.message(size);
+	final int broadcasts = Math.max(1, DELIVERIES / readers.length);
+
+	return new Harness.Trial() {
+
+	    @Override
+	    public long run() throws Exception {
+		for (int i = 0; i < broadcasts; i++)
+		    service.broadcastMessage(message);
+
+		final long deadline = System.nanoTime() + TIMEOUT_NANOS;
+		for (Reader reader : readers)
+		    reader.await(broadcasts, deadline);
+		return broadcasts;
+	    }
+	};
+    }
+
+    /**
+     * Hjlpmetod som ansluter angivet antal klienter till tjnsten och vntar
+     * tills tjnsten tagit emot samtliga.
+     *
+     * @param port
+     *            tjnstens ntverksport
+     * @param clients
+     *            antalet klienter
+     * @param connected
+     *            antalet klienter som tjnsten tagit emot
+     * @return klienternas lsare
+     * @throws IOException
+     *             om en klient inte kunde anslutas
+     * @throws TimeoutException
+     *             om tjnsten inte tog emot samtliga klienter i tid
+     */
+    private static Reader[] connect(int port, int clients,
+	    AtomicInteger connected) throws IOException, TimeoutException {
+	final int expected = connected.get() + clients;
+
+	Reader[] readers = new Reader[clients];
+	for (int i = 0; i < clients; i++) {
+	    readers[i] = new Reader(new Socket("127.0.0.1", port));
+	    readers[i].start();
+	}
+
+	awaitCount(connected, expected);
+	return readers;
+    }
+
+    /**
+     * Hjlpmetod som kopplar ifrn angivna klienter och vntar tills
+     * tjnsten tagit bort samtliga.
+     *
+     * @param readers
+     *            klienternas lsare
+     * @param connected
+     *            antalet klienter som tjnsten tagit emot
+     * @throws IOException
+     *             om en klient inte kunde kopplas ifrn
+     * @throws TimeoutException
+     *             om tjnsten inte tog bort samtliga klienter i tid
+     */
+    private static void disconnect(Reader[] readers, AtomicInteger connected)
+	    throws IOException, TimeoutException {
+	for (Reader reader : readers)
+	    reader.socket.close();
+	awaitCount(connected, 0);
+    }
+
+    /*
+     * Hjlpmetod som vntar tills rknaren ntt angivet vrde.
+     */
+    private static void awaitCount(AtomicInteger counter, int expected)
+	    throws TimeoutException {
+	final long deadline = System.nanoTime() + TIMEOUT_NANOS;
+	while (counter.get() != expected) {
+	    if (System.nanoTime() > deadline)
+		throw new TimeoutException("Tjnsten har " + counter.get()
+			+ " klienter, frvntat " + expected + "!");
+	    LockSupport.parkNanos(1000000);
+	}
+    }
+
+    /*
+     * Hjlpmetod som returnerar en ntverksport som fr tillfllet r ledig.
+     */
+    private static int freePort() throws IOException {
+	try (ServerSocket probe = new ServerSocket(0)) {
+	    return probe.getLocalPort();
+	}
+    }
+
+    /**
+     * Trd som lser allt en klient tar emot och rknar antalet rader.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private final static class Reader extends Thread {
+	private final Socket socket;
+	private final AtomicLong lines = new AtomicLong(0);
+
+	/**
+	 * Det antal rader som redan rknats in i tidigare omgngar.
+	 */
+	private long consumed = 0;
+
+	Reader(Socket socket) {
+	    this.socket = socket;
+	    setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+	    byte[] buffer = new byte[65536];
+	    try {
+		InputStream input = this.socket.getInputStream();
+		int read;
+		while ((read = input.read(buffer)) >= 0) {
+		    long count = 0;
+		    for (int i = 0; i < read; i++)
+			if (buffer[i] == '\n')
+			    count++;
+		    if (count > 0)
+			this.lines.addAndGet(count);
+		}
+	    } catch (IOException e) {
+		/*
+		 * Socket'en stngs nr mtningen r klar.
+		 */
+	    }
+	}
+
+	/**
+	 * Metod som vntar tills klienten tagit emot angivet antal rader
+	 * sedan frra omgngen.
+	 *
+	 * @param count
+	 *            antalet rader
+	 * @param deadline
+	 *            den tidpunkt, enligt {@link System#nanoTime()}, d
+	 *            vntandet avbryts
+	 * @throws TimeoutException
+	 *             om raderna inte tagits emot i tid
+	 */
+	void await(long count, long deadline) throws TimeoutException {
+	    final long target = this.consumed + count;
+	    while (this.lines.get() < target) {
+		if (System.nanoTime() > deadline)
+		    throw new TimeoutException("Enbart "
+			    + (this.lines.get() - this.consumed) + " utav "
+			    + count + " meddelanden togs emot!");
+		LockSupport.parkNanos(1000);
+	    }
+	    this.consumed = target;
+	}
+    }
+}
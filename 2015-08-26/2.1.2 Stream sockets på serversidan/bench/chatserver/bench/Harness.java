@@ -0,0 +1,149 @@
+package chatserver.bench;
+
+import java.util.Locale;
+
+/**
+ * Klass som utgr en enkel mtrigg fr prestandamtningar utan externa
+ * beroenden. Varje mtning bestr utav ett antal uppvrmningsomgngar, vars
+ * resultat frkastas s att JIT-kompilatorn hinner optimera koden, fljt utav
+ * ett antal mtomgngar vars genomstrmning redovisas som medelvrde och
+ * standardavvikelse - p samma stt som JMH redovisar lget
+ * {@code Throughput}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Harness {
+
+    /**
+     * Det antal uppvrmnings- respektive mtomgngar som anvnds om inget
+     * annat bestms via systemegenskaperna {@code bench.warmups} och
+     * {@code bench.iterations}.
+     */
+    public final static int DEFAULT_WARMUPS = 5;
+    public final static int DEFAULT_ITERATIONS = 10;
+
+    private final int warmups;
+    private final int iterations;
+
+    /**
+     * Skapar ett objekt utav klassen {@link Harness} med det antal omgngar
+     * som angivits via systemegenskaperna, eller frvalda antal.
+     */
+    public Harness() {
+	this(Integer.getInteger("bench.warmups", DEFAULT_WARMUPS), Integer
+		.getInteger("bench.iterations", DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * Skapar ett objekt utav klassen {@link Harness}.
+     *
+     * @param warmups
+     *            antalet uppvrmningsomgngar
+     * @param iterations
+     *            antalet mtomgngar
+     */
+    public Harness(int warmups, int iterations) {
+	this.warmups = warmups;
+	this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Metod som utfr en mtning och skriver ut dess resultat.
+     *
+     * @param name
+     *            mtningens namn, inklusive dess parametrar
+     * @param trial
+     *            den omgng som skall mtas
+     * @return genomstrmningens medelvrde i operationer per millisekund
+     * @throws Exception
+     *             ifall en omgng misslyckas
+     */
+    public double measure(String name, Trial trial) throws Exception {
+	for (int i = 0; i < this.warmups; i++)
+	    trial.run();
+
+	double[] throughput = new double[this.iterations];
+	for (int i = 0; i < this.iterations; i++) {
+	    long start = System.nanoTime();
+	    long operations = trial.run();
+	    long elapsed = System.nanoTime() - start;
+	    throughput[i] = operations / (elapsed / 1e6);
+	}
+
+	double mean = 0;
+	for (double value : throughput)
+	    mean += value;
+	mean /= throughput.length;
+
+	double variance = 0;
+	for (double value : throughput)
+	    variance += (value - mean) * (value - mean);
+	double deviation = Math.sqrt(variance
+		/ Math.max(1, throughput.length - 1));
+
+	System.out.println(String.format(Locale.ROOT,
+		"%-64s %14.1f +/- %10.1f ops/ms", name, mean, deviation));
+	return mean;
+    }
+
+    /**
+     * Metod som returnerar de parametervrden en mtning skall kras med,
+     * angivna som en kommaseparerad lista i en systemegenskap - till exempel
+     * {@code -Dbench.clients=1,16,64}.
+     *
+     * @param property
+     *            systemegenskapens namn
+     * @param defaults
+     *            de vrden som anvnds om systemegenskapen saknas
+     * @return parametervrdena
+     * @throws NumberFormatException
+     *             om ett vrde inte r ett heltal
+     */
+    public static int[] parameters(String property, int... defaults)
+	    throws NumberFormatException {
+	final String value = System.getProperty(property);
+	if (value == null || value.trim().isEmpty())
+	    return defaults;
+
+	final String[] parts = value.split(",");
+	int[] parameters = new int[parts.length];
+	for (int i = 0; i < parts.length; i++)
+	    parameters[i] = Integer.parseInt(parts[i].trim());
+	return parameters;
+    }
+
+    /**
+     * Metod som skapar ett meddelande utav angiven lngd, exklusive
+     * radbrytning.
+     *
+     * @param size
+     *            meddelandets lngd i tecken
+     * @return meddelandet
+     */
+    public static String message(int size) {
+	char[] characters = new char[size];
+	for (int i = 0; i < size; i++)
+	    characters[i] = (char) ('a' + i % 26);
+	return new String(characters);
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver en omgng i
+     * en mtning.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Trial {
+	/**
+	 * Den metod som utfr omgngen. Enbart tiden fr denna metod mts, s
+	 * frberedelser som inte skall mtas br gras innan mtningen.
+	 *
+	 * @return antalet operationer som utfrts under omgngen
+	 * @throws Exception
+	 *             ifall omgngen misslyckas
+	 */
+	long run() throws Exception;
+    }
+}
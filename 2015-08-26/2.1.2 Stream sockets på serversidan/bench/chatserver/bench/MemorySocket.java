@@ -0,0 +1,61 @@
+package chatserver.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Klass som utgr en socket utan ngon egentlig anslutning, avsedd att
+ * erstta en riktig socket i prestandamtningar. Lsning sker ur en tom
+ * strm, medan allt som skrivs rknas och sedan kastas - s att mtningen
+ * enbart fngar kostnaden i serverns egen kod, och inte i ntverket.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+final class MemorySocket extends Socket {
+
+    private final InputStream input = new ByteArrayInputStream(new byte[0]);
+    private final CountingOutputStream output = new CountingOutputStream();
+
+    @Override
+    public InputStream getInputStream() {
+	return this.input;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+	return this.output;
+    }
+
+    /**
+     * Metod som returnerar det antal bytes som skrivits till socket'en.
+     *
+     * @return antalet skrivna bytes
+     */
+    long getWrittenBytes() {
+	return this.output.written;
+    }
+
+    /**
+     * Strm som rknar antalet bytes som skrivs till den, och sedan kastar
+     * dem.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private final static class CountingOutputStream extends OutputStream {
+	private long written = 0;
+
+	@Override
+	public void write(int b) {
+	    this.written++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+	    this.written += len;
+	}
+    }
+}
@@ -2,18 +2,24 @@ package chatserver;
 
 import java.io.IOException;
 import java.net.BindException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import chatserver.console.Console;
+import chatserver.gui.Frontend;
 import chatserver.gui.GUI;
 import chatserver.mediator.Mediator;
+import chatserver.service.Configuration;
 import chatserver.service.Service;
+import chatserver.service.misc.MpscRingBuffer;
 
 /**
  * Tillmpningsprogram som knyter samman alla delaktiga komponenter till en
  * fungerande chat-server. Startas genom att antingen anropas utan argument,
  * vilket d startar en chat-server som lyssnar p port {@code 2000}, eller
  * ocks kan tillmpningsprogrammet startas med ett argument som d utgr en
- * specifierad port chat-servern skall lyssna p.
+ * specifierad port chat-servern skall lyssna p. Fre porten kan ven flaggor
+ * anges som bestmmer hur tjnsten skall drivas, se {@link #USAGE}.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
@@ -26,8 +32,39 @@ public class Server {
     public final static int DEFAULT_PORT = 2000;
 
     /**
-     * Instansierar ett nytt objekt utav klassen {@link Server}. Ntverksporten
-     * som anvnds specifieras utav anvndaren.
+     * Text som beskriver hur tillmpningsprogrammet skall startas.
+     */
+    public final static String USAGE = "Anvndning:\nServer [FLAGGOR] [PORT]\n"
+	    + "\t--headless\tkrs utan fnster, meddelanden skrivs ut p\n"
+	    + "\t\t\tstandard ut och rader p standard in skickas ut\n"
+	    + "\t--quiet\t\tkrs utan fnster och utan ngon utskrift\n"
+	    + "\t--nio[=ANTAL]\tdriver klienterna med icke-blockerande\n"
+	    + "\t\t\thndelseloopar istllet fr en trd per klient\n"
+	    + "\t--virtual\texekverar samtliga tjnare med virtuella\n"
+	    + "\t\t\ttrdar (krver Java 21)\n"
+	    + "\t--lanes=ANTAL\tfrdelar tjnstens hndelser ver flera\n"
+	    + "\t\t\ttrdar, med en trd per fil\n"
+	    + "\t--ring=KAPACITET\tanvnder frallokerade ringbuffrar som\n"
+	    + "\t\t\thndelseker\n"
+	    + "\t--wait=STRATEGI\tbestmmer hur ringbuffrarna vntar:\n"
+	    + "\t\t\tblock, spin-then-park (frval) eller yield\n"
+	    + "\t--batch[=ANTAL]\thanterar upp till ANTAL vntande hndelser\n"
+	    + "\t\t\tper uppvaknande, utan ANTAL samtliga\n"
+	    + "\t--max-messages=ANTAL\tbegrnsar antalet vntande meddelanden\n"
+	    + "\t\t\tper klient\n"
+	    + "\t--max-bytes=ANTAL\tbegrnsar antalet vntande bytes per klient\n"
+	    + "\t--overflow=HANTERING\tbestmmer vad som sker nr en klients k\n"
+	    + "\t\t\tr full: drop-oldest, drop-newest eller\n"
+	    + "\t\t\tdisconnect\n"
+	    + "\t--tcp-nodelay\tstnger av Nagles algoritm fr klienterna\n"
+	    + "\t--send-buffer=BYTES\tstorleken p varje anslutnings\n"
+	    + "\t\t\tutgende buffer\n"
+	    + "\t--receive-buffer=BYTES\tstorleken p varje anslutnings\n"
+	    + "\t\t\tinkommande buffer";
+
+    /**
+     * Instansierar ett nytt objekt utav klassen {@link Server} med frvalda
+     * instllningar. Ntverksporten som anvnds specifieras utav anvndaren.
      * 
      * @param port
      *            den ntverksport som skall anvndas av servern
@@ -47,17 +84,90 @@ public class Server {
      */
     public Server(int port) throws BindException, IllegalArgumentException,
 	    IOException, InterruptedException, ExecutionException {
+	this(port, new Configuration());
+    }
+
+    /**
+     * Instansierar ett nytt objekt utav klassen {@link Server}. Ntverksporten
+     * samt instllningarna som anvnds specifieras utav anvndaren.
+     * 
+     * @param port
+     *            den ntverksport som skall anvndas av servern
+     * @param configuration
+     *            de instllningar som bestmmer hur tjnsten skall drivas
+     *
+     * @throws BindException
+     *             om ntverksporten inte gr att lyssna p
+     * @throws IllegalArgumentException
+     *             om angiven ntverksport inte r en giltig sdan
+     * @throws IOException
+     *             vid problem orsakat nr en socket initieras fr att lyssna p
+     *             bestmd port
+     * @throws InterruptedException
+     *             om bygget utav det grafiska anvndargrnssnittet avbrts
+     * @throws ExecutionException
+     *             om bygget utav det grafiska anvndargrnssnittet inte kunde
+     *             slutfras
+     */
+    public Server(int port, Configuration configuration)
+	    throws BindException, IllegalArgumentException, IOException,
+	    InterruptedException, ExecutionException {
+	this(port, configuration, Mode.GUI);
+    }
+
+    /**
+     * Instansierar ett nytt objekt utav klassen {@link Server}. Ntverksporten,
+     * instllningarna samt grnssnittet mot anvndaren specifieras utav
+     * anvndaren.
+     * 
+     * @param port
+     *            den ntverksport som skall anvndas av servern
+     * @param configuration
+     *            de instllningar som bestmmer hur tjnsten skall drivas
+     * @param mode
+     *            det grnssnitt mot anvndaren som servern skall ha
+     *
+     * @throws BindException
+     *             om ntverksporten inte gr att lyssna p
+     * @throws IllegalArgumentException
+     *             om angiven ntverksport inte r en giltig sdan
+     * @throws IOException
+     *             vid problem orsakat nr en socket initieras fr att lyssna p
+     *             bestmd port
+     * @throws InterruptedException
+     *             om bygget utav det grafiska anvndargrnssnittet avbrts
+     * @throws ExecutionException
+     *             om bygget utav det grafiska anvndargrnssnittet inte kunde
+     *             slutfras
+     */
+    public Server(int port, Configuration configuration, Mode mode)
+	    throws BindException, IllegalArgumentException, IOException,
+	    InterruptedException, ExecutionException {
 
 	/*
 	 * Instansierar ett nytt objekt utav tjnst-klassen.
 	 */
-	final Service service = new Service(port);
+	final Service service = new Service(port, configuration);
 
 	/*
-	 * Instansierar ett nytt objekt utav den grafiska
-	 * anvndergrnssnitts-klassen.
+	 * Instansierar grnssnittet mot anvndaren. Utan fnster s startas
+	 * varken AWT eller Swing.
 	 */
-	final GUI gui = new GUI();
+	final Frontend frontend;
+	switch (mode) {
+
+	case HEADLESS:
+	    frontend = new Console();
+	    break;
+
+	case QUIET:
+	    frontend = createSilentFrontend();
+	    break;
+
+	default:
+	    frontend = new GUI();
+	    break;
+	}
 
 	/*
 	 * Instansierar ett nytt objekt utav den mellanliggande
@@ -65,7 +175,7 @@ public class Server {
 	 */
 	final Mediator mediator = new Mediator();
 	mediator.registerService(service);
-	mediator.registerGUI(gui);
+	mediator.registerFrontend(frontend);
     }
 
     /**
@@ -73,25 +183,51 @@ public class Server {
      * 
      * @param args
      *            ntverksporten gr att specifiera genom att skicka med denna
-     *            som ett argument. I annat fall anvnds ntverksporten
-     *            {@link #DEFAULT_PORT}.
+     *            som sista argument. I annat fall anvnds ntverksporten
+     *            {@link #DEFAULT_PORT}. Argument som inleds med {@code --}
+     *            tolkas som flaggor.
      */
     public static void main(String[] args) {
+	final Configuration configuration = new Configuration();
+	Mode mode = Mode.GUI;
 	final int port;
 
+	/*
+	 * Flaggorna tolkas frst. Gr ngon inte att tolka s skrivs
+	 * anvndningen ut och applikationen avslutas.
+	 */
+	int position = 0;
+	while (position < args.length && args[position].startsWith("--")) {
+	    try {
+		if (args[position].equals("--headless"))
+		    mode = Mode.HEADLESS;
+		else if (args[position].equals("--quiet"))
+		    mode = Mode.QUIET;
+		else if (!configure(configuration, args[position])) {
+		    System.out.println(USAGE);
+		    return;
+		}
+	    } catch (IllegalArgumentException e) {
+		System.out.println("Ogiltig flagga " + args[position] + ": "
+			+ e.getMessage());
+		return;
+	    }
+	    position++;
+	}
+
 	try {
-	    switch (args.length) {
+	    switch (args.length - position) {
 
 	    case 0:
-		new Server(DEFAULT_PORT);
+		new Server(DEFAULT_PORT, configuration, mode);
 		break;
 
 	    case 1:
-		port = Integer.parseInt(args[0]);
-		new Server(port);
+		port = Integer.parseInt(args[position]);
+		new Server(port, configuration, mode);
 		break;
 	    default:
-		System.out.println("Anvndning:\nServer [PORT]");
+		System.out.println(USAGE);
 		break;
 	    }
 	} catch (IllegalArgumentException e) {
@@ -125,4 +261,197 @@ public class Server {
 	    e.printStackTrace();
 	}
     }
+
+    /**
+     * Hjlpmetod som tolkar en flagga och uppdaterar instllningarna drefter.
+     * En flagga har formen {@code --NAMN} eller {@code --NAMN=VRDE}.
+     * 
+     * @param configuration
+     *            de instllningar som skall uppdateras
+     * @param option
+     *            flaggan som skall tolkas
+     * @return {@code true} om flaggan kunde tolkas, i annat fall {@code false}
+     * @throws IllegalArgumentException
+     *             om flaggans vrde inte r ett giltigt sdant
+     */
+    private static boolean configure(Configuration configuration, String option)
+	    throws IllegalArgumentException {
+
+	final int separator = option.indexOf('=');
+	final String name = separator < 0 ? option : option.substring(0,
+		separator);
+	final String value = separator < 0 ? null : option
+		.substring(separator + 1);
+
+	switch (name) {
+
+	case "--nio":
+	    configuration.setEngine(Configuration.Engine.SELECTOR);
+	    if (value != null)
+		configuration.setSelectorCount(Integer.parseInt(value));
+	    return true;
+
+	case "--virtual":
+	    configuration.setVirtualThreads(true);
+	    return true;
+
+	case "--lanes":
+	    if (value == null)
+		return false;
+	    configuration.setEventLaneCount(Integer.parseInt(value));
+	    return true;
+
+	case "--ring":
+	    if (value == null)
+		return false;
+	    configuration.setEventQueueCapacity(Integer.parseInt(value));
+	    return true;
+
+	case "--wait":
+	    if (value == null)
+		return false;
+	    configuration.setEventWaitStrategy(parse(
+		    MpscRingBuffer.WaitStrategy.class, value));
+	    return true;
+
+	case "--batch":
+	    configuration.setEventBatchSize(value == null ? 0 : Integer
+		    .parseInt(value));
+	    return true;
+
+	case "--max-messages":
+	    if (value == null)
+		return false;
+	    configuration.setOutgoingMessageLimit(Integer.parseInt(value));
+	    return true;
+
+	case "--max-bytes":
+	    if (value == null)
+		return false;
+	    configuration.setOutgoingByteLimit(Integer.parseInt(value));
+	    return true;
+
+	case "--overflow":
+	    if (value == null)
+		return false;
+	    configuration.setOverflowPolicy(parse(
+		    Configuration.OverflowPolicy.class, value));
+	    return true;
+
+	case "--tcp-nodelay":
+	    if (value != null)
+		return false;
+	    configuration.setTcpNoDelay(true);
+	    return true;
+
+	case "--send-buffer":
+	    if (value == null)
+		return false;
+	    configuration.setSendBufferSize(Integer.parseInt(value));
+	    return true;
+
+	case "--receive-buffer":
+	    if (value == null)
+		return false;
+	    configuration.setReceiveBufferSize(Integer.parseInt(value));
+	    return true;
+
+	default:
+	    return false;
+	}
+    }
+
+    /**
+     * Hjlpmetod som skapar ett grnssnitt mot anvndaren som varken visar
+     * ngot eller tar emot ngon inmatning.
+     * 
+     * @return det tysta grnssnittet
+     */
+    private static Frontend createSilentFrontend() {
+	return new Frontend() {
+
+	    @Override
+	    public void enableInput(boolean enable) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public boolean isReady() {
+		return true;
+	    }
+
+	    @Override
+	    public CompletableFuture<Void> getReadiness() {
+		return CompletableFuture.completedFuture(null);
+	    }
+
+	    @Override
+	    public void printMessage(String message) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void registerDelegate(Delegate delegate) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+
+	    @Override
+	    public void setTitle(String newTitle) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+	};
+    }
+
+    /**
+     * Hjlpmetod som verstter ett vrde angivet p kommandoraden, till
+     * exempel {@code drop-oldest}, till motsvarande upprkningsvrde.
+     * 
+     * @param type
+     *            den upprkning vrdet tillhr
+     * @param value
+     *            vrdet som skall versttas
+     * @return motsvarande upprkningsvrde
+     * @throws IllegalArgumentException
+     *             om vrdet inte finns i upprkningen
+     */
+    private static <T extends Enum<T>> T parse(Class<T> type, String value)
+	    throws IllegalArgumentException {
+	for (T constant : type.getEnumConstants())
+	    if (constant.name().replace('_', '-').equalsIgnoreCase(value))
+		return constant;
+	throw new IllegalArgumentException("Oknt vrde!");
+    }
+
+    /**
+     * Upprkning ver de grnssnitt mot anvndaren som servern kan ha.
+     * 
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum Mode {
+	/**
+	 * Det grafiska anvndargrnssnittet, se {@link chatserver.gui.GUI}.
+	 */
+	GUI,
+
+	/**
+	 * Ett grnssnitt utan fnster som anvnder standard in och standard
+	 * ut, se {@link Console}.
+	 */
+	HEADLESS,
+
+	/**
+	 * Inget grnssnitt alls - servern varken visar ngot eller tar emot
+	 * ngon inmatning.
+	 */
+	QUIET
+    }
 }
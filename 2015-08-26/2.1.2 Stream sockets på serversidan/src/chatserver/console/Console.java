@@ -0,0 +1,222 @@
+package chatserver.console;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatserver.gui.Frontend;
+
+/**
+ * Klass som utgr serverns grnssnitt mot anvndaren nr servern krs utan
+ * fnster. Meddelanden skrivs ut p standard ut, medan rader som matas in p
+ * standard in skickas vidare precis som frn det grafiska
+ * anvndargrnssnittets inmatningsflt.
+ * <p>
+ * Utskriften sker frn en egen trd via en begrnsad k, s att den trd som
+ * hanterar ett meddelande aldrig behver vnta p terminalen. Hinner
+ * terminalen inte med s utelmnas rader, och antalet utelmnade rader skrivs
+ * ut nr utskriften kommit ikapp. Ingen historik ver meddelanden sparas.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Console implements Frontend {
+
+    /**
+     * Det kommando som skriver ut serverns aktuella status, vilket i det
+     * grafiska anvndargrnssnittet visas som fnstrets titel.
+     */
+    public final static String STATUS_COMMAND = "/status";
+
+    /**
+     * Det antal rader som hgst vntar p att skrivas ut.
+     */
+    public final static int PENDING_LINE_LIMIT = 1024;
+
+    private volatile Delegate delegate;
+    private volatile String title = "";
+
+    private final InputStream input;
+    private final PrintStream output;
+    private final BlockingQueue<String> pendingLines = new ArrayBlockingQueue<>(
+	    PENDING_LINE_LIMIT);
+    private final AtomicLong droppedLines = new AtomicLong(0);
+    private final AtomicBoolean inputStarted = new AtomicBoolean(false);
+
+    /**
+     * Skapar ett objekt utav klassen {@link Console} som lser frn standard
+     * in och skriver till standard ut.
+     */
+    public Console() {
+	this(System.in, System.out);
+    }
+
+    /**
+     * Skapar ett objekt utav klassen {@link Console}.
+     *
+     * @param input
+     *            den strm som anvndarens rader lses ifrn
+     * @param output
+     *            den strm som meddelanden skrivs till
+     */
+    public Console(InputStream input, PrintStream output) {
+	this.input = input;
+	this.output = output;
+
+	/*
+	 * Objektets delegerade "call-back"-metod(er) instanseras till att inte
+	 * gra ngot vid ngon hndelse ver huvud taget. Detta fr att undvika
+	 * att instansvariabeln istllet pekar mot null.
+	 */
+	this.delegate = new Delegate() {
+
+	    @Override
+	    public void onMessageSending(String message) {
+		/*
+		 * Utebliven handling.
+		 */
+	    }
+	};
+
+	Thread printer = new Thread(new Runnable() {
+
+	    @Override
+	    public void run() {
+		print();
+	    }
+	}, "console-output");
+	printer.setDaemon(true);
+	printer.start();
+    }
+
+    /**
+     * Metod fr att tillta att anvndaren matar in rader p standard in.
+     * Inmatningen pbrjas frsta gngen den tillts, och kan drefter inte
+     * frnekas.
+     *
+     * @param enable
+     *            tilltelse
+     */
+    @Override
+    public void enableInput(boolean enable) {
+	if (!enable || !this.inputStarted.compareAndSet(false, true))
+	    return;
+
+	Thread reader = new Thread(new Runnable() {
+
+	    @Override
+	    public void run() {
+		read();
+	    }
+	}, "console-input");
+	reader.setDaemon(true);
+	reader.start();
+    }
+
+    /**
+     * Grnssnittet saknar fnster och r drmed alltid redo.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isReady() {
+	return true;
+    }
+
+    /**
+     * Grnssnittet saknar fnster och r drmed alltid redo.
+     *
+     * @return en redan fullbordad framtid
+     */
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+	return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Metod fr att skriva ut ett meddelande. r kn ver rader som vntar
+     * p att skrivas ut full s utelmnas meddelandet.
+     *
+     * @param message
+     *            meddelandet som skall skrivas ut
+     */
+    @Override
+    public void printMessage(String message) {
+	if (!this.pendingLines.offer(message))
+	    this.droppedLines.incrementAndGet();
+    }
+
+    @Override
+    public void registerDelegate(Delegate delegate) {
+	this.delegate = delegate;
+    }
+
+    /**
+     * Metod fr att byta serverns statustext. Statustexten skrivs inte ut
+     * direkt - d den byts vid varje ny anslutning - utan frst nr anvndaren
+     * matar in {@value #STATUS_COMMAND}.
+     *
+     * @param newTitle
+     *            den nya statustexten
+     */
+    @Override
+    public void setTitle(String newTitle) {
+	this.title = newTitle;
+    }
+
+    /*
+     * Hjlpmetod som utgr utskriftstrdens loop. Strmmen spolas frst nr
+     * kn tmts, s att en skur utav rader skrivs ut tillsammans.
+     */
+    private void print() {
+	try {
+	    while (true) {
+		String line = this.pendingLines.take();
+		do {
+		    this.output.println(line);
+		} while ((line = this.pendingLines.poll()) != null);
+
+		final long dropped = this.droppedLines.getAndSet(0);
+		if (dropped > 0)
+		    this.output.println("... " + dropped
+			    + " rader utelmnades");
+		this.output.flush();
+	    }
+	} catch (InterruptedException e) {
+	    /*
+	     * Utskriften avslutas.
+	     */
+	}
+    }
+
+    /*
+     * Hjlpmetod som utgr inmatningstrdens loop. Kommandot fr status
+     * hanteras hr, medan vriga rader skickas vidare till delegatet.
+     */
+    private void read() {
+	BufferedReader reader = new BufferedReader(new InputStreamReader(
+		this.input, Charset.defaultCharset()));
+	try {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		if (STATUS_COMMAND.equals(line.trim()))
+		    printMessage(this.title);
+		else if (!line.isEmpty())
+		    this.delegate.onMessageSending(line);
+	    }
+	} catch (IOException e) {
+	    /*
+	     * Standard in stngdes - servern fortstter att kras utan
+	     * inmatning.
+	     */
+	}
+    }
+}
@@ -0,0 +1,82 @@
+package chatserver.gui;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Grnssnitt som beskriver serverns grnssnitt mot anvndaren, vilket antingen
+ * kan vara det grafiska anvndargrnssnittet {@link GUI} eller ett
+ * grnssnitt utan fnster, till exempel {@link chatserver.console.Console}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public interface Frontend {
+
+    /**
+     * Metod fr att tillta eller frneka att anvndaren kan mata in
+     * meddelanden.
+     *
+     * @param enable
+     *            tilltelse
+     */
+    void enableInput(boolean enable);
+
+    /**
+     * Metod fr att kolla upp huruvida grnssnittet r redo eller inte.
+     *
+     * @return {@code true} om redo, i annat fall {@code false}
+     */
+    boolean isReady();
+
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort grnssnittet r
+     * redo.
+     *
+     * @return framtiden
+     */
+    CompletableFuture<Void> getReadiness();
+
+    /**
+     * Metod fr att visa ett meddelande fr anvndaren.
+     *
+     * @param message
+     *            meddelandet som skall visas
+     */
+    void printMessage(String message);
+
+    /**
+     * Metod fr att registrera ett delegat-objekt som implementerar
+     * grnssnittet {@link Delegate}.
+     *
+     * @param delegate
+     *            det delegat-objekt som skall registreras utav objektet
+     */
+    void registerDelegate(Delegate delegate);
+
+    /**
+     * Metod fr att byta den text som beskriver serverns aktuella status.
+     *
+     * @param newTitle
+     *            den nya statustexten
+     */
+    void setTitle(String newTitle);
+
+    /**
+     * Det till detta grnssnitt tillhrande grnssnitt som beskriver den eller
+     * dem delegerade "call-back" metod(er) som internt skall anropas av det
+     * gande objeket vid olika scenarion.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    interface Delegate {
+	/**
+	 * Den metod som internt anropas nr ett meddelande skall sndas frn
+	 * servern.
+	 *
+	 * @param message
+	 *            det meddelande som skall skickas
+	 */
+	void onMessageSending(String message);
+    }
+}
@@ -7,6 +7,7 @@ import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 
@@ -15,7 +16,6 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.WindowConstants;
 
@@ -26,11 +26,16 @@ import javax.swing.WindowConstants;
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
  */
-public final class GUI {
+public final class GUI implements Frontend {
     private Delegate delegate;
     private final JFrame frame;
+
+    /**
+     * Den framtid som fullbordas s fort fnstret r frdigbyggt.
+     */
+    private final CompletableFuture<Void> readiness = new CompletableFuture<>();
     private JTextField inputField;
-    private JTextArea outputArea;
+    private Transcript outputArea;
 
     /**
      * Skapar ett objekt utav det grafiska anvndargrnssnittet. Anvnder sig
@@ -65,6 +70,12 @@ public final class GUI {
 	 * frdigbyggt fnster.
 	 */
 	this.frame = initializeFrame(this);
+
+	/*
+	 * Fnstret r frdigbyggt - de som vntar p att det grafiska
+	 * anvndargrnssnittet skall bli redo meddelas.
+	 */
+	this.readiness.complete(null);
     }
 
     /**
@@ -153,17 +164,18 @@ public final class GUI {
 			tmpFrame.add(northPanel, BorderLayout.NORTH);
 
 			/*
-			 * Instansierar den textarea som skall anvndas.
+			 * Instansierar den logg som skall anvndas. Loggen
+			 * sparar enbart de senaste raderna och ritar enbart de
+			 * rader som syns.
 			 */
-			gui.outputArea = new JTextArea(5, 30);
+			gui.outputArea = new Transcript(5, 30);
 
 			/*
-			 * Anpassar egenskaperna fr en text-area och placerar
-			 * sedan denna i en scrollbar panel som i sin tur
-			 * placeras i fnstret. I denna area ska mottagna
-			 * meddelanden visas.
+			 * Anpassar egenskaperna fr loggen och placerar sedan
+			 * denna i en scrollbar panel som i sin tur placeras i
+			 * fnstret. I denna logg ska mottagna meddelanden
+			 * visas.
 			 */
-			gui.outputArea.setEditable(false);
 			gui.outputArea.setBackground(Color.BLACK);
 			gui.outputArea.setForeground(Color.GREEN);
 			JScrollPane outputPane = new JScrollPane(gui.outputArea);
@@ -204,6 +216,7 @@ public final class GUI {
      * @param enable
      *            tilltelse
      */
+    @Override
     public final void enableInput(boolean enable) {
 	EventQueue.invokeLater(new Runnable() {
 	    @Override
@@ -227,23 +240,35 @@ public final class GUI {
      * 
      * @return {@code true} om redo, i annat fall {@code false}
      */
+    @Override
     public final boolean isReady() {
 	return (this.frame != null);
     }
 
     /**
-     * Metod fr att grafisk visa ett meddelande i text-arean.
+     * Metod som returnerar en framtid som fullbordas s fort det grafiska
+     * anvndargrnssnittet r redo, det vill sga instansierat och fullt
+     * uppbyggt. Till skillnad frn {@link #isReady()} s behver den som
+     * vntar inte frga om och om igen.
+     * 
+     * @return framtiden
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+	return this.readiness;
+    }
+
+    /**
+     * Metod fr att grafisk visa ett meddelande i loggen. Metoden kan anropas
+     * frn vilken trd som helst, d loggen sjlv samlar ihop meddelandena
+     * till hndelsetrden.
      * 
      * @param message
      *            meddelandet som skall visas
      */
+    @Override
     public final void printMessage(String message) {
-	EventQueue.invokeLater(new Runnable() {
-	    @Override
-	    public void run() {
-		GUI.this.outputArea.append(message + '\n');
-	    }
-	});
+	this.outputArea.append(message);
     }
 
     /**
@@ -253,6 +278,7 @@ public final class GUI {
      * @param delegate
      *            det delegat-objekt som skall registreras utav objektet
      */
+    @Override
     public void registerDelegate(Delegate delegate) {
 	this.delegate = delegate;
     }
@@ -264,6 +290,7 @@ public final class GUI {
      * @param newTitle
      *            den nya titeln
      */
+    @Override
     public final void setTitle(String newTitle) {
 	EventQueue.invokeLater(new Runnable() {
 	    @Override
@@ -272,23 +299,4 @@ public final class GUI {
 	    }
 	});
     }
-
-    /**
-     * Det till denna klass tillhrande grnssnitt som beskriver den eller dem
-     * delegerade "call-back" metod(er) som internt skall anropas av det gande
-     * objeket vid olika scenarion.
-     * 
-     * @author Atilla zkan | 930304-4474 | atoz0393
-     * @version 1.0
-     */
-    public interface Delegate {
-	/**
-	 * Den metod som internt anropas nr ett meddelande skall sndas frn
-	 * servern.
-	 * 
-	 * @param message
-	 *            det meddelande som skall skickas
-	 */
-	void onMessageSending(String message);
-    }
 }
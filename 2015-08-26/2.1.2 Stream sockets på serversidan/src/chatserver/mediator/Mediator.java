@@ -1,10 +1,6 @@
 package chatserver.mediator;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-
+import chatserver.gui.Frontend;
 import chatserver.gui.GUI;
 import chatserver.service.Service;
 
@@ -16,8 +12,16 @@ import chatserver.service.Service;
  * @version 1.0
  */
 public final class Mediator {
+
+    /**
+     * Det kommando som, nr det skrivs i det grafiska anvndargrnssnittets
+     * inmatningsflt, skriver ut statistik ver tjnstens hndelser istllet
+     * fr att skicka ett meddelande.
+     */
+    public final static String STATISTICS_COMMAND = "/stats";
+
     private boolean bundlingInitiated = false;
-    private GUI gui;
+    private Frontend gui;
     private Service service;
 
     /**
@@ -35,12 +39,21 @@ public final class Mediator {
      * @param gui
      *            det objekt som skall lts sig registreras som serverns
      *            grafiska anvndargrnssnitt
-     * @throws ExecutionException
-     * @throws InterruptedException
      */
-    public void registerGUI(GUI gui) throws InterruptedException,
-	    ExecutionException {
-	this.gui = gui;
+    public void registerGUI(GUI gui) {
+	registerFrontend(gui);
+    }
+
+    /**
+     * Metod som r till fr att lta ett grnssnitt mot anvndaren - med
+     * eller utan fnster - registera sig hos frmedlaren.
+     * 
+     * @param frontend
+     *            det objekt som skall ltas sig registreras som serverns
+     *            grnssnitt mot anvndaren
+     */
+    public void registerFrontend(Frontend frontend) {
+	this.gui = frontend;
 
 	/*
 	 * Mjligheten till interaktion med det grafiska anvndargrnssnittet
@@ -52,14 +65,20 @@ public final class Mediator {
 	 * Ett delegat-objekt som definierar den eller dem metoder som skall
 	 * delegeras, registreras.
 	 */
-	this.gui.registerDelegate(new GUI.Delegate() {
+	this.gui.registerDelegate(new Frontend.Delegate() {
 
 	    /*
 	     * Inmatningsfltet i det grafiska anvndargrnssnittet
-	     * vidarebefodrar meddelanden till samtliga ansluta klienter.
+	     * vidarebefodrar meddelanden till samtliga ansluta klienter, med
+	     * undantag fr kommandot som skriver ut statistik.
 	     */
 	    @Override
 	    public void onMessageSending(String message) {
+		if (STATISTICS_COMMAND.equals(message.trim())) {
+		    Mediator.this.gui.printMessage(Mediator.this.service
+			    .getEventBatchStatistics().toString());
+		    return;
+		}
 		Mediator.this.service.broadcastMessage(message);
 		Mediator.this.gui.printMessage(message);
 	    }
@@ -76,11 +95,8 @@ public final class Mediator {
      * @param service
      *            det objekt som skall lta sig registreras som serverns
      *            bakomliggande tjnst
-     * @throws ExecutionException
-     * @throws InterruptedException
      */
-    public void registerService(Service service) throws InterruptedException,
-	    ExecutionException {
+    public void registerService(Service service) {
 
 	this.service = service;
 	this.service.addServiceListener(new Service.ServiceListener() {
@@ -122,12 +138,18 @@ public final class Mediator {
 	    /*
 	     * Om ett meddelande mottas frn en klient s skrivs det ut i det
 	     * grafiska anvndargrnssnittet, samt s vidarebefodras det till
-	     * samtliga ansluta klienter.
+	     * samtliga klienter i samma rum. Meddelanden utanfr standardrummet
+	     * mrks med rummets namn i det grafiska anvndargrnssnittet.
 	     */
 	    @Override
-	    public void onMessageRecieved(String author, String message) {
-		Mediator.this.gui.printMessage(author + ": " + message);
-		Mediator.this.service.broadcastMessage(author + ": " + message);
+	    public void onMessageRecieved(String room, String author,
+		    String message) {
+		String line = author + ": " + message;
+		if (Service.DEFAULT_ROOM.equals(room))
+		    Mediator.this.gui.printMessage(line);
+		else
+		    Mediator.this.gui.printMessage("[" + room + "] " + line);
+		Mediator.this.service.broadcastMessage(room, line);
 	    }
 
 	    /*
@@ -152,56 +174,26 @@ public final class Mediator {
      * anvndargrnssnittet, d detta annars kommer leda till avbrott av typen
      * {@link NullPointerException}.
      *
-     * Metoden startar en timer som med en intervall p 500 millisekunder
-     * kontrollerar ifall den underliggante server-tjnsten r redo. Om den r
-     * det s tillts interaktion med det grafiska grnssnittet och servern r
-     * d fullt redo.
-     * 
-     * @throws ExecutionException
-     * @throws InterruptedException
+     * Metoden registrerar en handling som utfrs s fort grnssnittet mot
+     * anvndaren meddelar att det r redo - vilket fr ett grnssnitt som
+     * redan r redo sker direkt. D tillts interaktion med grnssnittet och
+     * tjnsten startas. Ingen trd behver vnta eller frga om.
      */
-    private final void initializeBundling() throws InterruptedException,
-	    ExecutionException {
+    private final void initializeBundling() {
 
 	if (this.bundlingInitiated)
 	    return;
+	this.bundlingInitiated = true;
 
-	/*
-	 * En timer startas. Den trd som exekverar timer:n namnges.
-	 */
-
-	Callable<Boolean> timedTask = new Callable<Boolean>() {
+	this.gui.getReadiness().thenRun(new Runnable() {
 
 	    @Override
-	    public Boolean call() throws InterruptedException {
-
-		/*
-		 * En frsta kontroll utfrs fr att utvrdera ifall bgge sidor
-		 * utav servern - det vill sga bde det grafiska grnssnittet
-		 * och den underliggande server-tjnsten - har instansierats.
-		 */
-		/*
-		 * TODO Om ovanstende villkor uppfylls s utfrs en andra
-		 * kontroll fr att se om det grafiska anvndargrnssnittet samt
-		 * den underliggande server-tjnsten r redo.
-		 */
-
-		do {
-		    Thread.sleep(500);
-		    if (Mediator.this.gui.isReady())
-			return true;
-
-		} while (true);
+	    public void run() {
+		updateGuiWindowTitle();
+		Mediator.this.gui.enableInput(true);
+		Mediator.this.service.startServing();
 	    }
-	};
-
-	Future<Boolean> isReadyForBundle = Executors.newSingleThreadExecutor()
-		.submit(timedTask);
-	isReadyForBundle.get();
-
-	updateGuiWindowTitle();
-	Mediator.this.gui.enableInput(true);
-	Mediator.this.service.startServing();
+	});
     }
 
     /**
@@ -0,0 +1,489 @@
+package chatserver.service;
+
+import java.util.concurrent.Executors;
+
+import chatserver.service.misc.MpscRingBuffer;
+
+/**
+ * Klass som samlar de instllningar som bestmmer hur tjnsten skall drivas.
+ * Samtliga instllningar har frvalda vrden, vilket innebr att ett nyligen
+ * instansierat objekt motsvarar serverns ursprungliga beteende.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Configuration {
+    /**
+     * Antalet hndelseloopar {@value #DEFAULT_SELECTOR_COUNT} som anvnds av
+     * motorn {@link Engine#SELECTOR} om inget annat bestms.
+     */
+    public final static int DEFAULT_SELECTOR_COUNT = 2;
+
+    /**
+     * Antalet filer {@value #DEFAULT_EVENT_LANE_COUNT} som tjnstens hndelser
+     * frdelas ver om inget annat bestms.
+     */
+    public final static int DEFAULT_EVENT_LANE_COUNT = 1;
+
+    /**
+     * Det antal meddelanden {@value #DEFAULT_OUTGOING_MESSAGE_LIMIT} som hgst
+     * fr vnta p att skrivas till en och samma klient om inget annat
+     * bestms.
+     */
+    public final static int DEFAULT_OUTGOING_MESSAGE_LIMIT = 1024;
+
+    /**
+     * Det antal bytes {@value #DEFAULT_OUTGOING_BYTE_LIMIT} som hgst fr vnta
+     * p att skrivas till en och samma klient om inget annat bestms.
+     */
+    public final static int DEFAULT_OUTGOING_BYTE_LIMIT = 1024 * 1024;
+
+    /**
+     * Flagga som indikerar huruvida den krande plattformen erbjuder virtuella
+     * trdar, vilket r fallet frn och med Java 21.
+     */
+    public final static boolean VIRTUAL_THREADS_SUPPORTED = isVirtualThreadSupported();
+
+    private Engine engine = Engine.BLOCKING;
+    private int selectorCount = DEFAULT_SELECTOR_COUNT;
+    private boolean virtualThreads = false;
+    private int eventLaneCount = DEFAULT_EVENT_LANE_COUNT;
+    private int eventQueueCapacity = 0;
+    private int eventBatchSize = 1;
+    private MpscRingBuffer.WaitStrategy eventWaitStrategy = MpscRingBuffer.WaitStrategy.SPIN_THEN_PARK;
+    private int outgoingMessageLimit = DEFAULT_OUTGOING_MESSAGE_LIMIT;
+    private int outgoingByteLimit = DEFAULT_OUTGOING_BYTE_LIMIT;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private boolean tcpNoDelay = false;
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+
+    /**
+     * Metod som returnerar den motor som skall driva anslutningarna mot
+     * klienterna.
+     *
+     * @return den valda motorn
+     */
+    public final Engine getEngine() {
+	return this.engine;
+    }
+
+    /**
+     * Metod fr att vlja den motor som skall driva anslutningarna mot
+     * klienterna.
+     *
+     * @param engine
+     *            den motor som skall anvndas
+     * @throws IllegalArgumentException
+     *             om ingen motor angivits
+     */
+    public final void setEngine(Engine engine) throws IllegalArgumentException {
+	if (engine == null)
+	    throw new IllegalArgumentException("En motor mste anges!");
+	this.engine = engine;
+    }
+
+    /**
+     * Metod som returnerar antalet hndelseloopar som motorn
+     * {@link Engine#SELECTOR} frdelar klienterna ver.
+     *
+     * @return antalet hndelseloopar
+     */
+    public final int getSelectorCount() {
+	return this.selectorCount;
+    }
+
+    /**
+     * Metod fr att bestmma antalet hndelseloopar som motorn
+     * {@link Engine#SELECTOR} frdelar klienterna ver.
+     *
+     * @param selectorCount
+     *            antalet hndelseloopar
+     * @throws IllegalArgumentException
+     *             om antalet inte r ett positivt heltal
+     */
+    public final void setSelectorCount(int selectorCount)
+	    throws IllegalArgumentException {
+	if (selectorCount < 1)
+	    throw new IllegalArgumentException(
+		    "Antalet hndelseloopar mste vara minst 1!");
+	this.selectorCount = selectorCount;
+    }
+
+    /**
+     * Metod som indikerar huruvida tjnarnas uppdrag skall exekveras utav
+     * virtuella trdar istllet fr plattformstrdar.
+     *
+     * @return {@code true} om virtuella trdar skall anvndas, i annat fall
+     *         {@code false}
+     */
+    public final boolean isVirtualThreads() {
+	return this.virtualThreads;
+    }
+
+    /**
+     * Metod fr att bestmma huruvida tjnarnas uppdrag skall exekveras utav
+     * virtuella trdar - en per uppdrag - istllet fr en trdpool bestende
+     * utav plattformstrdar.
+     *
+     * @param virtualThreads
+     *            {@code true} om virtuella trdar skall anvndas
+     * @throws IllegalArgumentException
+     *             om virtuella trdar efterfrgas men inte erbjuds utav den
+     *             krande plattformen
+     */
+    public final void setVirtualThreads(boolean virtualThreads)
+	    throws IllegalArgumentException {
+	if (virtualThreads && !VIRTUAL_THREADS_SUPPORTED)
+	    throw new IllegalArgumentException(
+		    "Virtuella trdar krver Java 21 eller senare!");
+	this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Metod som returnerar antalet filer som tjnstens hndelser frdelas
+     * ver.
+     *
+     * @return antalet filer
+     */
+    public final int getEventLaneCount() {
+	return this.eventLaneCount;
+    }
+
+    /**
+     * Metod fr att bestmma antalet filer som tjnstens hndelser frdelas
+     * ver. Varje fil hanteras utav en egen trd, och hndelser som hr till
+     * samma klient hanteras alltid utav samma fil.
+     *
+     * @param eventLaneCount
+     *            antalet filer
+     * @throws IllegalArgumentException
+     *             om antalet inte r ett positivt heltal
+     */
+    public final void setEventLaneCount(int eventLaneCount)
+	    throws IllegalArgumentException {
+	if (eventLaneCount < 1)
+	    throw new IllegalArgumentException(
+		    "Antalet filer mste vara minst 1!");
+	this.eventLaneCount = eventLaneCount;
+    }
+
+    /**
+     * Metod som returnerar kapaciteten hos varje fils k ver hndelser.
+     *
+     * @return kernas kapacitet, eller {@code 0} om kerna r obegrnsade
+     */
+    public final int getEventQueueCapacity() {
+	return this.eventQueueCapacity;
+    }
+
+    /**
+     * Metod fr att bestmma kapaciteten hos varje fils k ver hndelser.
+     * Med en kapacitet anvnds en frallokerad ringbuffer utan ls, se
+     * {@link MpscRingBuffer}, vars kapacitet avrundas uppt till nrmsta
+     * tvpotens. r kn full s vntar den som avfyrar en hndelse tills det
+     * finns plats.
+     *
+     * @param eventQueueCapacity
+     *            kernas kapacitet, eller {@code 0} fr obegrnsade ker
+     * @throws IllegalArgumentException
+     *             om kapaciteten r negativ eller strre n 2^30
+     */
+    public final void setEventQueueCapacity(int eventQueueCapacity)
+	    throws IllegalArgumentException {
+	if (eventQueueCapacity < 0 || eventQueueCapacity > (1 << 30))
+	    throw new IllegalArgumentException(
+		    "Kapaciteten mste vara mellan 0 och 2^30!");
+	this.eventQueueCapacity = eventQueueCapacity;
+    }
+
+    /**
+     * Metod som returnerar hur filerna vntar p hndelser nr deras ker r
+     * begrnsade.
+     *
+     * @return den valda strategin
+     */
+    public final MpscRingBuffer.WaitStrategy getEventWaitStrategy() {
+	return this.eventWaitStrategy;
+    }
+
+    /**
+     * Metod fr att bestmma hur filerna vntar p hndelser nr deras ker
+     * r begrnsade, se {@link #setEventQueueCapacity(int)}. Frvalt r
+     * {@link MpscRingBuffer.WaitStrategy#SPIN_THEN_PARK}, d en fil som
+     * parkeras direkt mste vckas vid varje hndelse.
+     *
+     * @param eventWaitStrategy
+     *            den strategi som skall anvndas
+     * @throws IllegalArgumentException
+     *             om ingen strategi angivits
+     */
+    public final void setEventWaitStrategy(
+	    MpscRingBuffer.WaitStrategy eventWaitStrategy)
+	    throws IllegalArgumentException {
+	if (eventWaitStrategy == null)
+	    throw new IllegalArgumentException("En strategi mste anges!");
+	this.eventWaitStrategy = eventWaitStrategy;
+    }
+
+    /**
+     * Metod som returnerar det hgsta antal hndelser varje fil hanterar per
+     * uppvaknande.
+     *
+     * @return satsens storlek, eller {@code 0} om samtliga vntande hndelser
+     *         hanteras
+     */
+    public final int getEventBatchSize() {
+	return this.eventBatchSize;
+    }
+
+    /**
+     * Metod fr att bestmma det hgsta antal hndelser varje fil hanterar per
+     * uppvaknande. Med en storlek strre n 1 hmtas samtliga hndelser som
+     * redan vntar i kn - upp till angiven storlek - utan att filens trd
+     * behver vnta p nytt.
+     *
+     * @param eventBatchSize
+     *            satsens storlek, eller {@code 0} fr samtliga vntande
+     *            hndelser
+     * @throws IllegalArgumentException
+     *             om storleken r negativ
+     */
+    public final void setEventBatchSize(int eventBatchSize)
+	    throws IllegalArgumentException {
+	if (eventBatchSize < 0)
+	    throw new IllegalArgumentException(
+		    "Satsens storlek fr inte vara negativ!");
+	this.eventBatchSize = eventBatchSize;
+    }
+
+    /**
+     * Metod som returnerar det antal meddelanden som hgst fr vnta p att
+     * skrivas till en och samma klient.
+     *
+     * @return det hgsta antalet vntande meddelanden per klient
+     */
+    public final int getOutgoingMessageLimit() {
+	return this.outgoingMessageLimit;
+    }
+
+    /**
+     * Metod fr att bestmma det antal meddelanden som hgst fr vnta p att
+     * skrivas till en och samma klient. Vad som sker nr grnsen ns bestms
+     * utav {@link #setOverflowPolicy(OverflowPolicy)}.
+     *
+     * @param outgoingMessageLimit
+     *            det hgsta antalet vntande meddelanden per klient
+     * @throws IllegalArgumentException
+     *             om antalet inte r ett positivt heltal
+     */
+    public final void setOutgoingMessageLimit(int outgoingMessageLimit)
+	    throws IllegalArgumentException {
+	if (outgoingMessageLimit < 1)
+	    throw new IllegalArgumentException(
+		    "Antalet vntande meddelanden mste vara minst 1!");
+	this.outgoingMessageLimit = outgoingMessageLimit;
+    }
+
+    /**
+     * Metod som returnerar det antal bytes som hgst fr vnta p att skrivas
+     * till en och samma klient.
+     *
+     * @return det hgsta antalet vntande bytes per klient
+     */
+    public final int getOutgoingByteLimit() {
+	return this.outgoingByteLimit;
+    }
+
+    /**
+     * Metod fr att bestmma det antal bytes som hgst fr vnta p att
+     * skrivas till en och samma klient. Vad som sker nr grnsen ns bestms
+     * utav {@link #setOverflowPolicy(OverflowPolicy)}.
+     *
+     * @param outgoingByteLimit
+     *            det hgsta antalet vntande bytes per klient
+     * @throws IllegalArgumentException
+     *             om antalet inte r ett positivt heltal
+     */
+    public final void setOutgoingByteLimit(int outgoingByteLimit)
+	    throws IllegalArgumentException {
+	if (outgoingByteLimit < 1)
+	    throw new IllegalArgumentException(
+		    "Antalet vntande bytes mste vara minst 1!");
+	this.outgoingByteLimit = outgoingByteLimit;
+    }
+
+    /**
+     * Metod som returnerar hur en klient vars k ver vntande meddelanden r
+     * full skall hanteras.
+     *
+     * @return den valda hanteringen
+     */
+    public final OverflowPolicy getOverflowPolicy() {
+	return this.overflowPolicy;
+    }
+
+    /**
+     * Metod fr att bestmma hur en klient vars k ver vntande meddelanden
+     * r full skall hanteras.
+     *
+     * @param overflowPolicy
+     *            den hantering som skall anvndas
+     * @throws IllegalArgumentException
+     *             om ingen hantering angivits
+     */
+    public final void setOverflowPolicy(OverflowPolicy overflowPolicy)
+	    throws IllegalArgumentException {
+	if (overflowPolicy == null)
+	    throw new IllegalArgumentException("En hantering mste anges!");
+	this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Metod som indikerar huruvida Nagles algoritm skall stngas av fr
+     * anslutningarna mot klienterna, det vill sga om {@code TCP_NODELAY}
+     * skall sttas.
+     *
+     * @return {@code true} om sm segment skall skickas direkt, i annat fall
+     *         {@code false}
+     */
+    public final boolean isTcpNoDelay() {
+	return this.tcpNoDelay;
+    }
+
+    /**
+     * Metod fr att bestmma huruvida Nagles algoritm skall stngas av fr
+     * anslutningarna mot klienterna. Avstngd skickas varje skrivning direkt
+     * istllet fr att hllas kvar i vntan p bekrftelse utav tidigare
+     * skickad data - till priset av fler och mindre segment.
+     *
+     * @param tcpNoDelay
+     *            {@code true} om {@code TCP_NODELAY} skall sttas
+     */
+    public final void setTcpNoDelay(boolean tcpNoDelay) {
+	this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * Metod som returnerar storleken p operativsystemets buffer fr utgende
+     * data, per anslutning.
+     *
+     * @return buffertens storlek i bytes, eller {@code 0} om plattformens
+     *         frval anvnds
+     */
+    public final int getSendBufferSize() {
+	return this.sendBufferSize;
+    }
+
+    /**
+     * Metod fr att bestmma storleken p operativsystemets buffer fr
+     * utgende data, per anslutning. Storleken r en vink till
+     * operativsystemet, som kan vlja en annan.
+     *
+     * @param sendBufferSize
+     *            buffertens storlek i bytes, eller {@code 0} fr
+     *            plattformens frval
+     * @throws IllegalArgumentException
+     *             om storleken r negativ
+     */
+    public final void setSendBufferSize(int sendBufferSize)
+	    throws IllegalArgumentException {
+	if (sendBufferSize < 0)
+	    throw new IllegalArgumentException(
+		    "Buffertens storlek fr inte vara negativ!");
+	this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Metod som returnerar storleken p operativsystemets buffer fr
+     * inkommande data, per anslutning.
+     *
+     * @return buffertens storlek i bytes, eller {@code 0} om plattformens
+     *         frval anvnds
+     */
+    public final int getReceiveBufferSize() {
+	return this.receiveBufferSize;
+    }
+
+    /**
+     * Metod fr att bestmma storleken p operativsystemets buffer fr
+     * inkommande data, per anslutning. Storleken r en vink till
+     * operativsystemet, som kan vlja en annan.
+     *
+     * @param receiveBufferSize
+     *            buffertens storlek i bytes, eller {@code 0} fr
+     *            plattformens frval
+     * @throws IllegalArgumentException
+     *             om storleken r negativ
+     */
+    public final void setReceiveBufferSize(int receiveBufferSize)
+	    throws IllegalArgumentException {
+	if (receiveBufferSize < 0)
+	    throw new IllegalArgumentException(
+		    "Buffertens storlek fr inte vara negativ!");
+	this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * Hjlpmetod som undersker huruvida den krande plattformen erbjuder
+     * virtuella trdar. Underskningen sker via reflektion s att servern
+     * fortfarande gr att kompilera och kra p ldre plattformar.
+     *
+     * @return {@code true} om virtuella trdar erbjuds, i annat fall
+     *         {@code false}
+     */
+    private static boolean isVirtualThreadSupported() {
+	try {
+	    Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+	    return true;
+	} catch (NoSuchMethodException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Upprkning ver de motorer som kan driva anslutningarna mot klienterna.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum Engine {
+	/**
+	 * Blockerande in- och utmatning dr varje ansluten klient betjnas utav
+	 * en egen trd.
+	 */
+	BLOCKING,
+
+	/**
+	 * Icke-blockerande in- och utmatning dr samtliga klienter frdelas
+	 * ver ett ftal hndelseloopar byggda p {@link java.nio.channels.Selector}.
+	 */
+	SELECTOR
+    }
+
+    /**
+     * Upprkning ver hur en klient som inte hinner ta emot meddelanden i
+     * samma takt som de skickas skall hanteras, nr dess k ver vntande
+     * meddelanden har ntt ngon utav sina grnser.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum OverflowPolicy {
+	/**
+	 * De ldsta vntande meddelandena frkastas till frmn fr det nya.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Det nya meddelandet frkastas, medan de redan vntande meddelandena
+	 * skrivs som vanligt.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Anslutningen till klienten bryts.
+	 */
+	DISCONNECT
+    }
+}
@@ -3,34 +3,104 @@ package chatserver.service;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.EventListener;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import chatserver.service.misc.AbstractClient;
+import chatserver.service.misc.BatchStatistics;
 import chatserver.service.misc.BroadcastTask;
+import chatserver.service.misc.ChannelClient;
 import chatserver.service.misc.Client;
+import chatserver.service.misc.ClientRegistry;
 import chatserver.service.misc.Event;
+import chatserver.service.misc.Room;
+import chatserver.service.servants.ChannelConnectionServant;
 import chatserver.service.servants.ClientServant;
 import chatserver.service.servants.ConnectionServant;
-import chatserver.service.servants.EventServant;
+import chatserver.service.servants.EventDispatcher;
+import chatserver.service.servants.SelectorServant;
 
 /**
  * Klass utgr den tjnst som omfattar den data och kommunikation som r
  * relevant till anslutningarna mellan klient(er) och servern.
+ * <p>
+ * Klienterna kan dela upp sig i namngivna rum. En ansluten klient befinner sig
+ * till en brjan i rummet {@value #DEFAULT_ROOM}, och meddelanden frn en
+ * klient levereras enbart till de klienter som befinner sig i samma rum. Rum
+ * byts genom att klienten skickar raden {@code /join RUM}, och rummet lmnas
+ * fr {@value #DEFAULT_ROOM} genom att klienten skickar raden {@code /leave}.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
  */
 public final class Service {
+    /**
+     * Namnet p det rum {@value #DEFAULT_ROOM} som klienterna befinner sig i
+     * nr de ansluter, och som de tervnder till nr de lmnar ett rum.
+     */
+    public final static String DEFAULT_ROOM = "lobby";
+
+    /**
+     * Kommandot {@value #JOIN_COMMAND} som klienterna byter rum med.
+     */
+    public final static String JOIN_COMMAND = "/join";
 
-    private final HashMap<Client, ClientServant> clients = new HashMap<>();
+    /**
+     * Kommandot {@value #LEAVE_COMMAND} som klienterna lmnar ett rum med.
+     */
+    public final static String LEAVE_COMMAND = "/leave";
+
+    /*
+     * Registren ver anslutna klienter lses utav massutskick frn godtyckliga
+     * trdar samtidigt som klienter ansluter och kopplar ifrn, och r drfr
+     * trdskra utan att massutskicken behver lsa dem.
+     */
+    private final ClientRegistry<Client, ClientServant> clients = new ClientRegistry<>();
     private final ConnectionServant connectionServant;
+
+    /*
+     * Varje klient har en hndelse som placerar klientens utskicksuppdrag i
+     * trdpoolen. Hndelsen skapas en gng per klient och teranvnds vid
+     * varje utskick.
+     */
+    private final ClientRegistry<Client, Event> broadcastEvents = new ClientRegistry<>();
     private ServiceListener eventListener;
 
-    private final EventServant eventServant;
+    /*
+     * Motsvarigheterna till ovanstende nr tjnsten drivs utav motorn
+     * Configuration.Engine.SELECTOR - istllet fr en tjnare per klient s
+     * frdelas klienterna ver ett ftal hndelseloopar.
+     */
+    private final ClientRegistry<ChannelClient, SelectorServant> channelClients = new ClientRegistry<>();
+    private final ChannelConnectionServant channelConnectionServant;
+    private final SelectorServant[] selectorServants;
+    private final AtomicInteger nextSelectorServant = new AtomicInteger(0);
+
+    /*
+     * Rummen indexerade efter namn. Medlemskap frndras under ls p
+     * datasamlingen, s att ett rum som tms och tas bort inte samtidigt kan
+     * f en ny medlem, medan utskick i ett rum lser rummets register utan
+     * ls. Standardrummet tas aldrig bort.
+     */
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
 
-    private final ExecutorService threadPool = Executors.newCachedThreadPool();
+    private final Configuration configuration;
+
+    /*
+     * Hndelser frdelas ver ett antal filer, dr hndelser som hr till
+     * samma klient alltid hanteras utav samma fil och drmed i tur och
+     * ordning.
+     */
+    private final EventDispatcher eventDispatcher;
+
+    private final ExecutorService threadPool;
 
     /**
      * Skapar ett objekt av klassen {@link Service} som lyssnar p en
@@ -48,8 +118,32 @@ public final class Service {
      */
     public Service(int port) throws IllegalArgumentException, BindException,
 	    IOException {
+	this(port, new Configuration());
+    }
+
+    /**
+     * Skapar ett objekt av klassen {@link Service} som lyssnar p en
+     * specifierad port och som drivs enligt angivna instllningar.
+     * 
+     * @param port
+     *            ntverksporten som servern ska lyssna p
+     * @param configuration
+     *            de instllningar som bestmmer hur tjnsten skall drivas
+     * @throws IllegalArgumentException
+     *             om angiven ntverksport inte r en giltig sdan
+     * @throws BindException
+     *             om ntverksporten inte gr att lyssna p
+     * @throws IOException
+     *             vid problem orsakat nr en socket instanserats fr att lyssna
+     *             p bestmd port
+     */
+    public Service(int port, Configuration configuration)
+	    throws IllegalArgumentException, BindException, IOException {
 
-	this.eventServant = new EventServant();
+	this.configuration = configuration;
+	this.rooms.put(DEFAULT_ROOM, new Room(DEFAULT_ROOM));
+	this.threadPool = createThreadPool(this.configuration);
+	this.eventDispatcher = new EventDispatcher(this.configuration);
 
 	/*
 	 * Delegat-objektet instanseras till att inte gra ngot vid ngon
@@ -80,7 +174,8 @@ public final class Service {
 	    }
 
 	    @Override
-	    public void onMessageRecieved(String author, String message) {
+	    public void onMessageRecieved(String room, String author,
+		    String message) {
 		/*
 		 * Utebliven handling.
 		 */
@@ -94,6 +189,20 @@ public final class Service {
 	    }
 	};
 
+	/*
+	 * Drivs tjnsten utav hndelseloopar s instansieras dessa istllet fr
+	 * den blockerande motorns tjnare.
+	 */
+	if (this.configuration.getEngine() == Configuration.Engine.SELECTOR) {
+	    this.connectionServant = null;
+	    this.channelConnectionServant = createChannelConnectionServant(port);
+	    this.selectorServants = createSelectorServants(this.configuration
+		    .getSelectorCount());
+	    return;
+	}
+	this.selectorServants = new SelectorServant[0];
+	this.channelConnectionServant = null;
+
 	/*
 	 * Instansierar instansvariabeln som r utav klassen ConnectionServant
 	 * och som har i syfte att lyssna p samt hantera nya anslutningar frn
@@ -107,7 +216,7 @@ public final class Service {
 		    @Override
 		    public void onConnectionInitializationError(
 			    String errorMessage) {
-			Service.this.eventServant.dispatchEvent(new Event() {
+			Service.this.eventDispatcher.dispatchEvent(new Event() {
 
 			    @Override
 			    public void execute() {
@@ -119,14 +228,15 @@ public final class Service {
 
 		    @Override
 		    public void onNewConnection(Socket newConnection) {
-			Service.this.eventServant.dispatchEvent(new Event() {
-
-			    @Override
-			    public void execute() {
-				Service.this.addClient(newConnection);
-				Service.this.eventListener.onNewConnection();
-			    }
-			});
+			Service.this.eventDispatcher.dispatchEvent(newConnection,
+				new Event() {
+
+				    @Override
+				    public void execute() {
+					Service.this.addClient(newConnection);
+					Service.this.eventListener.onNewConnection();
+				    }
+				});
 		    }
 		});
     }
@@ -145,54 +255,37 @@ public final class Service {
     }
 
     /**
-     * Metod fr att skapa nya massutskicksjobb som instansvariabeln utav
-     * klassen BroadcastingServant skall ta hand om. Vid skapandet av dessa jobb
-     * s definieras ven "call-back"-metoden som bestmmer vilka tgrder som
-     * skall tas vid olika scenarion. Har denna metod redan definierats i
-     * samband med ett tidigare jobb s verskrids det gamla med det nya.
+     * Metod fr att massutskicka ett meddelande till samtliga anslutna
+     * klienter, oavsett vilket rum de befinner sig i. Meddelandet placeras i
+     * varje klients k, som sedan tms utav klientens utskicksuppdrag. Varje
+     * klient har hgst ett uppdrag schemalagt t gngen, vilket skriver
+     * samtliga vntande meddelanden och "spolar" anslutningen en gng.
      * 
      * @param message
      *            det meddalande som skall skickas till samtliga anslutna
      *            klienter i ett massutskick
      */
     public final void broadcastMessage(String message) {
+	deliver(this.channelClients, this.broadcastEvents, encode(message));
+    }
 
-	/*
-	 * Fr varje klient registrerade hos datasamlingen ver alla anslutna
-	 * klienter...
-	 */
-	for (Client recievingClient : this.clients.keySet()) {
-	    /*
-	     * S skapas ett utskicksuppdrag adresserat till klienten ifrga.
-	     */
-	    BroadcastTask.Events broadcastDelegate = new BroadcastTask.Events() {
-
-		@Override
-		public void onConnectionLost() {
-		    Service.this.removeClient(recievingClient);
-		    Service.this.eventListener.onConnectionLost();
-		}
-	    };
-
-	    /*
-	     * Skapar ett nytt objekt som r utav klassen BroadcastTask som
-	     * utgr ett utskicksjobb addreserat till klienten som berrs under
-	     * denna iteration i loopen.
-	     */
-	    BroadcastTask broadcastTask = new BroadcastTask(broadcastDelegate,
-		    recievingClient.getWriter(), message);
+    /**
+     * Metod fr att massutskicka ett meddelande till de klienter som befinner
+     * sig i ett visst rum. Enbart rummets medlemmar gs igenom, oavsett hur
+     * mnga klienter som r anslutna totalt.
+     * 
+     * @param room
+     *            namnet p det rum meddelandet skall skickas i
+     * @param message
+     *            det meddalande som skall skickas till rummets medlemmar
+     */
+    public final void broadcastMessage(String room, String message) {
+	Room recievingRoom = this.rooms.get(room);
+	if (recievingRoom == null)
+	    return;
 
-	    /*
-	     * Nr objeketet r instansierat s placeras den i trdpoolen vid
-	     * lmplig tidpunkt.
-	     */
-	    this.eventServant.dispatchEvent(new Event() {
-		@Override
-		public void execute() {
-		    Service.this.threadPool.submit(broadcastTask);
-		}
-	    });
-	}
+	deliver(recievingRoom.getChannelClients(), recievingRoom.getClients(),
+		encode(message));
     }
 
     /**
@@ -201,8 +294,24 @@ public final class Service {
      *
      */
     public void startServing() {
-	this.threadPool.submit(this.connectionServant.getTask());
-	this.threadPool.submit(this.eventServant.getTask());
+	if (this.connectionServant != null)
+	    this.threadPool.submit(this.connectionServant.getTask());
+	if (this.channelConnectionServant != null)
+	    this.threadPool.submit(this.channelConnectionServant.getTask());
+	for (SelectorServant selectorServant : this.selectorServants)
+	    this.threadPool.submit(selectorServant.getTask());
+	for (Callable<Void> eventTask : this.eventDispatcher.getTasks())
+	    this.threadPool.submit(eventTask);
+    }
+
+    /**
+     * Metod som returnerar en sammanstllning utav statistiken ver de satser
+     * av hndelser som tjnstens filer hanterat.
+     * 
+     * @return statistiken ver hanterade satser av hndelser
+     */
+    public BatchStatistics getEventBatchStatistics() {
+	return this.eventDispatcher.getBatchStatistics();
     }
 
     /**
@@ -214,10 +323,15 @@ public final class Service {
     @Override
     public String toString() {
 	StringBuilder representation = new StringBuilder();
-	representation.append(this.connectionServant.toString());
+	if (this.connectionServant != null)
+	    representation.append(this.connectionServant.toString());
+	else
+	    representation.append(this.channelConnectionServant.toString());
 	representation.append(" ---> ");
 	representation.append(" Clients: ");
-	representation.append(this.clients.size());
+	representation.append(this.clients.size() + this.channelClients.size());
+	representation.append(" Rooms: ");
+	representation.append(this.rooms.size());
 
 	return representation.toString();
     }
@@ -235,7 +349,8 @@ public final class Service {
 	     * Frsker skapa en ny klient som lutar mot den nya anslutningen
 	     * som skickats som argument till metoden.
 	     */
-	    Client newClient = new Client(connectionToNewClient);
+	    Client newClient = new Client(connectionToNewClient,
+		    this.configuration);
 
 	    /*
 	     * Ett ny klientlyssnare (objekt utav klassen ClientServant) skapas
@@ -248,24 +363,46 @@ public final class Service {
 			@Override
 			public void onConnectionLost() {
 
-			    Service.this.removeClient(newClient);
-			    Service.this.eventListener.onConnectionLost();
+			    if (Service.this.removeClient(newClient))
+				Service.this.eventListener.onConnectionLost();
 
 			}
 
 			@Override
 			public void onMessageReceived(String message) {
 
-			    Service.this.eventListener.onMessageRecieved(
-				    newClient.toString(), message);
+			    Service.this.handleMessage(newClient, message);
 
 			}
 		    });
 
+	    /*
+	     * Klientens utskicksuppdrag skapas, tillsammans med den hndelse
+	     * som placerar uppdraget i trdpoolen.
+	     */
+	    final BroadcastTask broadcastTask = new BroadcastTask(
+		    new BroadcastTask.Events() {
+
+			@Override
+			public void onConnectionLost() {
+			    if (Service.this.removeClient(newClient))
+				Service.this.eventListener.onConnectionLost();
+			}
+		    }, newClient);
+
 	    /*
 	     * Den nya klienten placeras i datasamlingen ver anslutna klienter.
 	     */
-	    this.clients.put(newClient, newClientsServant);
+	    final Event broadcastEvent = new Event() {
+
+		@Override
+		public void execute() {
+		    Service.this.threadPool.execute(broadcastTask);
+		}
+	    };
+	    this.clients.register(newClient, newClientsServant);
+	    this.broadcastEvents.register(newClient, broadcastEvent);
+	    enterDefaultRoom(newClient, broadcastEvent);
 
 	    /*
 	     * Klientens lyssnar-objekt placeras i trdpoolen fr parallell
@@ -282,20 +419,487 @@ public final class Service {
 
     }
 
+    /**
+     * Hjlpmetod som hanterar en ny klient som skall betjnas utav en
+     * hndelseloop. Klienterna frdelas jmnt ver hndelseslooparna.
+     * 
+     * @param connectionToNewClient
+     *            kanalen till den klient som skall adderas
+     */
+    private final void addClient(SocketChannel connectionToNewClient) {
+
+	try {
+	    /*
+	     * Kanalen grs icke-blockerande, vilket r ett krav fr att den
+	     * skall kunna registreras hos en hndelseloop.
+	     */
+	    connectionToNewClient.configureBlocking(false);
+	    ChannelClient newClient = new ChannelClient(connectionToNewClient,
+		    this.configuration);
+
+	    SelectorServant selectorServant = this.selectorServants[Math
+		    .floorMod(this.nextSelectorServant.getAndIncrement(),
+			    this.selectorServants.length)];
+
+	    this.channelClients.register(newClient, selectorServant);
+	    enterDefaultRoom(newClient, selectorServant);
+	    selectorServant.register(newClient);
+	} catch (IOException e) {
+	    /*
+	     * Misslyckas initialisering utav anslutningen s anropas lmplig
+	     * delegerad metod.
+	     */
+	    this.eventListener.onConnectionInitializationError(e.getMessage());
+	}
+    }
+
+    /**
+     * Hjlpmetod som kodar ett meddelande en gng, s att samma
+     * skrivskyddade buffer sedan kan delas utav samtliga mottagare. Buffern
+     * allokeras utanfr heapen nr den skall skrivas till kanaler, d
+     * kanalerna annars sjlva mste kopiera den dit.
+     * 
+     * @param message
+     *            meddelandet som skall kodas
+     * @return det kodade meddelandet
+     */
+    private ByteBuffer encode(String message) {
+	return AbstractClient.encode(message,
+		this.configuration.getEngine() == Configuration.Engine.SELECTOR);
+    }
+
+    /**
+     * Hjlpmetod som levererar ett kodat meddelande till samtliga klienter i
+     * angivna register.
+     * 
+     * @param channelRecipients
+     *            de mottagare som betjnas utav hndelseloopar
+     * @param recipients
+     *            de mottagare som betjnas utav den blockerande motorn
+     * @param encodedMessage
+     *            det kodade meddelandet
+     */
+    private void deliver(
+	    ClientRegistry<ChannelClient, SelectorServant> channelRecipients,
+	    ClientRegistry<Client, Event> recipients,
+	    final ByteBuffer encodedMessage) {
+
+	/*
+	 * Klienter som betjnas utav hndelseloopar fr meddelandet placerat i
+	 * sin k, varp respektive hndelseloop skriver det.
+	 */
+	channelRecipients
+		.forEach(new ClientRegistry.Visitor<ChannelClient, SelectorServant>() {
+
+		    @Override
+		    public void visit(ChannelClient recievingClient,
+			    SelectorServant selectorServant) {
+			selectorServant.send(recievingClient, encodedMessage);
+		    }
+		});
+
+	/*
+	 * Fr varje blockerande mottagare s placeras meddelandet i klientens
+	 * k.
+	 */
+	recipients.forEach(new ClientRegistry.Visitor<Client, Event>() {
+
+	    @Override
+	    public void visit(Client recievingClient, Event broadcastEvent) {
+		Service.this.deliver(recievingClient, broadcastEvent,
+			encodedMessage);
+	    }
+	});
+    }
+
+    /**
+     * Hjlpmetod som levererar ett kodat meddelande till en blockerande
+     * klient. r klientens k full s hanteras meddelandet enligt
+     * instllningarnas OverflowPolicy, vilket gr att en klient som slutat
+     * lsa aldrig kan frdrja utskicken till vriga klienter eller binda upp
+     * mer minne n vad grnserna medger.
+     * 
+     * @param recievingClient
+     *            den mottagande klienten
+     * @param broadcastEvent
+     *            den hndelse som schemalgger klientens utskicksuppdrag
+     * @param encodedMessage
+     *            det kodade meddelandet
+     */
+    private void deliver(Client recievingClient, Event broadcastEvent,
+	    ByteBuffer encodedMessage) {
+	switch (recievingClient.enqueue(encodedMessage)) {
+
+	case QUEUED:
+	    break;
+
+	case EVICTED:
+	    /*
+	     * Anslutningen till en klient som inte hinner ta emot meddelandena
+	     * termineras. Klientens tjnare upptcker detta och stdar bort
+	     * klienten p samma stt som nr klienten sjlv kopplar ifrn.
+	     */
+	    evictClient(recievingClient);
+	    return;
+
+	default:
+	    return;
+	}
+
+	/*
+	 * Klientens utskicksuppdrag placeras i trdpoolen vid lmplig tidpunkt
+	 * - frutsatt att det inte redan r schemalagt, d det i sdana fall
+	 * nd kommer att skriva ven detta meddelande.
+	 */
+	if (recievingClient.scheduleWrite())
+	    this.eventDispatcher.dispatchEvent(recievingClient, broadcastEvent);
+    }
+
+    /**
+     * Hjlpmetod som skickar ett meddelande till en enskild klient, via det
+     * rum klienten befinner sig i.
+     * 
+     * @param client
+     *            den mottagande klienten
+     * @param message
+     *            meddelandet som skall skickas
+     */
+    private void sendTo(AbstractClient client, String message) {
+	Room room = client.getRoom();
+	if (room == null)
+	    return;
+
+	if (client instanceof ChannelClient) {
+	    ChannelClient channelClient = (ChannelClient) client;
+	    SelectorServant selectorServant = room.getChannelClients().get(
+		    channelClient);
+	    if (selectorServant != null)
+		selectorServant.send(channelClient, encode(message));
+	} else {
+	    Client blockingClient = (Client) client;
+	    Event broadcastEvent = room.getClients().get(blockingClient);
+	    if (broadcastEvent != null)
+		deliver(blockingClient, broadcastEvent, encode(message));
+	}
+    }
+
+    /**
+     * Hjlpmetod som hanterar ett meddelande frn en klient. r meddelandet
+     * ett kommando fr att byta eller lmna rum s utfrs detta, i annat fall
+     * s vidarebefordras meddelandet tillsammans med klientens rum.
+     * 
+     * @param client
+     *            den klient som skickat meddelandet
+     * @param message
+     *            meddelandet
+     */
+    private void handleMessage(AbstractClient client, String message) {
+	if (message.equals(LEAVE_COMMAND)) {
+	    changeRoom(client, DEFAULT_ROOM);
+	    return;
+	}
+
+	if (message.equals(JOIN_COMMAND)
+		|| message.startsWith(JOIN_COMMAND + " ")) {
+	    String room = message.substring(JOIN_COMMAND.length()).trim();
+	    if (room.isEmpty())
+		sendTo(client, "* Anvndning: " + JOIN_COMMAND + " RUM");
+	    else
+		changeRoom(client, room);
+	    return;
+	}
+
+	Room room = client.getRoom();
+	if (room != null)
+	    this.eventListener.onMessageRecieved(room.getName(),
+		    client.toString(), message);
+    }
+
+    /**
+     * Hjlpmetod som flyttar en klient till ett annat rum. Finns rummet inte
+     * s skapas det, och blir klientens tidigare rum tomt s tas det bort.
+     * 
+     * @param client
+     *            klienten som skall byta rum
+     * @param name
+     *            namnet p det rum klienten skall flyttas till
+     */
+    private void changeRoom(AbstractClient client, String name) {
+	synchronized (this.rooms) {
+	    Room current = client.getRoom();
+	    if (current == null || current.getName().equals(name))
+		return;
+
+	    Room destination = openRoom(name);
+	    if (!current.moveTo(client, destination)) {
+		closeRoomIfEmpty(destination);
+		return;
+	    }
+	    client.setRoom(destination);
+	    closeRoomIfEmpty(current);
+	}
+	sendTo(client, "* Du befinner dig nu i rummet " + name);
+    }
+
+    /**
+     * Hjlpmetod som placerar en ny blockerande klient i standardrummet.
+     * 
+     * @param client
+     *            den nya klienten
+     * @param broadcastEvent
+     *            den hndelse som schemalgger klientens utskicksuppdrag
+     */
+    private void enterDefaultRoom(Client client, Event broadcastEvent) {
+	synchronized (this.rooms) {
+	    Room room = this.rooms.get(DEFAULT_ROOM);
+	    room.add(client, broadcastEvent);
+	    client.setRoom(room);
+	}
+    }
+
+    /**
+     * Hjlpmetod som placerar en ny klient som betjnas utav en hndelseloop
+     * i standardrummet.
+     * 
+     * @param client
+     *            den nya klienten
+     * @param selectorServant
+     *            den hndelseloop som betjnar klienten
+     */
+    private void enterDefaultRoom(ChannelClient client,
+	    SelectorServant selectorServant) {
+	synchronized (this.rooms) {
+	    Room room = this.rooms.get(DEFAULT_ROOM);
+	    room.add(client, selectorServant);
+	    client.setRoom(room);
+	}
+    }
+
+    /**
+     * Hjlpmetod som tar bort en klient frn det rum den befinner sig i.
+     * 
+     * @param client
+     *            klienten som skall lmna sitt rum
+     */
+    private void leaveRoom(AbstractClient client) {
+	synchronized (this.rooms) {
+	    Room room = client.getRoom();
+	    if (room == null)
+		return;
+
+	    room.remove(client);
+	    client.setRoom(null);
+	    closeRoomIfEmpty(room);
+	}
+    }
+
+    /*
+     * Hjlpmetod som returnerar rummet med angivet namn och skapar det om det
+     * inte redan finns. Anropas enbart under ls p datasamlingen ver rum.
+     */
+    private Room openRoom(String name) {
+	Room room = this.rooms.get(name);
+	if (room == null) {
+	    room = new Room(name);
+	    this.rooms.put(name, room);
+	}
+	return room;
+    }
+
+    /*
+     * Hjlpmetod som tar bort ett tomt rum. Anropas enbart under ls p
+     * datasamlingen ver rum.
+     */
+    private void closeRoomIfEmpty(Room room) {
+	if (room.isEmpty() && !room.getName().equals(DEFAULT_ROOM))
+	    this.rooms.remove(room.getName());
+    }
+
+    /**
+     * Hjlpmetod som terminerar anslutningen till en klient vars k varit
+     * full, enligt {@link Configuration.OverflowPolicy#DISCONNECT}. En
+     * skrivare som vntar p klienten avbryts drmed ocks.
+     * 
+     * @param client
+     *            klienten som skall kopplas ifrn
+     */
+    private void evictClient(Client client) {
+	try {
+	    client.kill();
+	} catch (IOException e) {
+	    this.eventListener.onClientRemovalError(client.toString());
+	}
+    }
+
+    /**
+     * Hjlpmetod som instansierar den trdpool som samtliga tjnar-objekt och
+     * utskicksjobb exekveras i. Efterfrgas virtuella trdar s exekveras
+     * varje uppdrag utav en egen virtuell trd, vilket gr att blockerande
+     * lsning inte lngre binder upp en plattformstrd per klient.
+     * 
+     * @param configuration
+     *            de instllningar som bestmmer vilken sorts trdar som skall
+     *            anvndas
+     * @return den instansierade trdpoolen
+     */
+    private static final ExecutorService createThreadPool(
+	    Configuration configuration) {
+
+	if (!configuration.isVirtualThreads())
+	    return Executors.newCachedThreadPool();
+
+	/*
+	 * Metoden sls upp via reflektion s att servern fortfarande gr att
+	 * kompilera mot ldre plattformar. Tillgngligheten har redan
+	 * kontrollerats utav instllningarna.
+	 */
+	try {
+	    return (ExecutorService) Executors.class.getMethod(
+		    "newVirtualThreadPerTaskExecutor").invoke(null);
+	} catch (ReflectiveOperationException e) {
+	    throw new IllegalStateException(
+		    "Virtuella trdar kunde inte instansieras!", e);
+	}
+    }
+
+    /**
+     * Hjlpmetod som instansierar de hndelseloopar som skall betjna
+     * klienterna. Samtliga hndelseloopar delar p samma "call-back"-metoder.
+     * 
+     * @param count
+     *            antalet hndelseloopar
+     * @return de instansierade hndelseslooparna
+     * @throws IOException
+     *             ifall en hndelseloop inte kunde instansieras
+     */
+    private final SelectorServant[] createSelectorServants(int count)
+	    throws IOException {
+
+	SelectorServant.Listener listener = new SelectorServant.Listener() {
+
+	    @Override
+	    public void onConnectionLost(ChannelClient client) {
+		Service.this.eventDispatcher.dispatchEvent(client, new Event() {
+
+		    @Override
+		    public void execute() {
+			if (Service.this.removeClient(client))
+			    Service.this.eventListener.onConnectionLost();
+		    }
+		});
+	    }
+
+	    @Override
+	    public void onMessageReceived(ChannelClient client, String message) {
+		Service.this.handleMessage(client, message);
+	    }
+	};
+
+	SelectorServant[] servants = new SelectorServant[count];
+	for (int i = 0; i < count; i++)
+	    servants[i] = new SelectorServant(listener);
+	return servants;
+    }
+
+    /**
+     * Hjlpmetod som instansierar det tjnar-objekt som lyssnar p nya
+     * anslutningar nr tjnsten drivs utav hndelseloopar.
+     * 
+     * @param port
+     *            ntverksporten som servern ska lyssna p
+     * @return det instansierade tjnar-objektet
+     * @throws IllegalArgumentException
+     *             om angiven ntverksport inte r en giltig sdan
+     * @throws BindException
+     *             om ntverksporten inte gr att lyssna p
+     * @throws IOException
+     *             vid problem orsakat nr kanalen instanserats fr att lyssna
+     *             p bestmd port
+     */
+    private final ChannelConnectionServant createChannelConnectionServant(
+	    int port) throws IllegalArgumentException, BindException,
+	    IOException {
+
+	return new ChannelConnectionServant(port,
+		new ChannelConnectionServant.Listener() {
+
+		    @Override
+		    public void onConnectionInitializationError(
+			    String errorMessage) {
+			Service.this.eventDispatcher.dispatchEvent(new Event() {
+
+			    @Override
+			    public void execute() {
+				Service.this.eventListener
+					.onConnectionInitializationError(errorMessage);
+			    }
+			});
+		    }
+
+		    @Override
+		    public void onNewConnection(SocketChannel newConnection) {
+			Service.this.eventDispatcher.dispatchEvent(newConnection,
+				new Event() {
+
+				    @Override
+				    public void execute() {
+					Service.this.addClient(newConnection);
+					Service.this.eventListener.onNewConnection();
+				    }
+				});
+		    }
+		});
+    }
+
+    /**
+     * Hjlpmetod fr att terminera en klient som betjnas utav en
+     * hndelseloop. Har klienten redan tagits bort s sker ingenting.
+     * 
+     * @param client
+     *            klienten som skall tas bort
+     * @return {@code true} om klienten togs bort utav detta anrop, i annat
+     *         fall {@code false}
+     */
+    private boolean removeClient(ChannelClient client) {
+	if (this.channelClients.unregister(client) == null)
+	    return false;
+	leaveRoom(client);
+
+	try {
+	    client.kill();
+	} catch (IOException e) {
+	    this.eventListener.onClientRemovalError(client.toString());
+	}
+	return true;
+    }
+
     /**
      * Hjlpmetod fr att terminera en klient. Sker ett problem vid stngning av
      * anslutningen s finns inte mycket att gra t detta, utan klienten tas
-     * bort frn datasamlingen.
+     * bort frn datasamlingen. Bde klientens tjnare och dess
+     * utskicksuppdrag kan upptcka att anslutningen brutits, men enbart den
+     * som frst tar bort klienten frn datasamlingen terminerar den.
      * 
      * @param client
      *            klienten som skall tas bort
+     * @return {@code true} om klienten togs bort utav detta anrop, i annat
+     *         fall {@code false}
      * 
      */
-    private void removeClient(Client client) {
+    private boolean removeClient(Client client) {
+	/*
+	 * Klienten och dess tillhrande tjnare tas bort frn datasamlingen.
+	 * Fanns klienten inte kvar dr s har den redan tagits bort.
+	 */
+	ClientServant clientsServant = this.clients.unregister(client);
+	if (clientsServant == null)
+	    return false;
+	this.broadcastEvents.unregister(client);
+	leaveRoom(client);
+
 	/*
-	 * Klientens tjnare hmtas frn datasamligen fr att sedan stoppas.
+	 * Klientens tjnare stoppas.
 	 */
-	ClientServant clientsServant = this.clients.get(client);
 	clientsServant.stopServing();
 
 	try {
@@ -313,13 +917,8 @@ public final class Service {
 	     * metod anropas.
 	     */
 	    this.eventListener.onClientRemovalError(client.toString());
-	} finally {
-	    /*
-	     * Slutligen s tas clienten och dess associerade tjnare bort frn
-	     * datasamligen.
-	     */
-	    this.clients.remove(client);
 	}
+	return true;
     }
 
     /**
@@ -360,15 +959,19 @@ public final class Service {
 	/**
 	 * Syftet av denna metod r att utfra lmplig operation nr ett
 	 * meddelande har mottagits utav ett tjnar-objekt som lyssnar p nya
-	 * inkommande meddelanden frn en klient.
+	 * inkommande meddelanden frn en klient. Kommandon fr att byta eller
+	 * lmna rum hanteras utav tjnsten och vidarebefordras inte.
 	 *
+	 * @param room
+	 *            namnet p det rum klienten befann sig i nr meddelandet
+	 *            mottogs
 	 * @param author
 	 *            en strng som representerar den klient som skickat
 	 *            meddelandet
 	 * @param message
 	 *            meddelandet som mottagits
 	 */
-	public void onMessageRecieved(String author, String message);
+	public void onMessageRecieved(String room, String author, String message);
 
 	/**
 	 * Syftet av denna metod r att indikera att en ny klient har anslutit
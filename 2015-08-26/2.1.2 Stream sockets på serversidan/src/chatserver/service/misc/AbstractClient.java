@@ -0,0 +1,324 @@
+package chatserver.service.misc;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatserver.service.Configuration;
+
+/**
+ * Klass som utgr grunden till klasser som representerar en ansluten klient.
+ * Varje klient ger en begrnsad k ver meddelanden som vntar p att skrivas
+ * till klienten. Kn tms utav en och samma skrivare t gngen, vilken skriver
+ * samtliga vntande meddelanden i ett svep. Kn begrnsas bde till antalet
+ * meddelanden och till antalet bytes, och vad som sker nr ngon utav
+ * grnserna ns bestms utav {@link Configuration.OverflowPolicy}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public abstract class AbstractClient {
+
+    /**
+     * K ver kodade meddelanden som vntar p att skrivas till klienten
+     * samt antalet meddelanden och bytes i kn.
+     */
+    private final Queue<ByteBuffer> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outgoingCount = new AtomicInteger(0);
+    private final AtomicLong outgoingBytes = new AtomicLong(0);
+
+    /**
+     * Kns grnser samt hur den hanteras nr ngon utav dem ns.
+     */
+    private final int outgoingMessageLimit;
+    private final int outgoingByteLimit;
+    private final Configuration.OverflowPolicy overflowPolicy;
+
+    /**
+     * Antalet meddelanden som frkastats fr att kn varit full.
+     */
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    /**
+     * Flagga som indikerar huruvida klienten har dmts till att kopplas ifrn
+     * fr att dess k varit full.
+     */
+    private final AtomicBoolean evicted = new AtomicBoolean(false);
+
+    /**
+     * Det rum klienten fr tillfllet befinner sig i.
+     */
+    private volatile Room room;
+
+    /**
+     * Flagga som indikerar huruvida en skrivare redan har schemalagts fr att
+     * tmma kn.
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+    /**
+     * Konstruktor som per automatik krs innan sub-klassers konstruktorer krs.
+     *
+     * @param configuration
+     *            de instllningar som bestmmer kns grnser samt hur den
+     *            hanteras nr ngon utav dem ns
+     */
+    protected AbstractClient(Configuration configuration) {
+	this.outgoingMessageLimit = configuration.getOutgoingMessageLimit();
+	this.outgoingByteLimit = configuration.getOutgoingByteLimit();
+	this.overflowPolicy = configuration.getOverflowPolicy();
+    }
+
+    /**
+     * Hjlpmetod som stter de alternativ fr anslutningen som bestms utav
+     * instllningarna. Alternativ som inte angivits lmnas orrda, s att
+     * plattformens frval gller.
+     *
+     * @param socket
+     *            anslutningen till klienten
+     * @param configuration
+     *            de instllningar som bestmmer anslutningens alternativ
+     * @throws SocketException
+     *             ifall ngot utav alternativen inte kunde sttas
+     */
+    protected static void configureSocket(Socket socket,
+	    Configuration configuration) throws SocketException {
+	if (configuration.isTcpNoDelay())
+	    socket.setTcpNoDelay(true);
+	if (configuration.getSendBufferSize() > 0)
+	    socket.setSendBufferSize(configuration.getSendBufferSize());
+	if (configuration.getReceiveBufferSize() > 0)
+	    socket.setReceiveBufferSize(configuration.getReceiveBufferSize());
+    }
+
+    /**
+     * Metod som kodar ett meddelande till en ofrnderlig buffer som kan delas
+     * utav samtliga mottagare. Meddelandet kodas med teckenuppsttningen
+     * ISO-8859-1 - tecken som inte ingr i uppsttningen erstts med '?' - och
+     * tecknet fr radbryte lggs till fr att indikera slutet p meddelandet.
+     *
+     * @param message
+     *            det meddelande som skall kodas
+     * @param direct
+     *            {@code true} om buffern skall allokeras utanfr heapen,
+     *            vilket lmpar sig nr den skall skrivas till en kanal
+     * @return en skrivskyddad buffer innehllandes det kodade meddelandet
+     */
+    public static ByteBuffer encode(String message, boolean direct) {
+	final int length = message.length();
+	final ByteBuffer encoded = direct ? ByteBuffer.allocateDirect(length + 1)
+		: ByteBuffer.allocate(length + 1);
+
+	for (int i = 0; i < length; i++) {
+	    char c = message.charAt(i);
+	    encoded.put(c <= 0xFF ? (byte) c : (byte) '?');
+	}
+	encoded.put((byte) '\n');
+	encoded.flip();
+
+	return encoded.asReadOnlyBuffer();
+    }
+
+    /**
+     * Metod som placerar ett kodat meddelande i kn ver meddelanden som
+     * vntar p att skrivas till klienten. Buffern delas med vriga mottagare
+     * och lmnas drfr orrd - skrivaren arbetar mot en egen vy utav den.
+     * Skulle meddelandet gra att kn verskrider ngon utav sina grnser s
+     * hanteras det enligt klientens {@link Configuration.OverflowPolicy}.
+     *
+     * @param message
+     *            det kodade meddelande som skall skickas, se
+     *            {@link #encode(String, boolean)}
+     * @return {@link Outcome#QUEUED} om meddelandet placerades i kn,
+     *         {@link Outcome#EVICTED} om klienten i och med detta meddelande
+     *         skall kopplas ifrn, i annat fall {@link Outcome#DROPPED}
+     */
+    public final Outcome enqueue(ByteBuffer message) {
+	if (this.evicted.get())
+	    return Outcome.DROPPED;
+
+	final int size = message.remaining();
+
+	/*
+	 * Platsen i kn reserveras innan meddelandet placeras dr, s att
+	 * samtidiga avsndare inte tillsammans kan verskrida grnserna.
+	 */
+	final int count = this.outgoingCount.incrementAndGet();
+	final long bytes = this.outgoingBytes.addAndGet(size);
+
+	if (count <= this.outgoingMessageLimit
+		&& bytes <= this.outgoingByteLimit) {
+	    this.outgoing.offer(message);
+	    return Outcome.QUEUED;
+	}
+
+	switch (this.overflowPolicy) {
+
+	case DROP_OLDEST:
+	    /*
+	     * Meddelandet placeras i kn, varp de ldsta meddelandena tas ur
+	     * kn tills den ter hller sig inom grnserna. Skrivaren har redan
+	     * tagit ut det meddelande den arbetar med, s ett pbrjat
+	     * meddelande kan aldrig frkastas.
+	     */
+	    this.outgoing.offer(message);
+	    while (this.outgoingCount.get() > this.outgoingMessageLimit
+		    || this.outgoingBytes.get() > this.outgoingByteLimit) {
+		if (pollOutgoing() == null)
+		    break;
+		this.droppedCount.incrementAndGet();
+	    }
+	    return Outcome.QUEUED;
+
+	case DISCONNECT:
+	    releaseOutgoing(size);
+	    this.droppedCount.incrementAndGet();
+	    return this.evicted.compareAndSet(false, true) ? Outcome.EVICTED
+		    : Outcome.DROPPED;
+
+	default:
+	    releaseOutgoing(size);
+	    this.droppedCount.incrementAndGet();
+	    return Outcome.DROPPED;
+	}
+    }
+
+    /**
+     * Metod som tar ut det meddelande som str p tur att skrivas ur kn.
+     * Meddelandet tillhr drefter skrivaren, som ansvarar fr att skriva det i
+     * sin helhet.
+     *
+     * @return nsta meddelande, eller {@code null} om kn r tom
+     */
+    protected final ByteBuffer pollOutgoing() {
+	ByteBuffer message = this.outgoing.poll();
+	if (message != null)
+	    releaseOutgoing(message.remaining());
+	return message;
+    }
+
+    /*
+     * Hjlpmetod som frigr ett meddelandes plats i kn.
+     */
+    private void releaseOutgoing(int size) {
+	this.outgoingCount.decrementAndGet();
+	this.outgoingBytes.addAndGet(-size);
+    }
+
+    /**
+     * Metod som indikerar huruvida det finns meddelanden i kn som vntar p
+     * att skrivas till klienten.
+     *
+     * @return {@code true} om meddelanden vntar, i annat fall {@code false}
+     */
+    public final boolean hasPendingOutput() {
+	return !this.outgoing.isEmpty();
+    }
+
+    /**
+     * Metod som returnerar antalet meddelanden som vntar p att skrivas till
+     * klienten.
+     *
+     * @return antalet vntande meddelanden
+     */
+    public final int getPendingOutputCount() {
+	return this.outgoingCount.get();
+    }
+
+    /**
+     * Metod som returnerar antalet bytes som vntar p att skrivas till
+     * klienten.
+     *
+     * @return antalet vntande bytes
+     */
+    public final long getPendingOutputBytes() {
+	return this.outgoingBytes.get();
+    }
+
+    /**
+     * Metod som returnerar antalet meddelanden till klienten som frkastats
+     * fr att dess k varit full.
+     *
+     * @return antalet frkastade meddelanden
+     */
+    public final long getDroppedCount() {
+	return this.droppedCount.get();
+    }
+
+    /**
+     * Metod som markerar att en skrivare har schemalagts fr att tmma kn.
+     *
+     * @return {@code true} om ingen skrivare redan var schemalagd, i annat
+     *         fall {@code false}
+     */
+    public final boolean scheduleWrite() {
+	return this.writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Metod som markerar att den schemalagda skrivaren har tmt kn.
+     */
+    public final void completeWrite() {
+	this.writeScheduled.set(false);
+    }
+
+    /**
+     * Metod som returnerar det rum klienten fr tillfllet befinner sig i.
+     *
+     * @return klientens rum, eller {@code null} om klienten inte befinner sig
+     *         i ngot rum
+     */
+    public final Room getRoom() {
+	return this.room;
+    }
+
+    /**
+     * Metod fr att ange det rum klienten befinner sig i.
+     *
+     * @param room
+     *            klientens rum, eller {@code null} om klienten lmnat samtliga
+     *            rum
+     */
+    public final void setRoom(Room room) {
+	this.room = room;
+    }
+
+    /**
+     * Metod som terminerar anslutningen till klienten.
+     *
+     * @throws IOException
+     *             ifall ett fel intrffar vid frsk att terminera anslutningen
+     */
+    public abstract void kill() throws IOException;
+
+    /**
+     * Upprkning ver de utfall som kan uppst nr ett meddelande placeras i
+     * en klients k.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum Outcome {
+	/**
+	 * Meddelandet placerades i kn.
+	 */
+	QUEUED,
+
+	/**
+	 * Meddelandet frkastades.
+	 */
+	DROPPED,
+
+	/**
+	 * Meddelandet frkastades och klienten skall kopplas ifrn. Utfallet
+	 * intrffar hgst en gng per klient.
+	 */
+	EVICTED
+    }
+}
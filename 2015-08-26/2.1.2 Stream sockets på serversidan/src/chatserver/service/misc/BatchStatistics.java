@@ -0,0 +1,151 @@
+package chatserver.service.misc;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Klass som samlar statistik ver storleken p de satser av hndelser som en
+ * fil hanterar per uppvaknande. Storlekarna rknas i fack som frdubblas i
+ * storlek - 1, 2-3, 4-7 och s vidare - s att frdelningen kan lsas av utan
+ * att varje enskild storlek behver sparas.
+ * <p>
+ * Statistiken uppdateras enbart utav filens egen trd, men kan lsas utav
+ * vilken trd som helst.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class BatchStatistics {
+
+    /**
+     * Antalet fack, dr det sista facket ven rymmer samtliga strre satser.
+     */
+    public final static int BUCKET_COUNT = 12;
+
+    /**
+     * Facken fljt utav antalet satser, antalet hndelser samt den strsta
+     * satsen, lagrade i samma atomra flt.
+     */
+    private final static int BATCHES = BUCKET_COUNT;
+    private final static int EVENTS = BUCKET_COUNT + 1;
+    private final static int MAX = BUCKET_COUNT + 2;
+
+    private final AtomicLongArray counters = new AtomicLongArray(
+	    BUCKET_COUNT + 3);
+
+    /**
+     * Metod fr att registrera en hanterad sats. Fr enbart anropas utav den
+     * trd som ger statistiken.
+     *
+     * @param size
+     *            det antal hndelser som hanterades i satsen
+     */
+    public final void record(int size) {
+	if (size < 1)
+	    return;
+
+	final int bucket = Math.min(BUCKET_COUNT - 1,
+		31 - Integer.numberOfLeadingZeros(size));
+	increment(bucket, 1);
+	increment(BATCHES, 1);
+	increment(EVENTS, size);
+	if (size > this.counters.get(MAX))
+	    this.counters.lazySet(MAX, size);
+    }
+
+    /**
+     * Metod fr att lgga till en annan statistiks vrden till denna
+     * statistik, till exempel fr att summera samtliga filer.
+     *
+     * @param other
+     *            statistiken som skall lggas till
+     */
+    public final void add(BatchStatistics other) {
+	for (int i = 0; i < MAX; i++)
+	    this.counters.addAndGet(i, other.counters.get(i));
+
+	final long max = other.counters.get(MAX);
+	if (max > this.counters.get(MAX))
+	    this.counters.set(MAX, max);
+    }
+
+    /**
+     * Metod som returnerar det antal satser som hanterats.
+     *
+     * @return antalet satser
+     */
+    public final long getBatchCount() {
+	return this.counters.get(BATCHES);
+    }
+
+    /**
+     * Metod som returnerar det antal hndelser som hanterats.
+     *
+     * @return antalet hndelser
+     */
+    public final long getEventCount() {
+	return this.counters.get(EVENTS);
+    }
+
+    /**
+     * Metod som returnerar den strsta sats som hanterats.
+     *
+     * @return den strsta satsens storlek
+     */
+    public final long getMaxBatchSize() {
+	return this.counters.get(MAX);
+    }
+
+    /**
+     * Metod som returnerar det antal satser vars storlek hamnat i angivet
+     * fack. Fack {@code i} rymmer storlekarna 2^i till 2^(i+1)-1.
+     *
+     * @param bucket
+     *            fackets index, frn 0 till {@link #BUCKET_COUNT} - 1
+     * @return antalet satser i facket
+     */
+    public final long getBucketCount(int bucket) {
+	return this.counters.get(bucket);
+    }
+
+    /**
+     * Metod som returnerar en strng som beskriver statistiken, dr enbart
+     * fack som innehller satser tas med.
+     *
+     * @return strng som beskriver statistiken
+     */
+    @Override
+    public final String toString() {
+	final long batches = getBatchCount();
+	StringBuilder representation = new StringBuilder();
+	representation.append("Satser: ").append(batches);
+	representation.append(" Hndelser: ").append(getEventCount());
+	representation.append(" Medel: ").append(
+		String.format(Locale.ROOT, "%.2f", batches == 0 ? 0.0
+			: (double) getEventCount() / batches));
+	representation.append(" Max: ").append(getMaxBatchSize());
+
+	for (int i = 0; i < BUCKET_COUNT; i++) {
+	    final long count = getBucketCount(i);
+	    if (count == 0)
+		continue;
+
+	    final int lower = 1 << i;
+	    representation.append(' ').append(lower);
+	    if (i == BUCKET_COUNT - 1)
+		representation.append('+');
+	    else if (lower > 1)
+		representation.append('-').append((lower << 1) - 1);
+	    representation.append(": ").append(count);
+	}
+	return representation.toString();
+    }
+
+    /*
+     * Hjlpmetod som rknar upp ett flt. D enbart en trd skriver rcker en
+     * vanlig lsning fljt utav en frdrjd skrivning.
+     */
+    private void increment(int index, long delta) {
+	this.counters.lazySet(index, this.counters.get(index) + delta);
+    }
+}
@@ -1,65 +1,65 @@
 package chatserver.service.misc;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 
 /**
  * Klass som representerar ett utsndningsuppdrag adresserad till en specifik
- * klients buffrade tecken-lsare.
+ * klient. Uppdraget skriver samtliga meddelanden som vntar i klientens k och
+ * det finns aldrig mer n ett uppdrag per klient schemalagt t gngen, vilket
+ * gr att meddelanden till samma klient inte kan blandas ihop.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
  */
 public final class BroadcastTask implements Runnable {
     /**
-     * Instansvariabler som representerar den buffrade tecken-skrivar objekt
-     * riktad mot den adresserade klienten samt det meddelande som skall
-     * skickas.
+     * Instansvariabler som representerar den adresserade klienten samt det
+     * delegat som skall meddelas vid fel.
      */
-    private final OutputStreamWriter writerToReciever;
-    private final String messageToBroadcast;
+    private final Client reciever;
     private final Events clientsDelegate;
 
     /**
      * Skapar ett objekt av klassen {@link BroadcastTask}.
      * 
      * @param events
-     *            TODO
-     * 
-     * @param writerToReciever
-     *            den adresserade klientens buffrade tecken-skrivar objekt att
-     *            skicka meddelandet genom
-     * @param messageToBroadcast
-     *            det meddelande som skall skickas
+     *            det delegat-objekt som skall meddelas vid fel i
+     *            kommunikationen med klienten
+     * @param reciever
+     *            den adresserade klienten vars k skall tmmas
      */
-    public BroadcastTask(Events events, OutputStreamWriter writerToReciever,
-	    String messageToBroadcast) {
+    public BroadcastTask(Events events, Client reciever) {
 	this.clientsDelegate = events;
-	this.writerToReciever = writerToReciever;
-	this.messageToBroadcast = messageToBroadcast;
+	this.reciever = reciever;
     }
 
     @Override
     public void run() {
 
 	/*
-	 * P ett sanerat och ordningssamt stt - genom att "spola" strmmens
-	 * buffer fr att frhindra att ett meddelande ligger och vntar -
-	 * frsks meddelandet skrivas via den mottagande klientens
-	 * skrivar-objekt. Tecknet fr radbryte indikerar slutet p meddelandet.
+	 * Klientens k tms och anslutningen "spolas" en gng per varv. Har
+	 * nya meddelanden hunnit placeras i kn efter det att den tmts s tar
+	 * uppdraget hand om ven dessa, frutsatt att inget annat uppdrag
+	 * hunnit schemalggas.
 	 */
-	try {
-	    this.writerToReciever.write(this.messageToBroadcast + "\n");
-	    this.writerToReciever.flush();
-	} catch (IOException e) {
-	    /*
-	     * Stter programmet p ett undantag s betyder det att det inte
-	     * gick att kommunicera med mottagaren - denne r d hgst troligen
-	     * inte lnge uppkopplad och drfr anropas den i frvg definierade
-	     * metod som r till fr att anropas i situationer som denna.
-	     */
-	    this.clientsDelegate.onConnectionLost();
-	}
+	do {
+	    try {
+		this.reciever.flush();
+	    } catch (IOException e) {
+		/*
+		 * Stter programmet p ett undantag s betyder det att det inte
+		 * gick att kommunicera med mottagaren - denne r d hgst
+		 * troligen inte lnge uppkopplad och drfr anropas den i
+		 * frvg definierade metod som r till fr att anropas i
+		 * situationer som denna. Uppdraget lmnas markerat som
+		 * schemalagt s att inga fler uppdrag skapas fr klienten.
+		 */
+		this.clientsDelegate.onConnectionLost();
+		return;
+	    }
+	    this.reciever.completeWrite();
+	} while (this.reciever.hasPendingOutput()
+		&& this.reciever.scheduleWrite());
     }
 
     /**
@@ -0,0 +1,220 @@
+package chatserver.service.misc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import chatserver.service.Configuration;
+
+/**
+ * Klass som representerar en ansluten klient vars anslutning drivs utav en
+ * icke-blockerande kanal. Till skillnad frn {@link Client} s har klienten
+ * ingen egen trd, utan lsning och skrivning sker i den hndelseloop som
+ * klienten registrerats hos.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public class ChannelClient extends AbstractClient {
+
+    /**
+     * Storleken p den buffer som inkommande data lses in till.
+     */
+    private final static int READ_BUFFER_SIZE = 2048;
+
+    /**
+     * Det antal meddelanden som hgst skrivs till kanalen i ett och samma
+     * anrop.
+     */
+    private final static int GATHER_LIMIT = 64;
+
+    /**
+     * Instansvariabler som refererar till klientens kanal, dess buffer fr
+     * inkommande data samt den rad som hller p att lsas in.
+     */
+    private final SocketChannel channel;
+    private final ByteBuffer readBuffer;
+    private final StringBuilder line = new StringBuilder();
+    private boolean lastWasCarriageReturn = false;
+
+    /**
+     * De meddelanden som tagits ur kn och hller p att skrivas, i form av
+     * egna vyer utav de delade buffrarna, samt var bland dessa skrivningen
+     * befinner sig.
+     */
+    private final ByteBuffer[] inFlight = new ByteBuffer[GATHER_LIMIT];
+    private int inFlightStart = 0;
+    private int inFlightCount = 0;
+
+    private volatile SelectionKey key;
+
+    /**
+     * Skapar ett objekt utav klassen {@link ChannelClient}.
+     *
+     * @param channel
+     *            den icke-blockerande kanal klienten r ansluten genom
+     * @param configuration
+     *            de instllningar som bestmmer grnserna fr klientens k
+     *            samt anslutningens alternativ
+     * @throws IOException
+     *             ifall anslutningens alternativ inte kunde sttas
+     */
+    public ChannelClient(SocketChannel channel, Configuration configuration)
+	    throws IOException {
+	super(configuration);
+	this.channel = channel;
+	configureSocket(this.channel.socket(), configuration);
+
+	/*
+	 * Buffern allokeras p heapen, d tusentals vilande anslutningar annars
+	 * skulle binda upp motsvarande mngd minne utanfr heapen.
+	 */
+	this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Metod som returnerar klientens kanal.
+     *
+     * @return klientens kanal
+     */
+    public final SocketChannel getChannel() {
+	return this.channel;
+    }
+
+    /**
+     * Metod som returnerar den nyckel klienten registrerats med hos sin
+     * hndelseloop.
+     *
+     * @return klientens nyckel, eller {@code null} om klienten inte
+     *         registrerats
+     */
+    public final SelectionKey getKey() {
+	return this.key;
+    }
+
+    /**
+     * Metod fr att ange den nyckel klienten registrerats med hos sin
+     * hndelseloop.
+     *
+     * @param key
+     *            klientens nyckel
+     */
+    public final void setKey(SelectionKey key) {
+	this.key = key;
+    }
+
+    /**
+     * Metod som lser in den data som fr tillfllet finns att lsa frn
+     * kanalen.
+     *
+     * @return antalet inlsta bytes, eller {@code -1} om kanalen har stngts
+     *         utav klienten
+     * @throws IOException
+     *             ifall ett fel intrffar vid lsning frn kanalen
+     */
+    public final int read() throws IOException {
+	return this.channel.read(this.readBuffer);
+    }
+
+    /**
+     * Metod som returnerar nsta fullstndiga rad som lsts in frn klienten.
+     * En rad avslutas per definition med ett '\n' eller '\r' eller ocks
+     * "\r\n", precis som hos {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return nsta rad, eller {@code null} om ingen fullstndig rad finns
+     */
+    public final String nextLine() {
+	this.readBuffer.flip();
+
+	try {
+	    while (this.readBuffer.hasRemaining()) {
+		char c = (char) (this.readBuffer.get() & 0xFF);
+
+		/*
+		 * Ett '\n' direkt efter ett '\r' hr till samma radbryte.
+		 */
+		if (c == '\n' && this.lastWasCarriageReturn) {
+		    this.lastWasCarriageReturn = false;
+		    continue;
+		}
+		this.lastWasCarriageReturn = (c == '\r');
+
+		if (c == '\n' || c == '\r') {
+		    String completeLine = this.line.toString();
+		    this.line.setLength(0);
+		    return completeLine;
+		}
+		this.line.append(c);
+	    }
+	    return null;
+	} finally {
+	    this.readBuffer.compact();
+	}
+    }
+
+    /**
+     * Metod som skriver s mycket utav de vntande meddelandena som kanalen
+     * fr tillfllet tar emot. Flera meddelanden tas ur kn och skrivs i ett
+     * och samma anrop via egna vyer utav de delade buffrarna.
+     *
+     * @return {@code true} om samtliga vntande meddelanden skrivits, i annat
+     *         fall {@code false}
+     * @throws IOException
+     *             ifall ett fel intrffar vid skrivning till kanalen
+     */
+    public final boolean flush() throws IOException {
+	while (true) {
+	    if (this.inFlightCount == 0) {
+		this.inFlightStart = 0;
+
+		ByteBuffer pending;
+		while (this.inFlightCount < GATHER_LIMIT
+			&& (pending = pollOutgoing()) != null)
+		    this.inFlight[this.inFlightCount++] = pending.duplicate();
+
+		if (this.inFlightCount == 0)
+		    return true;
+	    }
+
+	    this.channel.write(this.inFlight, this.inFlightStart,
+		    this.inFlightCount);
+
+	    while (this.inFlightCount > 0
+		    && !this.inFlight[this.inFlightStart].hasRemaining()) {
+		this.inFlight[this.inFlightStart++] = null;
+		this.inFlightCount--;
+	    }
+
+	    /*
+	     * Tar kanalen inte emot mer s fr resten vnta tills kanalen ter
+	     * r skrivbar. Vyerna minns sjlva hur lngt de hunnit skrivas.
+	     */
+	    if (this.inFlightCount > 0)
+		return false;
+	}
+    }
+
+    /**
+     * Metod som terminerar anslutningen till klienten.
+     *
+     * @throws IOException
+     *             ifall ett fel intrffar vid frsk att terminera anslutningen
+     */
+    @Override
+    public final void kill() throws IOException {
+	this.channel.close();
+    }
+
+    /**
+     * Metod som returnerar klientens host-adress i form av en strng.
+     *
+     * @return klientens host-adress i form av en strng
+     */
+    @Override
+    public final String toString() {
+	if (this.channel.isOpen() && this.channel.isConnected())
+	    return this.channel.socket().getInetAddress().getHostAddress();
+	return "Disconnected client";
+    }
+}
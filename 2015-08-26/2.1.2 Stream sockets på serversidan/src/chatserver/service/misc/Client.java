@@ -5,37 +5,52 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import chatserver.service.Configuration;
+
 /**
  * Klass som representerar en ansluten klient.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
  */
-public class Client {
+public class Client extends AbstractClient {
 
     /**
-     * Instansvariabler som refererar till klientens anslutning samt dess lsar-
-     * och skrivar-objekt.
+     * Storleken p den buffer som utgende meddelanden samlas i innan de
+     * skrivs till anslutningen.
+     */
+    private final static int WRITE_BUFFER_SIZE = 8192;
+
+    /**
+     * Instansvariabler som refererar till klientens anslutning, dess lsar-
+     * och skrivar-objekt samt den buffer som utgende meddelanden samlas i.
      */
     private final Socket socket;
     private final BufferedReader reader;
-    private final OutputStreamWriter writer;
+    private final OutputStream output;
+    private final byte[] writeBuffer = new byte[WRITE_BUFFER_SIZE];
 
     /**
      * Skapar ett objekt utav klassen {@link Client}.
      * 
      * @param clientsSocket
      *            den socket klienten r ansluten genom
+     * @param configuration
+     *            de instllningar som bestmmer grnserna fr klientens k
+     *            samt anslutningens alternativ
      * @throws IOException
      *             ifall ett fel intrffar vid initalisering utav lsare samt
      *             skrivare till/frn klienten
      */
-    public Client(Socket clientsSocket) throws IOException {
+    public Client(Socket clientsSocket, Configuration configuration)
+	    throws IOException {
+	super(configuration);
 	this.socket = clientsSocket;
+	configureSocket(this.socket, configuration);
 
 	/*
 	 * En ingende byte-strms-objekt kopplas till anslutningen. En ingende
@@ -50,14 +65,49 @@ public class Client {
 	this.reader = new BufferedReader(inputStreamReader);
 
 	/*
-	 * En mot anslutningen gende byte-strm initieras. En tecken-skrivare
-	 * kopplad till byte-strmmen - med hrdkodad teckenuppsttning fr
-	 * kompatibilitet - instansieras och kopplas i sin tur till
-	 * byte-strmmen.
+	 * En mot anslutningen gende byte-strm initieras. Meddelandena r
+	 * redan kodade med samma teckenuppsttning som lsaren anvnder nr de
+	 * placeras i kn, och samlas ihop i klientens egen buffer innan de
+	 * skrivs till strmmen.
 	 */
-	OutputStream outputStream = this.socket.getOutputStream();
-	this.writer = new OutputStreamWriter(outputStream,
-		StandardCharsets.ISO_8859_1);
+	this.output = this.socket.getOutputStream();
+    }
+
+    /**
+     * Metod som skriver samtliga meddelanden som vntar i klientens k till
+     * anslutningen. Meddelandena samlas i en buffer och anslutningen "spolas"
+     * enbart en gng, efter det att kn har tmts.
+     *
+     * @throws IOException
+     *             ifall ett fel intrffar vid skrivning till anslutningen
+     */
+    public final void flush() throws IOException {
+	int length = 0;
+
+	ByteBuffer pending;
+	while ((pending = pollOutgoing()) != null) {
+	    /*
+	     * Meddelandet delas med vriga mottagare, s det kopieras via en
+	     * egen vy fr att inte pverka dess position. Det har redan tagits
+	     * ur kn, s det kan inte frkastas medan det skrivs.
+	     */
+	    ByteBuffer view = pending.duplicate();
+	    while (view.hasRemaining()) {
+		int chunk = Math.min(view.remaining(), this.writeBuffer.length
+			- length);
+		view.get(this.writeBuffer, length, chunk);
+		length += chunk;
+
+		if (length == this.writeBuffer.length) {
+		    this.output.write(this.writeBuffer, 0, length);
+		    length = 0;
+		}
+	    }
+	}
+
+	if (length > 0)
+	    this.output.write(this.writeBuffer, 0, length);
+	this.output.flush();
     }
 
     /**
@@ -66,8 +116,9 @@ public class Client {
      * @throws IOException
      *             ifall ett fel intrffar vid frsk att terminera anslutningen
      */
+    @Override
     public final void kill() throws IOException {
-	this.writer.close();
+	this.output.close();
 	this.reader.close();
 	this.socket.close();
     }
@@ -81,15 +132,6 @@ public class Client {
 	return this.reader;
     }
 
-    /**
-     * Metod fr att f klientens buffrade tecken-skrivar-objekt.
-     * 
-     * @return klientens buffrade tecken-skrivare
-     */
-    public final OutputStreamWriter getWriter() {
-	return this.writer;
-    }
-
     /**
      * Metod som returnerar klientens host-adress i form av en strng.
      * 
@@ -0,0 +1,161 @@
+package chatserver.service.misc;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Klass som utgr ett trdskert register ver anslutna klienter, dr varje
+ * klient associeras med ett vrde. Registret hlls i form av en ofrnderlig
+ * gonblicksbild som erstts i sin helhet vid varje frndring, vilket gr att
+ * massutskick kan g igenom samtliga klienter utan ls och utan att stras utav
+ * klienter som ansluter eller kopplar ifrn under tiden. Frndringar sker
+ * utan ls, genom att gonblicksbilden byts ut atomrt.
+ * <p>
+ * Klienter jmfrs utifrn identitet, och samma klient kan enbart registreras
+ * en gng.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ *
+ * @param <K>
+ *            den typ av klienter som registreras
+ * @param <V>
+ *            den typ av vrden som klienterna associeras med
+ */
+public final class ClientRegistry<K, V> {
+
+    /**
+     * Den aktuella gonblicksbilden, dr varje klient fljs utav sitt
+     * associerade vrde. Vektorn frndras aldrig efter det att den
+     * publicerats.
+     */
+    private final AtomicReference<Object[]> snapshot = new AtomicReference<>(
+	    new Object[0]);
+
+    /**
+     * Metod fr att registrera en klient tillsammans med ett associerat vrde.
+     *
+     * @param client
+     *            klienten som skall registreras
+     * @param value
+     *            det vrde klienten skall associeras med
+     * @return {@code true} om klienten registrerades, {@code false} om den
+     *         redan var registrerad
+     */
+    public boolean register(K client, V value) {
+	while (true) {
+	    final Object[] current = this.snapshot.get();
+	    if (indexOf(current, client) >= 0)
+		return false;
+
+	    final Object[] next = new Object[current.length + 2];
+	    System.arraycopy(current, 0, next, 0, current.length);
+	    next[current.length] = client;
+	    next[current.length + 1] = value;
+
+	    if (this.snapshot.compareAndSet(current, next))
+		return true;
+	}
+    }
+
+    /**
+     * Metod fr att avregistrera en klient. Avregistreras samma klient flera
+     * gnger, till exempel utav flera trdar som samtidigt upptckt att
+     * anslutningen brutits, s r det enbart det frsta anropet som
+     * returnerar klientens vrde.
+     *
+     * @param client
+     *            klienten som skall avregistreras
+     * @return det vrde klienten var associerad med, eller {@code null} om
+     *         klienten inte var registrerad
+     */
+    @SuppressWarnings("unchecked")
+    public V unregister(K client) {
+	while (true) {
+	    final Object[] current = this.snapshot.get();
+	    final int index = indexOf(current, client);
+	    if (index < 0)
+		return null;
+
+	    final Object[] next = new Object[current.length - 2];
+	    System.arraycopy(current, 0, next, 0, index);
+	    System.arraycopy(current, index + 2, next, index, next.length
+		    - index);
+
+	    if (this.snapshot.compareAndSet(current, next))
+		return (V) current[index + 1];
+	}
+    }
+
+    /**
+     * Metod som returnerar det vrde en klient r associerad med.
+     *
+     * @param client
+     *            klienten vars vrde efterfrgas
+     * @return klientens vrde, eller {@code null} om klienten inte r
+     *         registrerad
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K client) {
+	final Object[] current = this.snapshot.get();
+	final int index = indexOf(current, client);
+	return index < 0 ? null : (V) current[index + 1];
+    }
+
+    /**
+     * Metod som returnerar antalet registrerade klienter.
+     *
+     * @return antalet registrerade klienter
+     */
+    public int size() {
+	return this.snapshot.get().length / 2;
+    }
+
+    /**
+     * Metod som gr igenom samtliga klienter som var registrerade nr anropet
+     * gjordes. Klienter som registreras eller avregistreras under
+     * genomgngen pverkar inte denna.
+     *
+     * @param visitor
+     *            det objekt som skall beska varje klient
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super K, ? super V> visitor) {
+	final Object[] current = this.snapshot.get();
+	for (int i = 0; i < current.length; i += 2)
+	    visitor.visit((K) current[i], (V) current[i + 1]);
+    }
+
+    /*
+     * Hjlpmetod som letar upp en klients position i en gonblicksbild.
+     */
+    private static int indexOf(Object[] entries, Object client) {
+	for (int i = 0; i < entries.length; i += 2)
+	    if (entries[i] == client)
+		return i;
+	return -1;
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den metod som
+     * anropas fr varje klient vid en genomgng utav registret.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     *
+     * @param <K>
+     *            den typ av klienter som besks
+     * @param <V>
+     *            den typ av vrden som klienterna associerats med
+     */
+    public interface Visitor<K, V> {
+	/**
+	 * Den metod som anropas fr varje registrerad klient.
+	 *
+	 * @param client
+	 *            den beskta klienten
+	 * @param value
+	 *            det vrde klienten associerats med
+	 */
+	void visit(K client, V value);
+    }
+}
@@ -0,0 +1,450 @@
+package chatserver.service.misc;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Klass som utgr en begrnsad k i form av en ringbuffer, avsedd fr flera
+ * producenter men enbart en konsument. Samtliga platser allokeras nr kn
+ * skapas, s att placera ett element i kn allokerar ingenting, och varken
+ * producenterna eller konsumenten tar ngot ls. Producenterna reserverar en
+ * plats genom att atomrt rkna upp kns svans, medan konsumenten ensam ger
+ * kns huvud.
+ * <p>
+ * Hur konsumenten vntar nr kn r tom - och hur producenterna vntar nr kn
+ * r full - bestms utav en {@link WaitStrategy}.
+ * <p>
+ * Kns iterator r svagt konsistent: den gr igenom de element som fanns i kn
+ * nr den skapades och som nnu inte tagits ut, och kastar aldrig
+ * {@link java.util.ConcurrentModificationException}. Element kan enbart tas
+ * ut utav konsumenten, i tur och ordning, varfr varken iteratorn eller
+ * {@link #remove(Object)}, {@link #removeAll(Collection)} och
+ * {@link #retainAll(Collection)} stdjer borttagning.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ *
+ * @param <E>
+ *            den typ av element som kn innehller
+ */
+public final class MpscRingBuffer<E> extends AbstractQueue<E> implements
+	BlockingQueue<E> {
+
+    /**
+     * Antalet varv konsumenten snurrar respektive antalet gnger den lmnar
+     * ifrn sig processorn innan den parkeras, enligt
+     * {@link WaitStrategy#SPIN_THEN_PARK}.
+     */
+    private final static int SPINS = 256;
+    private final static int YIELDS = 16;
+
+    /**
+     * Den tid en producent parkeras nr kn r full, innan den frsker igen.
+     */
+    private final static long PRODUCER_PARK_NANOS = 50000;
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Kns huvud, vilket enbart flyttas utav konsumenten, samt kns svans,
+     * vilken producenterna reserverar platser genom.
+     */
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /**
+     * Den parkerade konsumenten, vilken producenterna vcker nr de placerat
+     * ett element i kn.
+     */
+    private volatile Thread consumer;
+    private volatile boolean consumerParked = false;
+
+    /**
+     * Skapar ett objekt utav klassen {@link MpscRingBuffer}. Kapaciteten
+     * avrundas uppt till nrmsta tvpotens.
+     *
+     * @param capacity
+     *            det antal element kn minst skall rymma
+     * @param waitStrategy
+     *            hur konsumenten och producenterna skall vnta
+     * @throws IllegalArgumentException
+     *             om kapaciteten inte r ett positivt heltal, r fr stor
+     *             eller om ingen strategi angivits
+     */
+    public MpscRingBuffer(int capacity, WaitStrategy waitStrategy)
+	    throws IllegalArgumentException {
+	if (capacity < 1 || capacity > (1 << 30))
+	    throw new IllegalArgumentException(
+		    "Kapaciteten mste vara ett positivt heltal som hgst r 2^30!");
+	if (waitStrategy == null)
+	    throw new IllegalArgumentException("En strategi mste anges!");
+
+	int size = Integer.highestOneBit(capacity);
+	if (size < capacity)
+	    size <<= 1;
+
+	this.slots = new AtomicReferenceArray<>(size);
+	this.mask = size - 1;
+	this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Metod fr att utan att vnta placera ett element i kn.
+     *
+     * @param element
+     *            elementet som skall placeras i kn
+     * @return {@code true} om elementet placerades i kn, {@code false} om
+     *         kn r full
+     */
+    @Override
+    public boolean offer(E element) {
+	if (element == null)
+	    throw new NullPointerException();
+
+	long claimed;
+	do {
+	    claimed = this.tail.get();
+	    if (claimed - this.head.get() > this.mask)
+		return false;
+	} while (!this.tail.compareAndSet(claimed, claimed + 1));
+
+	/*
+	 * Platsen publiceras med en fullstndig minnesbarrir, s att en
+	 * konsument som precis skall parkeras antingen ser elementet eller
+	 * ocks syns som parkerad fr producenten.
+	 */
+	this.slots.set((int) claimed & this.mask, element);
+	if (this.consumerParked)
+	    LockSupport.unpark(this.consumer);
+	return true;
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+	int attempt = 0;
+	while (!offer(element)) {
+	    if (Thread.interrupted())
+		throw new InterruptedException();
+	    attempt = awaitSpace(attempt, PRODUCER_PARK_NANOS);
+	}
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit)
+	    throws InterruptedException {
+	final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+	int attempt = 0;
+	while (!offer(element)) {
+	    if (Thread.interrupted())
+		throw new InterruptedException();
+
+	    long remaining = deadline - System.nanoTime();
+	    if (remaining <= 0)
+		return false;
+	    attempt = awaitSpace(attempt,
+		    Math.min(remaining, PRODUCER_PARK_NANOS));
+	}
+	return true;
+    }
+
+    /**
+     * Metod fr att utan att vnta ta ut nsta element ur kn. Fr enbart
+     * anropas utav konsumenten.
+     *
+     * @return nsta element, eller {@code null} om kn r tom
+     */
+    @Override
+    public E poll() {
+	final long current = this.head.get();
+	final int index = (int) current & this.mask;
+
+	E element = this.slots.get(index);
+	if (element == null)
+	    return null;
+
+	/*
+	 * Platsen tms innan huvudet flyttas fram, s att en producent som ser
+	 * det nya huvudet ven ser den tomma platsen.
+	 */
+	this.slots.lazySet(index, null);
+	this.head.lazySet(current + 1);
+	return element;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+	int attempt = 0;
+	E element;
+	while ((element = poll()) == null) {
+	    if (Thread.interrupted())
+		throw new InterruptedException();
+	    attempt = awaitElement(attempt, 0);
+	}
+	return element;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+	final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+	int attempt = 0;
+	E element;
+	while ((element = poll()) == null) {
+	    if (Thread.interrupted())
+		throw new InterruptedException();
+
+	    long remaining = deadline - System.nanoTime();
+	    if (remaining <= 0)
+		return null;
+	    attempt = awaitElement(attempt, remaining);
+	}
+	return element;
+    }
+
+    /**
+     * Metod som returnerar nsta element utan att ta ut det ur kn. Fr
+     * enbart anropas utav konsumenten.
+     *
+     * @return nsta element, eller {@code null} om kn r tom
+     */
+    @Override
+    public E peek() {
+	return this.slots.get((int) this.head.get() & this.mask);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+	return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+	if (collection == this)
+	    throw new IllegalArgumentException();
+
+	int drained = 0;
+	E element;
+	while (drained < maxElements && (element = poll()) != null) {
+	    collection.add(element);
+	    drained++;
+	}
+	return drained;
+    }
+
+    @Override
+    public int size() {
+	long size = this.tail.get() - this.head.get();
+	return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    @Override
+    public int remainingCapacity() {
+	return capacity() - size();
+    }
+
+    /**
+     * Metod som returnerar det antal element kn rymmer.
+     *
+     * @return kns kapacitet
+     */
+    public int capacity() {
+	return this.mask + 1;
+    }
+
+    /**
+     * Metod som returnerar en svagt konsistent iterator ver kns element, frn
+     * huvudet till svansen. Iteratorn stdjer inte borttagning.
+     *
+     * @return iteratorn
+     */
+    @Override
+    public Iterator<E> iterator() {
+	return new Iterator<E>() {
+
+	    /*
+	     * Positionen fr nsta plats som skall lsas, den position dr
+	     * iteratorn slutar, samt nsta element som skall returneras.
+	     */
+	    private long position = MpscRingBuffer.this.head.get();
+	    private final long end = MpscRingBuffer.this.tail.get();
+	    private E next = advance();
+
+	    @Override
+	    public boolean hasNext() {
+		return this.next != null;
+	    }
+
+	    @Override
+	    public E next() {
+		final E element = this.next;
+		if (element == null)
+		    throw new NoSuchElementException();
+		this.next = advance();
+		return element;
+	    }
+
+	    /*
+	     * Letar upp nsta element som nnu inte tagits ut. En plats som r
+	     * tom har antingen tmts utav konsumenten eller nnu inte
+	     * publicerats utav sin producent, och hoppas ver. Har huvudet
+	     * passerat positionen efter lsningen s kan platsen redan ha
+	     * teranvnts, varfr elementet inte rknas.
+	     */
+	    private E advance() {
+		while (this.position < this.end) {
+		    final long current = this.position++;
+		    final E element = MpscRingBuffer.this.slots
+			    .get((int) current & MpscRingBuffer.this.mask);
+		    if (element != null
+			    && MpscRingBuffer.this.head.get() <= current)
+			return element;
+		}
+		return null;
+	    }
+	};
+    }
+
+    /**
+     * Stds inte, d element enbart kan tas ut utav konsumenten.
+     *
+     * @throws UnsupportedOperationException
+     *             alltid
+     */
+    @Override
+    public boolean remove(Object object) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stds inte, d element enbart kan tas ut utav konsumenten.
+     *
+     * @throws UnsupportedOperationException
+     *             alltid
+     */
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stds inte, d element enbart kan tas ut utav konsumenten.
+     *
+     * @throws UnsupportedOperationException
+     *             alltid
+     */
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+	throw new UnsupportedOperationException();
+    }
+
+    /*
+     * Hjlpmetod som lter konsumenten vnta p ett element enligt kns
+     * strategi. En tidsgrns p 0 innebr att konsumenten vntar utan
+     * tidsgrns.
+     */
+    private int awaitElement(int attempt, long timeoutNanos) {
+	switch (this.waitStrategy) {
+
+	case YIELD:
+	    Thread.yield();
+	    return attempt;
+
+	case SPIN_THEN_PARK:
+	    if (attempt < SPINS)
+		return attempt + 1;
+	    if (attempt < SPINS + YIELDS) {
+		Thread.yield();
+		return attempt + 1;
+	    }
+	    park(timeoutNanos);
+	    return attempt;
+
+	default:
+	    park(timeoutNanos);
+	    return attempt;
+	}
+    }
+
+    /*
+     * Hjlpmetod som parkerar konsumenten tills en producent placerat ett
+     * element i kn. Flaggan stts innan platsen kontrolleras en sista gng,
+     * s att en producent som publicerar under tiden alltid vcker
+     * konsumenten.
+     */
+    private void park(long timeoutNanos) {
+	this.consumer = Thread.currentThread();
+	this.consumerParked = true;
+	try {
+	    if (peek() != null)
+		return;
+	    if (timeoutNanos > 0)
+		LockSupport.parkNanos(this, timeoutNanos);
+	    else
+		LockSupport.park(this);
+	} finally {
+	    this.consumerParked = false;
+	}
+    }
+
+    /*
+     * Hjlpmetod som lter en producent vnta p en ledig plats enligt kns
+     * strategi. Producenterna vcks inte utav konsumenten, utan parkeras en
+     * kort stund t gngen.
+     */
+    private int awaitSpace(int attempt, long parkNanos) {
+	switch (this.waitStrategy) {
+
+	case YIELD:
+	    Thread.yield();
+	    return attempt;
+
+	case SPIN_THEN_PARK:
+	    if (attempt < SPINS)
+		return attempt + 1;
+	    LockSupport.parkNanos(this, parkNanos);
+	    return attempt;
+
+	default:
+	    LockSupport.parkNanos(this, parkNanos);
+	    return attempt;
+	}
+    }
+
+    /**
+     * Upprkning ver de stt som konsumenten kan vnta p ett element nr
+     * kn r tom, och producenterna p en ledig plats nr kn r full.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public enum WaitStrategy {
+	/**
+	 * Konsumenten parkeras direkt och vcks utav nsta producent. Ger
+	 * lgst processoranvndning men hgst frdrjning.
+	 */
+	BLOCK,
+
+	/**
+	 * Konsumenten snurrar och lmnar sedan ifrn sig processorn ett antal
+	 * gnger innan den parkeras, vilket ger lg frdrjning vid jmn
+	 * trafik utan att binda upp en processor nr trafiken avstannar.
+	 */
+	SPIN_THEN_PARK,
+
+	/**
+	 * Konsumenten lmnar stndigt ifrn sig processorn utan att ngonsin
+	 * parkeras. Ger lgst frdrjning men binder upp en processor.
+	 */
+	YIELD
+    }
+}
@@ -0,0 +1,152 @@
+package chatserver.service.misc;
+
+import chatserver.service.servants.SelectorServant;
+
+/**
+ * Klass som representerar ett namngivet rum som klienter kan g med i. Ett
+ * meddelande som skickas i rummet levereras enbart till rummets medlemmar, och
+ * rummet hller drfr egna register ver dessa - med samma associerade vrden
+ * som tjnstens register ver samtliga klienter - s att ett utskick i rummet
+ * inte behver g igenom andra klienter n medlemmarna.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class Room {
+
+    private final String name;
+
+    /**
+     * Rummets medlemmar, uppdelade efter vilken motor som driver dem.
+     * Blockerande klienter associeras med den hndelse som schemalgger
+     * klientens utskicksuppdrag, medan klienter som drivs utav hndelseloopar
+     * associeras med sin hndelseloop.
+     */
+    private final ClientRegistry<Client, Event> clients = new ClientRegistry<>();
+    private final ClientRegistry<ChannelClient, SelectorServant> channelClients = new ClientRegistry<>();
+
+    /**
+     * Skapar ett objekt utav klassen {@link Room}.
+     *
+     * @param name
+     *            rummets namn
+     */
+    public Room(String name) {
+	this.name = name;
+    }
+
+    /**
+     * Metod som returnerar rummets namn.
+     *
+     * @return rummets namn
+     */
+    public final String getName() {
+	return this.name;
+    }
+
+    /**
+     * Metod som returnerar registret ver rummets blockerande medlemmar.
+     *
+     * @return rummets blockerande medlemmar
+     */
+    public final ClientRegistry<Client, Event> getClients() {
+	return this.clients;
+    }
+
+    /**
+     * Metod som returnerar registret ver de medlemmar som drivs utav
+     * hndelseloopar.
+     *
+     * @return rummets medlemmar som drivs utav hndelseloopar
+     */
+    public final ClientRegistry<ChannelClient, SelectorServant> getChannelClients() {
+	return this.channelClients;
+    }
+
+    /**
+     * Metod fr att lgga till en blockerande klient som medlem i rummet.
+     *
+     * @param client
+     *            klienten som skall lggas till
+     * @param broadcastEvent
+     *            den hndelse som schemalgger klientens utskicksuppdrag
+     */
+    public final void add(Client client, Event broadcastEvent) {
+	this.clients.register(client, broadcastEvent);
+    }
+
+    /**
+     * Metod fr att lgga till en klient som drivs utav en hndelseloop som
+     * medlem i rummet.
+     *
+     * @param client
+     *            klienten som skall lggas till
+     * @param selectorServant
+     *            den hndelseloop som driver klienten
+     */
+    public final void add(ChannelClient client, SelectorServant selectorServant) {
+	this.channelClients.register(client, selectorServant);
+    }
+
+    /**
+     * Metod fr att flytta en medlem frn detta rum till ett annat rum,
+     * tillsammans med det vrde medlemmen associerats med.
+     *
+     * @param client
+     *            medlemmen som skall flyttas
+     * @param destination
+     *            det rum medlemmen skall flyttas till
+     * @return {@code true} om medlemmen flyttades, {@code false} om klienten
+     *         inte var medlem i detta rum
+     */
+    public final boolean moveTo(AbstractClient client, Room destination) {
+	if (client instanceof ChannelClient) {
+	    ChannelClient channelClient = (ChannelClient) client;
+	    SelectorServant selectorServant = this.channelClients
+		    .unregister(channelClient);
+	    if (selectorServant == null)
+		return false;
+	    destination.add(channelClient, selectorServant);
+	} else {
+	    Client blockingClient = (Client) client;
+	    Event broadcastEvent = this.clients.unregister(blockingClient);
+	    if (broadcastEvent == null)
+		return false;
+	    destination.add(blockingClient, broadcastEvent);
+	}
+	return true;
+    }
+
+    /**
+     * Metod fr att ta bort en medlem frn rummet.
+     *
+     * @param client
+     *            medlemmen som skall tas bort
+     */
+    public final void remove(AbstractClient client) {
+	if (client instanceof ChannelClient)
+	    this.channelClients.unregister((ChannelClient) client);
+	else
+	    this.clients.unregister((Client) client);
+    }
+
+    /**
+     * Metod som indikerar huruvida rummet saknar medlemmar.
+     *
+     * @return {@code true} om rummet saknar medlemmar, i annat fall
+     *         {@code false}
+     */
+    public final boolean isEmpty() {
+	return this.clients.size() == 0 && this.channelClients.size() == 0;
+    }
+
+    /**
+     * Metod som returnerar rummets namn.
+     *
+     * @return rummets namn
+     */
+    @Override
+    public final String toString() {
+	return this.name;
+    }
+}
@@ -4,10 +4,12 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * TODO
- *
- * @author
+ * Klass som utgr grunden till tjnar-objektens krbara uppdrag. Uppdraget
+ * betjnar slnge som den trd som exekverar det inte avbryts, oavsett om
+ * trden r en plattformstrd eller en virtuell trd.
  *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
  */
 public abstract class AbstractServantTask implements Callable<Void> {
 
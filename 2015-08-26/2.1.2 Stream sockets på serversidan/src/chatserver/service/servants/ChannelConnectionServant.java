@@ -0,0 +1,150 @@
+package chatserver.service.servants;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.EventListener;
+
+/**
+ * Tjnar-klass som stndigt lyssnar p och hanterar nya inkommande anslutningar
+ * frn klienter till servern. Till skillnad frn {@link ConnectionServant} s
+ * levereras anslutningarna i form av kanaler, vilka sedan kan drivas utav en
+ * {@link SelectorServant}.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public class ChannelConnectionServant extends AbstractServant {
+
+    /**
+     * Serverns egna kanal som skall lyssna p inkommande anslutningsfrsk.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Skapar ett objekt av klassen {@link ChannelConnectionServant}.
+     *
+     * @param port
+     *            den ntverksport som det skall lyssnas p fr inkommande
+     *            anslutningar frn klienter
+     * @param listener
+     *            det objekt med de delegerade metoder som skall anropas i
+     *            olika scenarion
+     * @throws BindException
+     *             ifall det inte gick att lyssna p angiven ntverksport
+     * @throws IllegalArgumentException
+     *             ifall angiven ntverksport inte r en giltig sdan
+     * @throws IOException
+     *             ifall ngot annat gr snett vid frsk att lyssna p angiven
+     *             ntverksport
+     */
+    public ChannelConnectionServant(int port, Listener listener)
+	    throws BindException, IllegalArgumentException, IOException {
+
+	/*
+	 * Serverns kanal ppnas och brjar lyssna p den av anvndaren
+	 * specifierade ntverksporten. Kanalen lmnas blockerande, d
+	 * tjnar-objektet nd har en egen trd att vnta i.
+	 */
+	this.serverChannel = ServerSocketChannel.open();
+	try {
+	    this.serverChannel.bind(new InetSocketAddress(port));
+	} catch (IOException | IllegalArgumentException e) {
+	    this.serverChannel.close();
+	    throw e;
+	}
+
+	this.task = new AbstractServantTask() {
+
+	    @Override
+	    void exit() {
+		try {
+		    ChannelConnectionServant.this.serverChannel.close();
+		} catch (IOException e) {
+		    listener.onConnectionInitializationError("Fel vid avslut utav lyssnande p ntverksport fr inkommande anslutningar.");
+		}
+	    }
+
+	    @Override
+	    void init() {
+		/*
+		 * Utebliven handling vid start.
+		 */
+	    }
+
+	    @Override
+	    void serve() throws InterruptedException {
+		try {
+		    SocketChannel newConnection = ChannelConnectionServant.this.serverChannel
+			    .accept();
+		    listener.onNewConnection(newConnection);
+
+		} catch (AsynchronousCloseException e) {
+		    /*
+		     * Kanalen stngs automatiskt om trden avbryts medan den
+		     * vntar p en anslutning. Avbrottet frs vidare s att
+		     * betjningen avslutas p ett ordnat stt.
+		     */
+		    throw new InterruptedException();
+		} catch (IOException e) {
+		    listener.onConnectionInitializationError(e.getMessage());
+		}
+	    }
+	};
+    }
+
+    /**
+     * Metod som returnerar en strng som representerar tjnar-objektet vid det
+     * tillflle som metoden anropats. Lyckas tjnar-objektet sl upp serverns
+     * host-adress s returneras {@code [HOST-ADRESS]:[NTVERKSPORT]}, i annat
+     * fall s returneras {@code UNRESOLVED HOST:[NTVERKSPORT]}
+     *
+     * @return en representerande strng
+     */
+    @Override
+    public final String toString() {
+
+	StringBuilder representation = new StringBuilder();
+	try {
+	    representation.append(InetAddress.getLocalHost().getHostName());
+	} catch (UnknownHostException e) {
+	    representation.append("UNRESOLVED HOST");
+	}
+	representation.append(":");
+	representation.append(this.serverChannel.socket().getLocalPort());
+	return representation.toString();
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver de delegerade
+     * metoder som skall deklareras externt, beroende p hur det objekt som
+     * anvnder sig utav denna klass vill ha det.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Listener extends EventListener {
+	/**
+	 * Den metod som skall anropas vid fel i kommunikationen med en klient.
+	 *
+	 * @param errorMessage
+	 *            ett felmeddelande som skickas vidare till det objekt som
+	 *            deklarerat metoden
+	 */
+	void onConnectionInitializationError(String errorMessage);
+
+	/**
+	 * Den metod som skall anropas nr en anslutning mot en ny klient
+	 * initialiserats.
+	 *
+	 * @param newConnection
+	 *            kanalen till den nya klienten
+	 */
+	void onNewConnection(SocketChannel newConnection);
+    }
+}
@@ -0,0 +1,136 @@
+package chatserver.service.servants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import chatserver.service.Configuration;
+import chatserver.service.misc.BatchStatistics;
+import chatserver.service.misc.Event;
+import chatserver.service.misc.MpscRingBuffer;
+
+/**
+ * Klass som frdelar hndelser ver ett antal filer, dr varje fil r en egen
+ * {@link EventServant} med en egen trd. Hndelser som hr till samma nyckel -
+ * till exempel samma klient - hamnar alltid i samma fil och hanteras drmed i
+ * den ordning de skickades, medan hndelser som hr till olika nycklar kan
+ * hanteras parallellt.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class EventDispatcher {
+
+    private final EventServant[] lanes;
+
+    /**
+     * Rknare som frdelar hndelser utan nyckel jmnt ver filerna.
+     */
+    private final AtomicInteger nextLane = new AtomicInteger(0);
+
+    /**
+     * Skapar ett objekt utav klassen {@link EventDispatcher}. Antalet filer,
+     * vilken sorts k varje fil anvnder samt hur mnga hndelser varje fil
+     * hanterar per uppvaknande bestms utav angivna instllningar.
+     *
+     * @param configuration
+     *            de instllningar som bestmmer antalet filer samt deras ker
+     */
+    public EventDispatcher(Configuration configuration) {
+	final int laneCount = configuration.getEventLaneCount();
+	final int capacity = configuration.getEventQueueCapacity();
+	final int batchSize = configuration.getEventBatchSize();
+
+	this.lanes = new EventServant[laneCount];
+	for (int i = 0; i < laneCount; i++) {
+	    /*
+	     * Utan angiven kapacitet s anvnds den ursprungliga obegrnsade
+	     * kn, i annat fall en frallokerad ringbuffer.
+	     */
+	    if (capacity == 0)
+		this.lanes[i] = new EventServant(
+			new LinkedBlockingQueue<Event>(), batchSize);
+	    else
+		this.lanes[i] = new EventServant(new MpscRingBuffer<Event>(
+			capacity, configuration.getEventWaitStrategy()),
+			batchSize);
+	}
+    }
+
+    /**
+     * Metod fr att skicka en hndelse som hr till en viss nyckel. Samtliga
+     * hndelser med samma nyckel hanteras i tur och ordning utav samma fil.
+     * Nycklar jmfrs utifrn identitet.
+     *
+     * @param key
+     *            den nyckel hndelsen hr till, till exempel en klient
+     * @param event
+     *            hndelsen som skall hanteras
+     */
+    public void dispatchEvent(Object key, Event event) {
+	this.lanes[laneOf(key)].dispatchEvent(event);
+    }
+
+    /**
+     * Metod fr att skicka en hndelse som inte behver hanteras i ngon viss
+     * ordning i frhllande till andra hndelser.
+     *
+     * @param event
+     *            hndelsen som skall hanteras
+     */
+    public void dispatchEvent(Event event) {
+	int lane = Math.floorMod(this.nextLane.getAndIncrement(),
+		this.lanes.length);
+	this.lanes[lane].dispatchEvent(event);
+    }
+
+    /**
+     * Metod som returnerar filernas krbara uppdrag, vilka samtliga mste
+     * exekveras fr att hndelserna skall hanteras.
+     *
+     * @return filernas krbara uppdrag
+     */
+    public List<Callable<Void>> getTasks() {
+	List<Callable<Void>> tasks = new ArrayList<>(this.lanes.length);
+	for (EventServant lane : this.lanes)
+	    tasks.add(lane.getTask());
+	return tasks;
+    }
+
+    /**
+     * Metod som summerar samtliga filers statistik ver de satser av
+     * hndelser som hanterats.
+     *
+     * @return en sammanstllning utav samtliga filers statistik
+     */
+    public BatchStatistics getBatchStatistics() {
+	BatchStatistics total = new BatchStatistics();
+	for (EventServant lane : this.lanes)
+	    total.add(lane.getBatchStatistics());
+	return total;
+    }
+
+    /**
+     * Metod som returnerar antalet filer.
+     *
+     * @return antalet filer
+     */
+    public int getLaneCount() {
+	return this.lanes.length;
+    }
+
+    /*
+     * Hjlpmetod som rknar ut vilken fil en nyckel hr till. Bitarna i
+     * nyckelns identitetshash blandas s att ven nrliggande vrden sprids
+     * jmnt ver filerna.
+     */
+    private int laneOf(Object key) {
+	int hash = System.identityHashCode(key);
+	hash ^= (hash >>> 16);
+	hash *= 0x85ebca6b;
+	hash ^= (hash >>> 13);
+	return Math.floorMod(hash, this.lanes.length);
+    }
+}
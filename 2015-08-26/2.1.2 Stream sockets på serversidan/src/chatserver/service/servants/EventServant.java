@@ -1,25 +1,67 @@
 package chatserver.service.servants;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import chatserver.service.misc.BatchStatistics;
 import chatserver.service.misc.Event;
 
 /**
- * TODO
- *
- * @author
+ * Tjnar-klass som hanterar avfyrade hndelser i den ordning de avfyrades.
+ * Hndelserna hanteras antingen en i taget, eller i satser dr samtliga
+ * hndelser som vntar i kn hmtas vid ett och samma uppvaknande - vilket
+ * sparar en vntan per hndelse nr mnga hndelser avfyras samtidigt, till
+ * exempel vid ett utskick till samtliga klienter.
  *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
  */
 public class EventServant extends AbstractServant {
 
-    private final BlockingQueue<Event> firedEvents = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Event> firedEvents;
 
     /**
-     * TODO
-     *
+     * Det hgsta antalet hndelser som hanteras per uppvaknande, samt den
+     * lista som satsen hmtas till. Listan teranvnds mellan satserna.
+     */
+    private final int batchLimit;
+    private final List<Event> batch;
+
+    private final BatchStatistics batchStatistics = new BatchStatistics();
+
+    /**
+     * Skapar ett objekt utav klassen {@link EventServant} vars k ver
+     * avfyrade hndelser r obegrnsad, och som hanterar hndelserna en i
+     * taget.
      */
     public EventServant() {
+	this(new LinkedBlockingQueue<Event>(), 1);
+    }
+
+    /**
+     * Skapar ett objekt utav klassen {@link EventServant} som anvnder angiven
+     * k ver avfyrade hndelser. Kn behver enbart klara av en konsument,
+     * se {@link chatserver.service.misc.MpscRingBuffer}.
+     *
+     * @param firedEvents
+     *            kn som avfyrade hndelser skall placeras i
+     * @param batchLimit
+     *            det hgsta antalet hndelser som hanteras per uppvaknande,
+     *            eller {@code 0} fr samtliga vntande hndelser
+     * @throws IllegalArgumentException
+     *             om satsens storlek r negativ
+     */
+    public EventServant(BlockingQueue<Event> firedEvents, int batchLimit)
+	    throws IllegalArgumentException {
+	if (batchLimit < 0)
+	    throw new IllegalArgumentException(
+		    "Satsens storlek fr inte vara negativ!");
+
+	this.firedEvents = firedEvents;
+	this.batchLimit = batchLimit == 0 ? Integer.MAX_VALUE : batchLimit;
+	this.batch = new ArrayList<>(Math.min(this.batchLimit, 1024));
 	this.task = new AbstractServantTask() {
 
 	    @Override
@@ -29,9 +71,38 @@ public class EventServant extends AbstractServant {
 		 */
 	    }
 
+	    /*
+	     * Metoden r inte synkroniserad, d den enbart anropas utav den trd
+	     * som exekverar uppdraget. En virtuell trd som vntar i take()
+	     * inuti ett synkroniserat block skulle dessutom lsa fast sin
+	     * brartrd.
+	     */
 	    @Override
-	    synchronized void serve() throws InterruptedException {
-		EventServant.this.firedEvents.take().execute();
+	    void serve() throws InterruptedException {
+		final Event first = EventServant.this.firedEvents.take();
+		if (EventServant.this.batchLimit == 1) {
+		    first.execute();
+		    EventServant.this.batchStatistics.record(1);
+		    return;
+		}
+
+		/*
+		 * Samtliga hndelser som redan vntar hmtas utan att trden
+		 * behver vnta p nytt, upp till satsens grns.
+		 */
+		final List<Event> batch = EventServant.this.batch;
+		batch.add(first);
+		EventServant.this.firedEvents.drainTo(batch,
+			EventServant.this.batchLimit - 1);
+
+		final int size = batch.size();
+		try {
+		    for (int i = 0; i < size; i++)
+			batch.get(i).execute();
+		} finally {
+		    batch.clear();
+		}
+		EventServant.this.batchStatistics.record(size);
 	    }
 
 	    @Override
@@ -43,6 +114,16 @@ public class EventServant extends AbstractServant {
 	};
     }
 
+    /**
+     * Metod som returnerar statistiken ver de satser av hndelser som
+     * hanterats.
+     *
+     * @return statistiken ver hanterade satser
+     */
+    public BatchStatistics getBatchStatistics() {
+	return this.batchStatistics;
+    }
+
     /**
      * TODO
      *
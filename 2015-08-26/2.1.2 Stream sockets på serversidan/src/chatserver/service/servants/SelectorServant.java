@@ -0,0 +1,297 @@
+package chatserver.service.servants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.EventListener;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import chatserver.service.misc.ChannelClient;
+
+/**
+ * Tjnar-klass som utgr en hndelseloop vilken betjnar ett godtyckligt antal
+ * klienter med en och samma trd. Klienternas kanaler r icke-blockerande och
+ * lsning samt skrivning sker frst nr kanalerna r redo fr detta.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public class SelectorServant extends AbstractServant {
+
+    private final Selector selector;
+
+    /**
+     * Ker ver klienter som vntar p att registreras hos hndelseloopen,
+     * klienter som har meddelanden som vntar p att skrivas respektive
+     * klienter som skall kopplas ifrn fr att deras k varit full. Dessa
+     * populeras utav andra trdar och tms utav hndelseloopens trd.
+     */
+    private final Queue<ChannelClient> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private final Queue<ChannelClient> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<ChannelClient> pendingEvictions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Skapar ett objekt utav klassen {@link SelectorServant}.
+     *
+     * @param listener
+     *            det objekt med de delegerade metoder som skall anropas i
+     *            olika scenarion
+     * @throws IOException
+     *             ifall hndelseloopens {@link Selector} inte kunde ppnas
+     */
+    public SelectorServant(Listener listener) throws IOException {
+
+	this.selector = Selector.open();
+
+	this.task = new AbstractServantTask() {
+
+	    @Override
+	    void exit() {
+		try {
+		    SelectorServant.this.selector.close();
+		} catch (IOException e) {
+		    /*
+		     * Problem vid stngning - finns inte mycket att gra t
+		     * detta.
+		     */
+		}
+	    }
+
+	    @Override
+	    void init() {
+		/*
+		 * Utebliven handling vid start.
+		 */
+	    }
+
+	    @Override
+	    void serve() throws InterruptedException {
+		try {
+		    SelectorServant.this.selector.select();
+		} catch (IOException e) {
+		    throw new InterruptedException(e.getMessage());
+		}
+
+		/*
+		 * Vckningen kan bero p att trden avbrutits, vilket i sdana
+		 * fall frs vidare s att betjningen avslutas ordnat.
+		 */
+		if (Thread.interrupted())
+		    throw new InterruptedException();
+
+		registerPending();
+		evictPending();
+		writePending();
+
+		Iterator<SelectionKey> keys = SelectorServant.this.selector
+			.selectedKeys().iterator();
+		while (keys.hasNext()) {
+		    SelectionKey key = keys.next();
+		    keys.remove();
+
+		    ChannelClient client = (ChannelClient) key.attachment();
+		    try {
+			if (key.isReadable())
+			    read(key, client);
+			if (key.isValid() && key.isWritable())
+			    write(key, client);
+		    } catch (IOException | CancelledKeyException e) {
+			disconnect(key, client);
+		    }
+		}
+	    }
+
+	    /*
+	     * Registrerar de klienter som vntar p att tas om hand utav
+	     * hndelseloopen.
+	     */
+	    private void registerPending() {
+		ChannelClient client;
+		while ((client = SelectorServant.this.pendingRegistrations
+			.poll()) != null) {
+		    try {
+			client.setKey(client.getChannel().register(
+				SelectorServant.this.selector,
+				SelectionKey.OP_READ, client));
+
+			/*
+			 * Meddelanden som skickats innan registreringen skrivs
+			 * nu nr klienten har en nyckel.
+			 */
+			if (client.hasPendingOutput() && client.scheduleWrite())
+			    SelectorServant.this.pendingWrites.offer(client);
+		    } catch (ClosedChannelException e) {
+			listener.onConnectionLost(client);
+		    }
+		}
+	    }
+
+	    /*
+	     * Kopplar ifrn de klienter som inte hunnit ta emot meddelanden i
+	     * samma takt som de skickats.
+	     */
+	    private void evictPending() {
+		ChannelClient client;
+		while ((client = SelectorServant.this.pendingEvictions.poll()) != null) {
+		    SelectionKey key = client.getKey();
+		    if (key != null)
+			disconnect(key, client);
+		}
+	    }
+
+	    /*
+	     * Frsker skriva till de klienter som ftt nya meddelanden sedan
+	     * frra varvet.
+	     */
+	    private void writePending() {
+		ChannelClient client;
+		while ((client = SelectorServant.this.pendingWrites.poll()) != null) {
+		    SelectionKey key = client.getKey();
+		    if (key == null || !key.isValid()) {
+			client.completeWrite();
+			continue;
+		    }
+		    try {
+			write(key, client);
+		    } catch (IOException | CancelledKeyException e) {
+			disconnect(key, client);
+		    }
+		}
+	    }
+
+	    /*
+	     * Lser in det som finns att lsa frn klienten och delegerar
+	     * vidare varje fullstndig rad.
+	     */
+	    private void read(SelectionKey key, ChannelClient client)
+		    throws IOException {
+		if (client.read() < 0) {
+		    disconnect(key, client);
+		    return;
+		}
+
+		String message;
+		while ((message = client.nextLine()) != null)
+		    listener.onMessageReceived(client, message);
+	    }
+
+	    /*
+	     * Skriver klientens vntande meddelanden. Tar kanalen inte emot
+	     * allt s bevakas kanalen tills den ter r skrivbar.
+	     */
+	    private void write(SelectionKey key, ChannelClient client)
+		    throws IOException {
+		if (!client.flush()) {
+		    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		    return;
+		}
+
+		key.interestOps(SelectionKey.OP_READ);
+		client.completeWrite();
+
+		/*
+		 * Har ett nytt meddelande hunnit placeras i kn efter det att
+		 * kn tmdes s schemalggs skrivningen p nytt.
+		 */
+		if (client.hasPendingOutput() && client.scheduleWrite())
+		    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	    }
+
+	    /*
+	     * Avregistrerar klienten och meddelar att anslutningen brutits.
+	     */
+	    private void disconnect(SelectionKey key, ChannelClient client) {
+		if (!key.isValid())
+		    return;
+		key.cancel();
+		listener.onConnectionLost(client);
+	    }
+	};
+    }
+
+    /**
+     * Metod fr att verlmna en ansluten klient till hndelseloopen. Sjlva
+     * registreringen sker i hndelseloopens trd.
+     *
+     * @param client
+     *            den klient som skall betjnas
+     */
+    public void register(ChannelClient client) {
+	this.pendingRegistrations.offer(client);
+	this.selector.wakeup();
+    }
+
+    /**
+     * Metod fr att skicka ett meddelande till en klient som betjnas utav
+     * hndelseloopen. Meddelandet placeras i klientens k och skrivs sedan i
+     * hndelseloopens trd. r klientens k full s hanteras meddelandet
+     * enligt klientens {@link chatserver.service.Configuration.OverflowPolicy}
+     * - skall klienten kopplas ifrn s sker ven detta i hndelseloopens
+     * trd.
+     *
+     * @param client
+     *            den mottagande klienten
+     * @param message
+     *            det kodade meddelande som skall skickas, vilket kan delas
+     *            med vriga mottagare
+     */
+    public void send(ChannelClient client, ByteBuffer message) {
+	switch (client.enqueue(message)) {
+
+	case QUEUED:
+	    break;
+
+	case EVICTED:
+	    this.pendingEvictions.offer(client);
+	    this.selector.wakeup();
+	    return;
+
+	default:
+	    return;
+	}
+
+	/*
+	 * Hndelseloopen vcks enbart om skrivning inte redan schemalagts fr
+	 * klienten.
+	 */
+	if (client.scheduleWrite()) {
+	    this.pendingWrites.offer(client);
+	    this.selector.wakeup();
+	}
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver de delegerade
+     * metoder som skall deklareras externt, beroende p hur det objekt som
+     * anvnder sig utav denna klass vill ha det.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Listener extends EventListener {
+	/**
+	 * Syftet av denna metod r att utfra lmplig operation nr
+	 * anslutningen till en klient har brutits.
+	 *
+	 * @param client
+	 *            den klient vars anslutning brutits
+	 */
+	void onConnectionLost(ChannelClient client);
+
+	/**
+	 * Syftet av denna metod r att utfra lmplig operation nr ett
+	 * meddelande har mottagits.
+	 *
+	 * @param client
+	 *            den klient som skickat meddelandet
+	 * @param message
+	 *            det meddelande som mottogs
+	 */
+	void onMessageReceived(ChannelClient client, String message);
+    }
+}
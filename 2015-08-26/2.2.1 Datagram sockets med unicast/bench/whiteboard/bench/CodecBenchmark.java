@@ -0,0 +1,268 @@
+package whiteboard.bench;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+
+import whiteboard.mediator.StrokeCodec;
+import whiteboard.service.Service;
+
+/**
+ * Prestandamtning utav {@link StrokeCodec}, vilken jmfr protokollets
+ * versioner med avseende p genomstrmning vid kodning respektive avkodning,
+ * samt antalet byte per punkt. Punkterna utgr syntetiska streck dr varje
+ * punkt frflyttats slumpvis hgst ett visst antal bildpunkter frn den
+ * fregende, likt ett musdrag. Mtningen saknar externa beroenden och byggs
+ * samt krs med JDK:ns egna verktyg, frn projektets katalog:
+ *
+ * <pre>
+ * javac -encoding ISO-8859-1 -d bin $(find src -name "*.java")
+ * javac -encoding ISO-8859-1 -cp bin -d bin-bench $(find bench -name "*.java")
+ * java -cp bin:bin-bench whiteboard.bench.CodecBenchmark
+ * </pre>
+ *
+ * Parametrarna styrs med systemegenskaper:
+ * <ul>
+ * <li>{@code bench.warmups} och {@code bench.iterations} - antalet
+ * uppvrmnings- och mtomgngar</li>
+ * <li>{@code bench.steps} - den strsta frflyttningen mellan tv punkter i
+ * bildpunkter, till exempel {@code 2,8,64}</li>
+ * </ul>
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class CodecBenchmark {
+
+    /**
+     * Antalet punkter per omgng.
+     */
+    private final static int POINTS = 1 << 20;
+
+    private final static int WIDTH = 800;
+    private final static int HEIGHT = 600;
+
+    /**
+     * Huvudmetoden som anropas nr mtningen krs.
+     *
+     * @param args
+     *            anvnds inte
+     */
+    public static void main(String[] args) {
+	final int warmups = Integer.getInteger("bench.warmups", 5);
+	final int iterations = Math.max(1,
+		Integer.getInteger("bench.iterations", 10));
+
+	for (int step : steps()) {
+	    final int[] xs = new int[POINTS];
+	    final int[] ys = new int[POINTS];
+	    stroke(xs, ys, step, new Random(step));
+
+	    for (byte version : new byte[] { StrokeCodec.VERSION_PLAIN,
+		    StrokeCodec.VERSION_DELTA }) {
+		final Packets packets = new Packets(version, xs, ys);
+		final String name = String.format(Locale.ROOT,
+			"v%d steg=%-3d", version, step);
+
+		measure(name + " kodning", warmups, iterations, new Trial() {
+
+		    @Override
+		    public long run() {
+			return packets.encode();
+		    }
+		});
+		measure(name + " avkodning", warmups, iterations,
+			new Trial() {
+
+			    @Override
+			    public long run() {
+				return packets.decode();
+			    }
+			});
+		System.out.println(String.format(Locale.ROOT,
+			"%-40s %14.2f byte/punkt %8d paket", name + " storlek",
+			packets.bytes / (double) POINTS, packets.count));
+	    }
+	}
+    }
+
+    /*
+     * Hjlpmetod som utfr en mtning och skriver ut genomstrmningens
+     * medelvrde och standardavvikelse i punkter per millisekund.
+     */
+    private static void measure(String name, int warmups, int iterations,
+	    Trial trial) {
+	for (int i = 0; i < warmups; i++)
+	    trial.run();
+
+	final double[] throughput = new double[iterations];
+	for (int i = 0; i < iterations; i++) {
+	    final long start = System.nanoTime();
+	    final long points = trial.run();
+	    throughput[i] = points / ((System.nanoTime() - start) / 1e6);
+	}
+
+	double mean = 0;
+	for (double value : throughput)
+	    mean += value;
+	mean /= iterations;
+
+	double variance = 0;
+	for (double value : throughput)
+	    variance += (value - mean) * (value - mean);
+	final double deviation = Math.sqrt(variance / Math.max(1,
+		iterations - 1));
+
+	System.out.println(String.format(Locale.ROOT,
+		"%-40s %14.1f +/- %10.1f punkter/ms", name, mean, deviation));
+    }
+
+    /*
+     * Hjlpmetod som fyller koordinaterna med ett slumpvist streck inom
+     * ritytan.
+     */
+    private static void stroke(int[] xs, int[] ys, int step, Random random) {
+	int x = WIDTH / 2;
+	int y = HEIGHT / 2;
+	for (int i = 0; i < xs.length; i++) {
+	    x = Math.max(0, Math.min(WIDTH - 1, x + random.nextInt(2 * step + 1)
+		    - step));
+	    y = Math.max(0, Math.min(HEIGHT - 1, y
+		    + random.nextInt(2 * step + 1) - step));
+	    xs[i] = x;
+	    ys[i] = y;
+	}
+    }
+
+    /*
+     * Hjlpmetod som returnerar de frflyttningar som skall mtas.
+     */
+    private static int[] steps() {
+	final String value = System.getProperty("bench.steps", "2,8,64");
+	final String[] parts = value.split(",");
+	final int[] steps = new int[parts.length];
+	for (int i = 0; i < parts.length; i++)
+	    steps[i] = Integer.parseInt(parts[i].trim());
+	return steps;
+    }
+
+    /**
+     * Klass som hller ett streck uppdelat i paket om hgst
+     * {@link Service#MAX_PACKET_SIZE} byte, p samma stt som strecket skulle
+     * skickats.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private static final class Packets {
+	private final byte version;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] starts;
+	private final int[] lengths;
+	private final ByteBuffer[] encoded;
+	private final ByteBuffer scratch = ByteBuffer
+		.allocate(Service.MAX_PACKET_SIZE);
+	private final int count;
+	private final long bytes;
+	private long checksum = 0;
+
+	private final StrokeCodec.Sink sink = new StrokeCodec.Sink() {
+
+	    @Override
+	    public void onPoint(short x, short y) {
+		Packets.this.checksum += x ^ y;
+	    }
+	};
+
+	Packets(byte version, int[] xs, int[] ys) {
+	    this.version = version;
+	    this.xs = xs;
+	    this.ys = ys;
+
+	    /*
+	     * Strecket delas upp i paket p samma stt som vid sndning - ett
+	     * paket fylls tills ytterligare en punkt inte skert ryms.
+	     */
+	    final int limit = StrokeCodec.maxPoints(version,
+		    Service.MAX_PACKET_SIZE);
+	    final int[] starts = new int[xs.length];
+	    final int[] lengths = new int[xs.length];
+	    int count = 0;
+	    for (int start = 0; start < xs.length; count++) {
+		int size = StrokeCodec.HEADER_SIZE;
+		int length = 0;
+		do {
+		    size += StrokeCodec.pointSize(version, xs, ys, start, start
+			    + length);
+		    length++;
+		} while (start + length < xs.length
+			&& length < limit
+			&& Service.MAX_PACKET_SIZE - size >= StrokeCodec
+				.maxPointSize(version));
+		starts[count] = start;
+		lengths[count] = length;
+		start += length;
+	    }
+
+	    this.count = count;
+	    this.starts = starts;
+	    this.lengths = lengths;
+	    this.encoded = new ByteBuffer[count];
+	    long bytes = 0;
+	    for (int i = 0; i < count; i++) {
+		this.encoded[i] = ByteBuffer.allocate(Service.MAX_PACKET_SIZE);
+		encode(i, this.encoded[i]);
+		this.encoded[i].flip();
+		bytes += this.encoded[i].remaining();
+	    }
+	    this.bytes = bytes;
+	}
+
+	long encode() {
+	    long points = 0;
+	    for (int i = 0; i < this.count; i++) {
+		this.scratch.clear();
+		encode(i, this.scratch);
+		points += this.lengths[i];
+	    }
+	    return points;
+	}
+
+	long decode() {
+	    long points = 0;
+	    for (int i = 0; i < this.count; i++) {
+		final ByteBuffer packet = this.encoded[i].duplicate();
+		if (!StrokeCodec.decode(packet, this.sink))
+		    throw new IllegalStateException("Paket " + i
+			    + " kunde inte avkodas!");
+		points += this.lengths[i];
+	    }
+	    return points;
+	}
+
+	/*
+	 * Hjlpmetod som kodar ett paket direkt frn strecket.
+	 */
+	private void encode(int packet, ByteBuffer out) {
+	    StrokeCodec.encode(this.version, this.xs, this.ys,
+		    this.starts[packet], this.lengths[packet], out);
+	}
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver en omgng i
+     * en mtning.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    private interface Trial {
+	/**
+	 * Den metod som utfr omgngen.
+	 *
+	 * @return antalet punkter som behandlats under omgngen
+	 */
+	long run();
+    }
+}
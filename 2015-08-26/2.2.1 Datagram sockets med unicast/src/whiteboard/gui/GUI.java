@@ -2,14 +2,24 @@ package whiteboard.gui;
 
 import java.awt.BorderLayout;
 import java.awt.EventQueue;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JFrame;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 
 /**
@@ -20,10 +30,31 @@ import javax.swing.WindowConstants;
  * @version 1.0
  */
 public class GUI {
+
+    /**
+     * Tiden mellan tv uppdateringar utav 'pappret' med punkter som tagits
+     * emot, vilket motsvarar 60 bilder per sekund.
+     */
+    private final static int FRAME_MILLIS = 16;
+
     private Delegate delegate;
     private Paper paper;
     private final JFrame frame;
 
+    /**
+     * Den framtid som fullbordas s fort fnstret r frdigbyggt.
+     */
+    private final CompletableFuture<Void> readiness = new CompletableFuture<>();
+
+    /**
+     * Punkter som tagits emot men nnu inte frts ver till 'pappret', samt
+     * flaggan som anger huruvida en verfring redan r schemalagd.
+     */
+    private final Queue<Point> pendingPoints = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final List<Point> flushedPoints = new ArrayList<>();
+    private final Timer flushTimer;
+
     /**
      * Skapar ett objekt utav det grafiska anvndargrnssnittet. Anvnder sig
      * utav {@link EventQueue} under instansieringen.
@@ -57,6 +88,25 @@ public class GUI {
 	 */
 	this.frame = initializeFrame(this);
 
+	/*
+	 * Fnstret r frdigbyggt - de som vntar p att det grafiska
+	 * anvndargrnssnittet skall bli redo meddelas.
+	 */
+	this.readiness.complete(null);
+
+	/*
+	 * Instansierar den timer som fr ver mottagna punkter till 'pappret'
+	 * hgst en gng per bildruta.
+	 */
+	this.flushTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+
+	    @Override
+	    public void actionPerformed(ActionEvent e) {
+		flushPoints();
+	    }
+	});
+	this.flushTimer.setRepeats(false);
+
 	/*
 	 * TODO
 	 */
@@ -75,18 +125,25 @@ public class GUI {
     }
 
     /**
-     * TODO
+     * Metod fr att rita en punkt som tagits emot p 'pappret'. Metoden kan
+     * anropas frn vilken trd som helst. Punkterna samlas ihop och frs ver
+     * till 'pappret' hgst en gng per bildruta, s att en snabb ritning frn
+     * ntverket ger en uppdatering per bildruta istllet fr en per punkt.
      *
      * @param x
+     *            x-koordinaten av punkten
      * @param y
+     *            y-koordinaten av punkten
      */
     public void addPoint(int x, int y) {
-	EventQueue.invokeLater(new Runnable() {
-	    @Override
-	    public void run() {
-		GUI.this.paper.addPoint(x, y);
-	    }
-	});
+	this.pendingPoints.add(new Point(x, y));
+	if (this.flushScheduled.compareAndSet(false, true))
+	    EventQueue.invokeLater(new Runnable() {
+		@Override
+		public void run() {
+		    GUI.this.flushTimer.restart();
+		}
+	    });
     }
 
     /**
@@ -133,6 +190,32 @@ public class GUI {
 	return (this.frame != null);
     }
 
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort det grafiska
+     * anvndargrnssnittet r redo, det vill sga instansierat och fullt
+     * uppbyggt. Till skillnad frn {@link #isReady()} s behver den som
+     * vntar inte frga om och om igen.
+     * 
+     * @return framtiden
+     */
+    public final CompletableFuture<Void> getReadiness() {
+	return this.readiness;
+    }
+
+    /*
+     * Hjlpmetod som p hndelsetrden fr ver samtliga vntande punkter
+     * till 'pappret' i en och samma omgng.
+     */
+    private void flushPoints() {
+	this.flushScheduled.set(false);
+
+	Point point;
+	while ((point = this.pendingPoints.poll()) != null)
+	    this.flushedPoints.add(point);
+	this.paper.addPoints(this.flushedPoints);
+	this.flushedPoints.clear();
+    }
+
     /**
      * Metod som r till fr att instansiera fnstret i det grafiska
      * anvndargrnssnittet. Initialiseringen sker i en annan trd fr att inte
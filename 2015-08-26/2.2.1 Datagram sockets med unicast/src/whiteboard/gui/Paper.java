@@ -3,9 +3,10 @@ package whiteboard.gui;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
 
 import javax.swing.JPanel;
 
@@ -21,31 +22,81 @@ class Paper extends JPanel {
      * TODO
      */
     private static final long serialVersionUID = -7520132893053334404L;
-    private final HashSet<Point> points;
+
+    /**
+     * Samtliga punkter som ritats, vilka sparas fr teruppspelning och
+     * synkronisering. Punkterna anvnds inte vid ritning.
+     */
+    private final PointStore points;
+
+    /**
+     * Den bild som varje ny punkt ritas p en gng fr alla, samt det
+     * grafiska objekt som ritar p bilden.
+     */
+    private final transient BufferedImage canvas;
+    private final transient Graphics2D canvasGraphics;
 
     Paper() {
-	this.points = new HashSet<>();
+	this.points = new PointStore(800, 600);
 
 	setOpaque(true);
 	setBackground(Color.WHITE);
 	setPreferredSize(new Dimension(800, 600));
 	setMinimumSize(getPreferredSize());
 	setMaximumSize(getPreferredSize());
+
+	this.canvas = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+	this.canvasGraphics = this.canvas.createGraphics();
+	this.canvasGraphics.setColor(getBackground());
+	this.canvasGraphics.fillRect(0, 0, 800, 600);
+	this.canvasGraphics.setColor(Color.black);
     }
 
+    /**
+     * Ritar om komponenten genom att kopiera den del utav bilden som skall
+     * ritas om. Kostnaden beror drmed enbart p omrdets storlek och inte p
+     * antalet punkter som ritats.
+     *
+     * @param g
+     *            det grafiska objekt som skall ritas med
+     */
     @Override
     public void paintComponent(Graphics g) {
-	super.paintComponent(g);
-	g.setColor(Color.black);
-	Iterator<Point> i = this.points.iterator();
-	while (i.hasNext()) {
-	    Point p = i.next();
-	    g.fillOval(p.x, p.y, 2, 2);
-	}
+	g.drawImage(this.canvas, 0, 0, null);
     }
 
     public void addPoint(int x, int y) {
-	this.points.add(new Point(x, y));
-	repaint();
+	if (this.points.add(x, y)) {
+	    this.canvasGraphics.fillOval(x, y, 2, 2);
+	    repaint(x, y, 2, 2);
+	}
+    }
+
+    /**
+     * Metod fr att lgga till flera punkter p en gng. Enbart det omrde
+     * som omsluter de nya punkterna ritas om, och det med ett enda anrop.
+     *
+     * @param newPoints
+     *            punkterna som skall lggas till
+     */
+    void addPoints(Collection<Point> newPoints) {
+	if (newPoints.isEmpty())
+	    return;
+
+	int minX = Integer.MAX_VALUE;
+	int minY = Integer.MAX_VALUE;
+	int maxX = Integer.MIN_VALUE;
+	int maxY = Integer.MIN_VALUE;
+	for (Point p : newPoints) {
+	    if (!this.points.add(p.x, p.y))
+		continue;
+	    this.canvasGraphics.fillOval(p.x, p.y, 2, 2);
+	    minX = Math.min(minX, p.x);
+	    minY = Math.min(minY, p.y);
+	    maxX = Math.max(maxX, p.x);
+	    maxY = Math.max(maxY, p.y);
+	}
+	if (minX <= maxX)
+	    repaint(minX, minY, maxX - minX + 2, maxY - minY + 2);
     }
 }
\ No newline at end of file
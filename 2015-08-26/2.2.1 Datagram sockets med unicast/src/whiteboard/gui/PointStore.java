@@ -0,0 +1,223 @@
+package whiteboard.gui;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Klass som sparar ritade punkter i den ordning de lades till, utan att skapa
+ * ett objekt per punkt. Varje punkt packas som tv {@code short} i en och
+ * samma {@code int}, och punkterna sparas i block utav fast storlek som lggs
+ * till efterhand - s att lagringen aldrig behver kopieras om nr den vxer.
+ * <p>
+ * Punkter inom den yta som anges nr objektet skapas sparas hgst en gng,
+ * vilket avgrs med en bitkarta ver ytan. Punkter utanfr ytan sparas som de
+ * r. Objektet r inte trdskert.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+final class PointStore {
+
+    /**
+     * Antalet punkter per block.
+     */
+    private final static int CHUNK_SIZE = 4096;
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Bitkartan ver de punkter inom ytan som redan sparats.
+     */
+    private final long[] occupied;
+
+    /**
+     * Blocken utav packade punkter, samt varje blocks omslutande rektangel s
+     * att block som inte berrs kan hoppas ver vid en skning.
+     */
+    private int[][] chunks = new int[0][];
+    private int[][] chunkBounds = new int[0][];
+    private int size = 0;
+
+    /**
+     * Skapar ett objekt utav klassen {@link PointStore}.
+     *
+     * @param width
+     *            bredden p den yta dr punkter sparas hgst en gng
+     * @param height
+     *            hjden p den yta dr punkter sparas hgst en gng
+     */
+    PointStore(int width, int height) {
+	this.width = width;
+	this.height = height;
+	this.occupied = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Metod fr att packa en punkt.
+     *
+     * @param x
+     *            x-koordinaten av punkten
+     * @param y
+     *            y-koordinaten av punkten
+     * @return den packade punkten
+     */
+    static int pack(int x, int y) {
+	return (x << 16) | (y & 0xFFFF);
+    }
+
+    /**
+     * Metod som returnerar x-koordinaten av en packad punkt.
+     *
+     * @param point
+     *            den packade punkten
+     * @return x-koordinaten
+     */
+    static int x(int point) {
+	return point >> 16;
+    }
+
+    /**
+     * Metod som returnerar y-koordinaten av en packad punkt.
+     *
+     * @param point
+     *            den packade punkten
+     * @return y-koordinaten
+     */
+    static int y(int point) {
+	return (short) point;
+    }
+
+    /**
+     * Metod fr att lgga till en punkt.
+     *
+     * @param x
+     *            x-koordinaten av punkten
+     * @param y
+     *            y-koordinaten av punkten
+     * @return {@code true} om punkten lades till, eller {@code false} om den
+     *         redan fanns
+     */
+    boolean add(int x, int y) {
+	if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+	    final int bit = y * this.width + x;
+	    final long mask = 1L << bit;
+	    if ((this.occupied[bit >>> 6] & mask) != 0)
+		return false;
+	    this.occupied[bit >>> 6] |= mask;
+	}
+
+	final int chunk = this.size / CHUNK_SIZE;
+	if (chunk == this.chunks.length) {
+	    this.chunks = Arrays.copyOf(this.chunks, chunk + 1);
+	    this.chunks[chunk] = new int[CHUNK_SIZE];
+	    this.chunkBounds = Arrays.copyOf(this.chunkBounds, chunk + 1);
+	    this.chunkBounds[chunk] = new int[] { x, y, x, y };
+	}
+
+	final int[] bounds = this.chunkBounds[chunk];
+	bounds[0] = Math.min(bounds[0], x);
+	bounds[1] = Math.min(bounds[1], y);
+	bounds[2] = Math.max(bounds[2], x);
+	bounds[3] = Math.max(bounds[3], y);
+
+	this.chunks[chunk][this.size % CHUNK_SIZE] = pack(x, y);
+	this.size++;
+	return true;
+    }
+
+    /**
+     * Metod som returnerar antalet sparade punkter.
+     *
+     * @return antalet punkter
+     */
+    int size() {
+	return this.size;
+    }
+
+    /**
+     * Metod fr att beska samtliga punkter i den ordning de lades till.
+     *
+     * @param visitor
+     *            det objekt som besker punkterna
+     */
+    void forEach(Visitor visitor) {
+	for (int chunk = 0; chunk < this.chunks.length; chunk++) {
+	    final int[] points = this.chunks[chunk];
+	    final int count = Math.min(CHUNK_SIZE, this.size - chunk
+		    * CHUNK_SIZE);
+	    for (int i = 0; i < count; i++)
+		visitor.visit(x(points[i]), y(points[i]));
+	}
+    }
+
+    /**
+     * Metod fr att beska de punkter som ligger inom ett omrde, till
+     * exempel det omrde som skall ritas om. Block vars punkter samtliga
+     * ligger utanfr omrdet hoppas ver.
+     *
+     * @param region
+     *            omrdet
+     * @param visitor
+     *            det objekt som besker punkterna
+     */
+    void forEachWithin(Rectangle region, Visitor visitor) {
+	final int minX = region.x;
+	final int minY = region.y;
+	final int maxX = region.x + region.width - 1;
+	final int maxY = region.y + region.height - 1;
+
+	for (int chunk = 0; chunk < this.chunks.length; chunk++) {
+	    final int[] bounds = this.chunkBounds[chunk];
+	    if (bounds[2] < minX || bounds[0] > maxX || bounds[3] < minY
+		    || bounds[1] > maxY)
+		continue;
+
+	    final int[] points = this.chunks[chunk];
+	    final int count = Math.min(CHUNK_SIZE, this.size - chunk
+		    * CHUNK_SIZE);
+	    for (int i = 0; i < count; i++) {
+		final int x = x(points[i]);
+		final int y = y(points[i]);
+		if (x >= minX && x <= maxX && y >= minY && y <= maxY)
+		    visitor.visit(x, y);
+	    }
+	}
+    }
+
+    /**
+     * Metod som returnerar en kopia utav samtliga packade punkter i den
+     * ordning de lades till, lmplig fr teruppspelning eller fr att
+     * skickas till en annan part. Punkterna packas upp med {@link #x(int)}
+     * och {@link #y(int)}.
+     *
+     * @return de packade punkterna
+     */
+    int[] snapshot() {
+	final int[] snapshot = new int[this.size];
+	for (int chunk = 0; chunk < this.chunks.length; chunk++)
+	    System.arraycopy(this.chunks[chunk], 0, snapshot, chunk
+		    * CHUNK_SIZE, Math.min(CHUNK_SIZE, this.size - chunk
+		    * CHUNK_SIZE));
+	return snapshot;
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den metod
+     * som anropas fr varje beskt punkt.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    interface Visitor {
+	/**
+	 * Den metod som anropas fr varje beskt punkt.
+	 *
+	 * @param x
+	 *            x-koordinaten av punkten
+	 * @param y
+	 *            y-koordinaten av punkten
+	 */
+	void visit(int x, int y);
+    }
+}
@@ -2,8 +2,7 @@ package whiteboard.mediator;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 
 import whiteboard.gui.GUI;
 import whiteboard.service.Service;
@@ -16,17 +15,36 @@ import whiteboard.service.Service;
  * @version 1.0
  */
 public class Mediator {
+
+    /**
+     * Den version utav {@link StrokeCodec} som lokalt ritade punkter skickas
+     * med. Mottagna paket avkodas oavsett version.
+     */
+    public final static byte STROKE_VERSION = StrokeCodec.VERSION_DELTA;
+
     private Service service;
     private GUI gui;
+    private StrokeBatcher batcher;
+    private boolean bundlingInitiated = false;
 
     /**
-     * Skapar ett objekt utav klassen {@link Mediator} och instansierar
-     * ihopbundnings-frskandet som har i syfte att synkronisera det grafiska
-     * anvndargrnssnittet med den underliggande tjnsten som driver
-     * applikationen.
+     * Mottagaren utav avkodade punkter, vilken lmnar dessa vidare till det
+     * grafiska anvndargrnssnittet.
+     */
+    private final StrokeCodec.Sink pointSink = new StrokeCodec.Sink() {
+
+	@Override
+	public void onPoint(short x, short y) {
+	    Mediator.this.gui.addPoint(x, y);
+	}
+    };
+
+    /**
+     * Skapar ett objekt utav klassen {@link Mediator}. Ihopbundningen utav det
+     * grafiska anvndargrnssnittet med den underliggande tjnsten som driver
+     * applikationen pbrjas s fort bgge registrerats.
      */
     public Mediator() {
-	initializeBundling();
     }
 
     /**
@@ -40,14 +58,24 @@ public class Mediator {
     public void registerService(Service service) {
 
 	this.service = service;
+	this.batcher = new StrokeBatcher(STROKE_VERSION,
+		Service.MAX_PACKET_SIZE, new StrokeBatcher.Delegate() {
+
+		    @Override
+		    public void onPacket(byte[] data) {
+			Mediator.this.service.transmitData(data);
+		    }
+		});
 
 	this.service.setDelegate(new Service.Delegate() {
 
 	    @Override
-	    public void onDataReceived(byte[] data) {
-		ByteBuffer decoder = ByteBuffer.wrap(data);
-		Mediator.this.gui.addPoint(decoder.getShort(),
-			decoder.getShort());
+	    public void onDataReceived(ByteBuffer data) {
+		/*
+		 * Paketet avkodas direkt ur mottagarens buffert, innan nsta
+		 * paket tas emot.
+		 */
+		StrokeCodec.decode(data, Mediator.this.pointSink);
 	    }
 
 	    @Override
@@ -56,6 +84,9 @@ public class Mediator {
 		System.out.println("HALLOJ - FEL!");
 	    }
 	});
+
+	if (this.gui != null)
+	    initializeBundling();
     }
 
     /**
@@ -73,13 +104,16 @@ public class Mediator {
 
 	    @Override
 	    public void onLocalEdit(short x, short y) {
-		ByteBuffer decoder = ByteBuffer.allocate(4);
-		decoder.putShort(x);
-		decoder.putShort(y);
-		byte[] data = decoder.array();
-		Mediator.this.service.transmitData(data);
+		/*
+		 * Punkten skickas inte direkt, utan samlas ihop med
+		 * efterfljande punkter till ett och samma paket.
+		 */
+		Mediator.this.batcher.add(x, y);
 	    }
 	});
+
+	if (this.service != null)
+	    initializeBundling();
     }
 
     /**
@@ -98,51 +132,25 @@ public class Mediator {
      * anvndargrnssnittet, d detta annars kommer leda till avbrott av typen
      * {@link NullPointerException}.
      * 
-     * Metoden startar en timer som med en intervall p 500 millisekunder
-     * kontrollerar ifall den underliggante tjnsten r redo. Om den r det s
-     * tillts interaktion med det grafiska anvndargrnssnittet och
-     * applikationen r d fullt redo.
+     * Metoden registrerar en handling som utfrs s fort bde det grafiska
+     * anvndargrnssnittet och tjnsten meddelat att de r redo. D uppdateras
+     * fnstrets titel och interaktion tillts. Ingen trd behver vnta eller
+     * frga om.
      */
     private final void initializeBundling() {
 
-	/*
-	 * En timer startas. Den trd som exekverar timer:n namnges.
-	 */
-	new Timer("Mediator").scheduleAtFixedRate(new TimerTask() {
+	if (this.bundlingInitiated)
+	    return;
+	this.bundlingInitiated = true;
+
+	CompletableFuture.allOf(this.gui.getReadiness(),
+		this.service.getReadiness()).thenRun(new Runnable() {
 
 	    @Override
 	    public void run() {
-
-		/*
-		 * En frsta kontroll utfrs fr att utvrdera ifall bgge sidor
-		 * utav servern - det vill sga bde det grafiska grnssnittet
-		 * och den underliggande server-tjnsten - har instansierats.
-		 */
-		if (Mediator.this.gui != null && Mediator.this.service != null) {
-
-		    /*
-		     * Om ovanstende villkor uppfylls s utfrs en andra
-		     * kontroll fr att se om det grafiska anvndargrnssnittet
-		     * samt den underliggande server-tjnsten r redo.
-		     */
-		    if (Mediator.this.gui.isReady()
-			    && Mediator.this.service.isServing()) {
-
-			/*
-			 * Uppfylls ven ovanstende villkor s uppdateras
-			 * fnstrets titel i det grafiska anvndargrnssnittet
-			 * och interaktion tillts.
-			 */
-			updateGuiWindowTitle();
-			Mediator.this.gui.setEnabled(true);
-
-			/*
-			 * Timer:n stoppas d den inte lngre behvs.
-			 */
-			cancel();
-		    }
-		}
+		updateGuiWindowTitle();
+		Mediator.this.gui.setEnabled(true);
 	    }
-	}, 0, 500);
+	});
     }
 }
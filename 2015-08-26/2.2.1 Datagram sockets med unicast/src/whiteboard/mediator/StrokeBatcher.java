@@ -0,0 +1,140 @@
+package whiteboard.mediator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Klass som samlar ihop lokalt ritade punkter till paket, s att en snabb
+ * ritning inte ger upphov till ett paket per punkt. Ett paket skickas nr
+ * ytterligare en punkt inte skert ryms, eller senast en kort stund efter att
+ * dess frsta punkt lades till.
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+final class StrokeBatcher {
+
+    /**
+     * Den lngsta tid en punkt vntar p att skickas.
+     */
+    final static long FLUSH_MILLIS = 5;
+
+    private final Delegate delegate;
+    private final byte version;
+    private final int packetSize;
+    private final int[] xs;
+    private final int[] ys;
+    private final ByteBuffer packet;
+    private int count = 0;
+    private int encodedSize = StrokeCodec.HEADER_SIZE;
+
+    /**
+     * Trden som skickar paket som inte hunnit fyllas.
+     */
+    private final ScheduledExecutorService scheduler = Executors
+	    .newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+		    Thread thread = new Thread(runnable, "StrokeBatcher");
+		    thread.setDaemon(true);
+		    return thread;
+		}
+	    });
+    private final Runnable flushTask = new Runnable() {
+
+	@Override
+	public void run() {
+	    flush();
+	}
+    };
+
+    /**
+     * Skapar ett objekt utav klassen {@link StrokeBatcher}.
+     *
+     * @param version
+     *            den version utav {@link StrokeCodec} som paketen kodas med
+     * @param packetSize
+     *            den strsta storleken p ett paket
+     * @param delegate
+     *            det delegat-objekt som tar emot frdiga paket
+     * @throws IllegalArgumentException
+     *             om versionen r oknd
+     */
+    StrokeBatcher(byte version, int packetSize, Delegate delegate)
+	    throws IllegalArgumentException {
+	final int maxPoints = StrokeCodec.maxPoints(
+		StrokeCodec.checkVersion(version), packetSize);
+	this.delegate = delegate;
+	this.version = version;
+	this.packetSize = packetSize;
+	this.xs = new int[maxPoints];
+	this.ys = new int[maxPoints];
+	this.packet = ByteBuffer.allocate(packetSize);
+    }
+
+    /**
+     * Metod fr att lgga till en punkt i det paket som hller p att samlas
+     * ihop.
+     *
+     * @param x
+     *            x-koordinaten av punkten
+     * @param y
+     *            y-koordinaten av punkten
+     */
+    synchronized void add(short x, short y) {
+	this.xs[this.count] = x;
+	this.ys[this.count] = y;
+	this.encodedSize += StrokeCodec.pointSize(this.version, this.xs,
+		this.ys, 0, this.count);
+	this.count++;
+
+	if (this.count == this.xs.length
+		|| this.packetSize - this.encodedSize < StrokeCodec
+			.maxPointSize(this.version))
+	    flush();
+	else if (this.count == 1)
+	    this.scheduler.schedule(this.flushTask, FLUSH_MILLIS,
+		    TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Metod fr att direkt skicka de punkter som samlats ihop.
+     */
+    synchronized void flush() {
+	if (this.count == 0)
+	    return;
+
+	this.packet.clear();
+	StrokeCodec.encode(this.version, this.xs, this.ys, 0, this.count,
+		this.packet);
+	this.count = 0;
+	this.encodedSize = StrokeCodec.HEADER_SIZE;
+
+	final byte[] data = new byte[this.packet.position()];
+	this.packet.flip();
+	this.packet.get(data);
+	this.delegate.onPacket(data);
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den eller dem
+     * delegerade "call-back" metod(er) som internt skall anropas av det
+     * gande objeket vid olika scenarion.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    interface Delegate {
+	/**
+	 * Den metod som internt anropas nr ett paket r frdigt att skickas.
+	 *
+	 * @param data
+	 *            paketet
+	 */
+	void onPacket(byte[] data);
+    }
+}
@@ -0,0 +1,286 @@
+package whiteboard.mediator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Klass som kodar och avkodar de paket utav punkter som skickas mellan tv
+ * whiteboards. Varje paket inleds med ett huvud som bestr utav protokollets
+ * version fljt utav antalet punkter i paketet:
+ *
+ * <pre>
+ * +---------+--------+------------------------------+
+ * | version | antal  | punkter                      |
+ * | 1 byte  | 2 byte | enligt versionen             |
+ * +---------+--------+------------------------------+
+ * </pre>
+ *
+ * I version {@value #VERSION_PLAIN} skickas varje punkt som tv absoluta
+ * koordinater om 2 byte vardera. I version {@value #VERSION_DELTA} skickas
+ * enbart den frsta punkten s, medan varje efterfljande punkt skickas som
+ * skillnaden mot den fregende punkten - kodad med "zig-zag" s att sm
+ * negativa skillnader blir sm positiva tal, och sedan som ett tal utav
+ * varierande lngd om 7 bitar per byte. En rrelse om ngra f bildpunkter
+ * ryms drmed i 2 byte istllet fr 4.
+ * <p>
+ * Den som skickar vljer version per paket, medan den som tar emot avkodar
+ * samtliga knda versioner. Samtliga tal om fast lngd skickas i
+ * ntverks-ordning (big-endian).
+ *
+ * @author Atilla zkan | 930304-4474 | atoz0393
+ * @version 1.0
+ */
+public final class StrokeCodec {
+
+    /**
+     * Den version utav protokollet dr varje punkt skickas som tv absoluta
+     * koordinater.
+     */
+    public final static byte VERSION_PLAIN = 1;
+
+    /**
+     * Den version utav protokollet dr varje punkt efter den frsta skickas
+     * som skillnaden mot den fregende punkten.
+     */
+    public final static byte VERSION_DELTA = 2;
+
+    /**
+     * Storleken p paketets huvud.
+     */
+    public final static int HEADER_SIZE = 3;
+
+    /**
+     * Storleken p en punkt som skickas med absoluta koordinater.
+     */
+    public final static int PLAIN_POINT_SIZE = 4;
+
+    /**
+     * Den strsta storleken p en punkt som skickas som en skillnad - tv
+     * skillnader om hgst 17 bitar, vilka ryms i 3 byte vardera.
+     */
+    public final static int MAX_DELTA_POINT_SIZE = 6;
+
+    /**
+     * Klassen skall inte instansieras.
+     */
+    private StrokeCodec() {
+    }
+
+    /**
+     * Metod som kontrollerar att en version r knd.
+     *
+     * @param version
+     *            versionen
+     * @return versionen
+     * @throws IllegalArgumentException
+     *             om versionen r oknd
+     */
+    public static byte checkVersion(byte version)
+	    throws IllegalArgumentException {
+	if (version != VERSION_PLAIN && version != VERSION_DELTA)
+	    throw new IllegalArgumentException("Oknd version: " + version);
+	return version;
+    }
+
+    /**
+     * Metod som returnerar det strsta antal punkter som kan rymmas i ett
+     * paket utav given storlek.
+     *
+     * @param version
+     *            den version paketet kodas med
+     * @param packetSize
+     *            paketets storlek
+     * @return antalet punkter
+     */
+    public static int maxPoints(byte version, int packetSize) {
+	final int room = packetSize - HEADER_SIZE;
+	if (version == VERSION_PLAIN || room < PLAIN_POINT_SIZE)
+	    return Math.min(0xFFFF, Math.max(0, room / PLAIN_POINT_SIZE));
+	return Math.min(0xFFFF, 1 + (room - PLAIN_POINT_SIZE) / 2);
+    }
+
+    /**
+     * Metod som returnerar den strsta storlek en punkt kan kodas till.
+     *
+     * @param version
+     *            den version punkten kodas med
+     * @return storleken
+     */
+    public static int maxPointSize(byte version) {
+	return version == VERSION_PLAIN ? PLAIN_POINT_SIZE
+		: MAX_DELTA_POINT_SIZE;
+    }
+
+    /**
+     * Metod som returnerar den storlek en punkt kodas till.
+     *
+     * @param version
+     *            den version punkten kodas med
+     * @param xs
+     *            punkternas x-koordinater
+     * @param ys
+     *            punkternas y-koordinater
+     * @param offset
+     *            platsen fr paketets frsta punkt
+     * @param index
+     *            punktens plats
+     * @return storleken
+     */
+    public static int pointSize(byte version, int[] xs, int[] ys,
+	    int offset, int index) {
+	if (version == VERSION_PLAIN || index == offset)
+	    return PLAIN_POINT_SIZE;
+	return varintSize(zigZag(xs[index] - xs[index - 1]))
+		+ varintSize(zigZag(ys[index] - ys[index - 1]));
+    }
+
+    /**
+     * Metod fr att koda ett antal punkter till ett paket.
+     *
+     * @param version
+     *            den version paketet skall kodas med
+     * @param xs
+     *            punkternas x-koordinater
+     * @param ys
+     *            punkternas y-koordinater
+     * @param offset
+     *            platsen fr paketets frsta punkt
+     * @param count
+     *            antalet punkter
+     * @param out
+     *            den buffert som paketet skrivs till
+     * @throws java.nio.BufferOverflowException
+     *             om paketet inte ryms i bufferten
+     */
+    public static void encode(byte version, int[] xs, int[] ys, int offset,
+	    int count, ByteBuffer out) {
+	out.put(checkVersion(version));
+	out.putShort((short) count);
+	for (int i = offset; i < offset + count; i++) {
+	    if (version == VERSION_PLAIN || i == offset) {
+		out.putShort((short) xs[i]);
+		out.putShort((short) ys[i]);
+	    } else {
+		putVarint(out, zigZag(xs[i] - xs[i - 1]));
+		putVarint(out, zigZag(ys[i] - ys[i - 1]));
+	    }
+	}
+    }
+
+    /**
+     * Metod fr att avkoda ett paket. Punkterna lmnas en i taget till
+     * mottagaren, i den ordning de kodades.
+     *
+     * @param in
+     *            den buffert som paketet lses ifrn
+     * @param sink
+     *            mottagaren utav punkterna
+     * @return {@code true} om paketet kunde avkodas, eller {@code false} om
+     *         det var utav en oknd version eller avkortat - i vilket fall
+     *         de punkter som hann avkodas redan lmnats till mottagaren
+     */
+    public static boolean decode(ByteBuffer in, Sink sink) {
+	try {
+	    final byte version = in.get();
+	    final int count = in.getShort() & 0xFFFF;
+
+	    switch (version) {
+
+	    case VERSION_PLAIN:
+		if (in.remaining() < count * PLAIN_POINT_SIZE)
+		    return false;
+		for (int i = 0; i < count; i++)
+		    sink.onPoint(in.getShort(), in.getShort());
+		return true;
+
+	    case VERSION_DELTA:
+		if (count == 0)
+		    return true;
+		int x = in.getShort();
+		int y = in.getShort();
+		sink.onPoint((short) x, (short) y);
+		for (int i = 1; i < count; i++) {
+		    x += unZigZag(getVarint(in));
+		    y += unZigZag(getVarint(in));
+		    sink.onPoint((short) x, (short) y);
+		}
+		return true;
+
+	    default:
+		return false;
+	    }
+	} catch (BufferUnderflowException e) {
+	    return false;
+	}
+    }
+
+    /*
+     * Hjlpmetod som avbildar ett heltal med tecken p ett heltal utan tecken,
+     * s att tal nra noll - oavsett tecken - blir sm.
+     */
+    private static int zigZag(int value) {
+	return (value << 1) ^ (value >> 31);
+    }
+
+    /*
+     * Hjlpmetod som terstller ett tal kodat med zigZag(int).
+     */
+    private static int unZigZag(int value) {
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    /*
+     * Hjlpmetod som returnerar antalet byte ett tal utan tecken kodas till.
+     */
+    private static int varintSize(int value) {
+	int size = 1;
+	while ((value >>>= 7) != 0)
+	    size++;
+	return size;
+    }
+
+    /*
+     * Hjlpmetod som skriver ett tal utan tecken med 7 bitar per byte, minst
+     * signifikanta bitarna frst. Den hgsta biten anger att fler byte fljer.
+     */
+    private static void putVarint(ByteBuffer out, int value) {
+	while ((value & ~0x7F) != 0) {
+	    out.put((byte) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	out.put((byte) value);
+    }
+
+    /*
+     * Hjlpmetod som lser ett tal skrivet med putVarint(ByteBuffer, int).
+     */
+    private static int getVarint(ByteBuffer in) {
+	int value = 0;
+	for (int shift = 0; shift < 32; shift += 7) {
+	    final byte b = in.get();
+	    value |= (b & 0x7F) << shift;
+	    if (b >= 0)
+		return value;
+	}
+	throw new BufferUnderflowException();
+    }
+
+    /**
+     * Det till denna klass tillhrande grnssnitt som beskriver den metod som
+     * anropas fr varje avkodad punkt.
+     *
+     * @author Atilla zkan | 930304-4474 | atoz0393
+     * @version 1.0
+     */
+    public interface Sink {
+	/**
+	 * Den metod som anropas fr varje avkodad punkt.
+	 *
+	 * @param x
+	 *            x-koordinaten av punkten
+	 * @param y
+	 *            y-koordinaten av punkten
+	 */
+	void onPoint(short x, short y);
+    }
+}
@@ -3,6 +3,8 @@ package whiteboard.service;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 
 import whiteboard.service.servants.TransceivingServant;
@@ -15,6 +17,11 @@ import whiteboard.service.servants.TransceivingServant;
  */
 public class Service {
 
+    /**
+     * Den strsta storleken p ett paket som skickas eller tas emot.
+     */
+    public final static int MAX_PACKET_SIZE = TransceivingServant.MAX_PACKET_SIZE;
+
     private final TransceivingServant transceivingServant;
 
     /**
@@ -43,7 +50,7 @@ public class Service {
 		.setDelegate(new TransceivingServant.Delegate() {
 
 		    @Override
-		    public void onDataReceived(byte[] data) {
+		    public void onDataReceived(ByteBuffer data) {
 			delegate.onDataReceived(data);
 		    }
 
@@ -61,12 +68,20 @@ public class Service {
 
     public void transmitData(byte[] data) {
 	this.transceivingServant.transmitData(data);
-	System.out.println("Transmitting!");
+    }
+
+    /**
+     * Metod som returnerar en framtid som fullbordas s fort tjnsten tar
+     * emot paket.
+     *
+     * @return framtiden
+     */
+    public CompletableFuture<Void> getReadiness() {
+	return this.transceivingServant.getReadiness();
     }
 
     public boolean isServing() {
-	// TODO
-	return true;
+	return this.transceivingServant.isServing();
     }
 
     @Override
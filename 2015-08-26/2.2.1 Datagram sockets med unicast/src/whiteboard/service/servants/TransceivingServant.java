@@ -1,15 +1,23 @@
 package whiteboard.service.servants;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
 import java.util.EventListener;
 
 /**
  * Tjnar-klass som har i syfte att lyssna p inkommande data, samt kunna skicka
  * sdan.
+ * <p>
+ * Inkommande paket tas emot i en och samma direkta buffert, vilken teranvnds
+ * fr varje paket s att mottagandet inte ger upphov till ngra allokeringar.
+ * Delegatet fr en vy ver det mottagna paketet som enbart r giltig under
+ * anropet, d nsta paket skriver ver bufferten.
  * 
  * @author Atilla zkan | 930304-4474 | atoz0393
  * @version 1.0
@@ -17,9 +25,15 @@ import java.util.EventListener;
 public class TransceivingServant extends
 	AbstractServant<TransceivingServant.Delegate> {
 
-    private final DatagramSocket socket;
-    private final DatagramPacket inPacket;
-    private final DatagramPacket outPacket;
+    /**
+     * Den strsta storleken p ett paket som skickas eller tas emot, vald s
+     * att ett paket ryms i ett enda ethernet-paket ven ver IPv6.
+     */
+    public final static int MAX_PACKET_SIZE = 1200;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer inBuffer;
+    private final SocketAddress remoteAddress;
 
     /**
      * TODO
@@ -29,15 +43,23 @@ public class TransceivingServant extends
      * @param remoteHost
      * 
      * @throws SocketException
-     *
+     *             om den lokala ntverksporten inte kunde ppnas
      */
     public TransceivingServant(int localPort, InetAddress remoteHost,
 	    int remotePort) throws SocketException {
 
-	this.socket = new DatagramSocket(localPort);
-	this.inPacket = new DatagramPacket(new byte[50], 50);
-	this.outPacket = new DatagramPacket(new byte[50], 50, remoteHost,
-		remotePort);
+	try {
+	    this.channel = DatagramChannel.open();
+	    this.channel.bind(new InetSocketAddress(localPort));
+	} catch (SocketException e) {
+	    throw e;
+	} catch (IOException e) {
+	    SocketException exception = new SocketException(e.getMessage());
+	    exception.initCause(e);
+	    throw exception;
+	}
+	this.inBuffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+	this.remoteAddress = new InetSocketAddress(remoteHost, remotePort);
 
 	/*
 	 * Delegat-objektet instanseras till att inte gra ngot vid ngon
@@ -47,7 +69,7 @@ public class TransceivingServant extends
 	this.delegate = new Delegate() {
 
 	    @Override
-	    public void onDataReceived(byte[] data) {
+	    public void onDataReceived(ByteBuffer data) {
 		/*
 		 * Utebliven handling.
 		 */
@@ -71,9 +93,16 @@ public class TransceivingServant extends
     @Override
     void serve() {
 	try {
-	    this.socket.receive(this.inPacket);
-	    byte[] data = this.inPacket.getData();
-	    this.delegate.onDataReceived(data);
+	    this.inBuffer.clear();
+	    this.channel.receive(this.inBuffer);
+	    this.inBuffer.flip();
+	    this.delegate.onDataReceived(this.inBuffer);
+	} catch (ClosedChannelException e) {
+	    /*
+	     * Kanalen stngdes, eller trden avbrts, under vntan p ett
+	     * paket - betjningen avslutas.
+	     */
+	    Thread.currentThread().interrupt();
 	} catch (IOException e) {
 	    this.delegate.onIOException(e);
 	}
@@ -81,18 +110,23 @@ public class TransceivingServant extends
 
     @Override
     void exit() {
-	this.socket.close();
+	try {
+	    this.channel.close();
+	} catch (IOException e) {
+	    this.delegate.onIOException(e);
+	}
     }
 
     /**
-     * TODO
+     * Metod fr att skicka ett paket till den andra parten. Metoden kan
+     * anropas samtidigt som tjnaren tar emot paket.
      *
      * @param data
+     *            paketet som skall skickas
      */
     public void transmitData(byte[] data) {
-	this.outPacket.setData(data);
 	try {
-	    this.socket.send(this.outPacket);
+	    this.channel.send(ByteBuffer.wrap(data), this.remoteAddress);
 	} catch (IOException e) {
 	    this.delegate.onIOException(e);
 	}
@@ -106,7 +140,15 @@ public class TransceivingServant extends
      * @version 1.0
      */
     public interface Delegate extends EventListener {
-	void onDataReceived(byte[] data);
+	/**
+	 * Den metod som internt anropas nr ett paket tagits emot. Paketet
+	 * utgrs utav buffertens innehll frn dess position till dess
+	 * grns, och r enbart giltigt under anropet.
+	 *
+	 * @param data
+	 *            en vy ver det mottagna paketet
+	 */
+	void onDataReceived(ByteBuffer data);
 
 	void onIOException(IOException e);
     }